@@ -0,0 +1,14 @@
+package de.ait.g_75_shop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background tasks (consistency checks, cleanups)
+ *
+ * Включает фоновые задачи @Scheduled (проверки согласованности, очистки)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -20,4 +20,40 @@ public interface Constants {
      * Имя cookie для JWT refresh токена
      */
     String REFRESH_TOKEN_COOKIE_NAME = "Refresh-Token";
+
+    /**
+     * Response header with the cursor (last ID) for the next keyset page
+     * Заголовок ответа с курсором (последним ID) для следующей keyset-страницы
+     */
+    String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Upper bound for keyset page size
+     * Максимальный размер keyset-страницы
+     */
+    int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Keyset page size used when only the cursor is given
+     * Размер keyset-страницы, если передан только курсор
+     */
+    int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Maximum number of IDs in the IN list of one bulk UPDATE, larger lists are split
+     * Максимальное количество ID в списке IN одного группового UPDATE, большие списки делятся
+     */
+    int MAX_BULK_IDS_PER_STATEMENT = 1000;
+
+    /**
+     * Media type for newline-delimited JSON streaming responses
+     * Тип содержимого для потоковых ответов в формате JSON, разделённого переводами строк
+     */
+    String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    /**
+     * Media type of CSV bodies accepted by bulk import
+     * Тип содержимого CSV, принимаемый пакетным импортом
+     */
+    String CSV_MEDIA_TYPE = "text/csv";
 }
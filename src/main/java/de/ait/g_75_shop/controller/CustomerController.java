@@ -1,16 +1,27 @@
 package de.ait.g_75_shop.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ait.g_75_shop.constants.Constants;
+import de.ait.g_75_shop.dto.cart.CartDto;
+import de.ait.g_75_shop.dto.cart.CartItemDto;
+import de.ait.g_75_shop.dto.cart.CartOperationDto;
+import de.ait.g_75_shop.dto.cart.CartSummaryDto;
+import de.ait.g_75_shop.dto.cart.CartSweeperStatsDto;
 import de.ait.g_75_shop.dto.customer.CustomerDto;
 import de.ait.g_75_shop.dto.customer.CustomerSaveDto;
 import de.ait.g_75_shop.dto.customer.CustomerUpdateDto;
+import de.ait.g_75_shop.dto.order.OrderDto;
 import de.ait.g_75_shop.service.interfaces.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -29,15 +40,18 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructor with dependency injection
      * Конструктор с внедрением зависимости
      *
      * @param customerService service for customer operations / сервис для операций с покупателями
+     * @param objectMapper JSON mapper for streaming output / JSON маппер для потокового вывода
      */
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -59,15 +73,114 @@ public class CustomerController {
     }
 
     /**
-     * Gets all active customers
+     * POST /customers/batch - Creates several customers with carts (B2B account imports) /
+     * создание нескольких покупателей с корзинами (импорт B2B-аккаунтов)
+     *
+     * @param saveDtos new customers data / данные новых покупателей
+     * @return created customers in the order of the request / созданные покупатели в порядке запроса
+     */
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Save Customers", description = "Save several new Customers with batched inserts")
+    public List<CustomerDto> saveAll(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "New Customers, validated as a whole")
+            List<CustomerSaveDto> saveDtos
+    ) {
+        return customerService.saveAll(saveDtos);
+    }
+
+    /**
+     * Gets active customers
      * GET /customers - получение всех активных покупателей
+     * GET /customers?after=100&size=50 - keyset page, next cursor in X-Next-Cursor header /
+     * keyset-страница, курсор следующей страницы в заголовке X-Next-Cursor
+     * GET /customers?size=50&includeCart=false - page without carts, one query /
+     * страница без корзин, один запрос
      *
+     * @param after       last customer ID of previous page / последний ID покупателя предыдущей страницы
+     * @param size        page size / размер страницы
+     * @param includeCart whether carts are included (default true) / включать ли корзины (по умолчанию true)
      * @return list of active customers / список активных покупателей
      */
     @GetMapping
-    @Operation(summary = "Get all Customers", description = "Get all active Customers from Database")
-    public List<CustomerDto> getAll() {
-        return customerService.getAllActiveCustomers();
+    @Operation(summary = "Get all Customers", description = "Get all active Customers from Database, optionally by keyset pages")
+    public ResponseEntity<List<CustomerDto>> getAll(
+            @RequestParam(required = false)
+            @Parameter(description = "Last customer ID of the previous page")
+            Long after,
+            @RequestParam(required = false)
+            @Parameter(description = "Page size (max 500)")
+            Integer size,
+            @RequestParam(defaultValue = "true")
+            @Parameter(description = "Include customers' carts with positions")
+            boolean includeCart
+    ) {
+        if (after == null && size == null) {
+            return ResponseEntity.ok(customerService.getAllActiveCustomers(includeCart));
+        }
+
+        List<CustomerDto> page = customerService.getActiveCustomersPage(
+                after, size == null ? Constants.DEFAULT_PAGE_SIZE : size, includeCart);
+        if (page.isEmpty()) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(Constants.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()))
+                .body(page);
+    }
+
+    /**
+     * Searches active customers by name (case-insensitive), carts are not included
+     * GET /customers/search?name=pet - customers with "pet" in any part of the name / покупатели с "pet" в любой части имени
+     * GET /customers/search?name=pet&prefix=true - names starting with "pet" / имена, начинающиеся с "pet"
+     * GET /customers/search?name=pet&after=100&size=20 - keyset page, next cursor in X-Next-Cursor header /
+     * keyset-страница, курсор следующей страницы в заголовке X-Next-Cursor
+     *
+     * @param name   searched text / искомый текст
+     * @param prefix match the beginning of the name only / сравнивать только начало имени
+     * @param after  last customer ID of previous page / последний ID покупателя предыдущей страницы
+     * @param size   page size / размер страницы
+     * @return page of found customers / страница найденных покупателей
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search Customers", description = "Search active Customers by name with keyset pages")
+    public ResponseEntity<List<CustomerDto>> search(
+            @RequestParam
+            @Parameter(description = "Text to search in the customer name")
+            String name,
+            @RequestParam(defaultValue = "false")
+            @Parameter(description = "Match the beginning of the name only")
+            boolean prefix,
+            @RequestParam(required = false)
+            @Parameter(description = "Last customer ID of the previous page")
+            Long after,
+            @RequestParam(required = false)
+            @Parameter(description = "Page size (max 500)")
+            Integer size
+    ) {
+        List<CustomerDto> page = customerService.searchActiveCustomers(
+                name, prefix, after, size == null ? Constants.DEFAULT_PAGE_SIZE : size);
+        if (page.isEmpty()) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(Constants.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()))
+                .body(page);
+    }
+
+    /**
+     * GET /customers/stream - Streams all active customers as NDJSON / потоковая выдача всех активных покупателей
+     *
+     * @return streaming response body / потоковое тело ответа
+     */
+    @GetMapping(value = "/stream", produces = Constants.NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Stream all Customers", description = "Stream all active Customers as NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> customerService.streamAllActiveCustomers(new NdjsonWriter<>(out, objectMapper));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(Constants.NDJSON_MEDIA_TYPE))
+                .body(body);
     }
 
     /**
@@ -121,6 +234,22 @@ public class CustomerController {
         customerService.deleteById(id);
     }
 
+    /**
+     * DELETE /customers - Soft deletes several customers (admin tooling) / мягкое удаление нескольких покупателей
+     *
+     * @param ids customer identifiers / идентификаторы покупателей
+     * @return number of deleted customers / количество удалённых покупателей
+     */
+    @DeleteMapping
+    @Operation(summary = "Delete Customers", description = "Soft delete several Customers by their identifiers")
+    public int deleteByIds(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Customer IDs to delete")
+            List<Long> ids
+    ) {
+        return customerService.deleteByIds(ids);
+    }
+
     /**
      * PUT /customers/{id}/restore - Restores previously deleted customer / восстановление удаленного покупателя
      *
@@ -147,6 +276,17 @@ public class CustomerController {
         return customerService.getAllActiveCustomersCount();
     }
 
+    /**
+     * GET /customers/cart-sweeper/stats - Gets abandoned cart sweeper counters / счётчики сборщика заброшенных корзин
+     *
+     * @return sweeper statistics / статистика сборщика
+     */
+    @GetMapping("/cart-sweeper/stats")
+    @Operation(summary = "Get cart sweeper statistics", description = "Get runs, removed positions and time spent by the abandoned cart sweeper")
+    public CartSweeperStatsDto getCartSweeperStats() {
+        return customerService.getCartSweeperStats();
+    }
+
     /**
      * GET /customers/{id}/cart/total-cost -  Gets total cost of customer's cart / общая стоимость корзины
      *
@@ -179,6 +319,22 @@ public class CustomerController {
         return customerService.getCustomerCartAveragePrice(id);
     }
 
+    /**
+     * GET /customers/{id}/cart/summary - Gets cart totals in one request / итоги корзины одним запросом
+     *
+     * @param id customer identifier / идентификатор покупателя
+     * @return cart summary / сводка корзины
+     */
+    @GetMapping("/{id}/cart/summary")
+    @Operation(summary = "Get Cart summary", description = "Get positions count, total quantity, total cost and average price of Customer's cart")
+    public CartSummaryDto getCustomerCartSummary(
+            @PathVariable
+            @Parameter(description = "Customer ID")
+            Long id
+    ) {
+        return customerService.getCustomerCartSummary(id);
+    }
+
     /**
      * POST /customers/{customerId}/cart/products/{productId} - Adds product to customer's cart / добавление товара в корзину
      *
@@ -203,6 +359,28 @@ public class CustomerController {
         customerService.addProductToCart(customerId, productId, quantity);
     }
 
+    /**
+     * POST /customers/{customerId}/cart/products - Adds several products to customer's cart in one transaction /
+     * добавление нескольких товаров в корзину одной транзакцией
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param items      products and quantities to add / товары и количества для добавления
+     * @return updated cart / обновлённая корзина
+     */
+    @PostMapping("/{customerId}/cart/products")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Add products to cart", description = "Add several products to Customer's cart in one request")
+    public CartDto addProductsToCart(
+            @PathVariable
+            @Parameter(description = "Customer ID")
+            Long customerId,
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "List of product IDs and quantities")
+            List<CartItemDto> items
+    ) {
+        return customerService.addProductsToCart(customerId, items);
+    }
+
     /**
      * DELETE /customers/{customerId}/cart/products/{productId} - Removes product from customer's cart / удаление товара из корзины
      *
@@ -239,6 +417,47 @@ public class CustomerController {
         customerService.clearCart(id);
     }
 
+    /**
+     * PATCH /customers/{id}/cart - Applies several cart operations atomically in one transaction /
+     * применение нескольких операций с корзиной атомарно одной транзакцией
+     *
+     * @param id         customer identifier / идентификатор покупателя
+     * @param operations ordered operations: ADD, SET, REMOVE, CLEAR / операции по порядку: ADD, SET, REMOVE, CLEAR
+     * @return updated cart / обновлённая корзина
+     */
+    @PatchMapping("/{id}/cart")
+    @Operation(summary = "Change cart", description = "Apply an ordered list of add / set quantity / remove / clear operations to Customer's cart atomically")
+    public CartDto applyCartOperations(
+            @PathVariable
+            @Parameter(description = "Customer ID")
+            Long id,
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Ordered list of cart operations")
+            List<CartOperationDto> operations
+    ) {
+        return customerService.applyCartOperations(id, operations);
+    }
+
+    /**
+     * POST /customers/{id}/checkout - Creates an order from positions of active products and removes them
+     * from the cart, positions of inactive products stay / оформление заказа из позиций активных товаров
+     * с удалением их из корзины, позиции неактивных товаров остаются
+     *
+     * @param id customer identifier / идентификатор покупателя
+     * @return created order / созданный заказ
+     */
+    @PostMapping("/{id}/checkout")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Checkout", description = "Create an order from Customer's cart with current product prices. "
+            + "Ordered positions are removed, positions of inactive products stay in the cart")
+    public OrderDto checkout(
+            @PathVariable
+            @Parameter(description = "Customer ID")
+            Long id
+    ) {
+        return customerService.checkout(id);
+    }
+
     /**
      * Adds image to customer profile
      * POST /customers/{id}/image with multipart/form-data
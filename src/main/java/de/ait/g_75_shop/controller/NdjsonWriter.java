@@ -0,0 +1,39 @@
+package de.ait.g_75_shop.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes objects to an output stream as newline-delimited JSON (one object per line)
+ * Used by streaming endpoints, so the whole list is never built in memory
+ *
+ * Записывает объекты в выходной поток в формате JSON, разделённого переводами строк (один объект на строку)
+ * Используется потоковыми эндпоинтами, поэтому весь список никогда не собирается в памяти
+ */
+final class NdjsonWriter<T> implements Consumer<T> {
+
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private final OutputStream out;
+    private final ObjectMapper objectMapper;
+
+    NdjsonWriter(OutputStream out, ObjectMapper objectMapper) {
+        this.out = out;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            // Client closed connection or serialization failed / Клиент закрыл соединение или ошибка сериализации
+            throw new UncheckedIOException(e);
+        }
+    }
+}
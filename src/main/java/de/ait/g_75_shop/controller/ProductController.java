@@ -1,19 +1,32 @@
 package de.ait.g_75_shop.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ait.g_75_shop.constants.Constants;
+import de.ait.g_75_shop.dto.product.ProductCacheStatsDto;
 import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.dto.product.ProductImportReportDto;
 import de.ait.g_75_shop.dto.product.ProductSaveDto;
+import de.ait.g_75_shop.dto.product.ProductSearchResultDto;
 import de.ait.g_75_shop.dto.product.ProductUpdateDto;
+import de.ait.g_75_shop.service.catalog.ProductCatalogSnapshot;
 import de.ait.g_75_shop.service.interfaces.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Locale;
 /**
  * REST Controller for managing products
  * All requests starting with /products are handled by this controller
@@ -31,16 +44,22 @@ import java.util.List;
 @Tag(name = "Product controller", description = "Controller for various operations with Products")
 public class ProductController {
 
+    private static final String GZIP_ENCODING = "gzip";
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
     // Здесь будет поле, содержащее объект сервиса продуктов
     private final ProductService service;
+    private final ObjectMapper objectMapper;
     /**
      * Constructor with dependency injection
      * Конструктор с внедрением зависимости
      *
      * @param service product service / сервис продуктов
+     * @param objectMapper JSON mapper for streaming output / JSON маппер для потокового вывода
      */
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -63,34 +82,247 @@ public class ProductController {
     }
 
     /**
-     * Returns all active products from database
-     * GET /products
+     * Imports products in bulk from CSV body (header with title and price columns)
+     * POST /products/import, Content-Type: text/csv
+     *
+     * Пакетный импорт товаров из CSV (заголовок с колонками title и price)
+     * Тело читается потоково, без буферизации целиком
+     *
+     * @param body CSV request body / тело запроса в формате CSV
+     * @return per-row import report / отчёт об импорте по строкам
+     */
+    @PostMapping(value = "/import", consumes = Constants.CSV_MEDIA_TYPE)
+    @Operation(summary = "Import Products from CSV", description = "Bulk import of Products with per-row error report")
+    public ProductImportReportDto importCsv(InputStream body) {
+        return service.importProductsFromCsv(body);
+    }
+
+    /**
+     * Imports products in bulk from JSON array body
+     * POST /products/import, Content-Type: application/json
+     *
+     * Пакетный импорт товаров из JSON-массива
+     * Тело читается потоково, без буферизации целиком
+     *
+     * @param body JSON array request body / тело запроса в виде JSON-массива
+     * @return per-row import report / отчёт об импорте по строкам
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Import Products from JSON", description = "Bulk import of Products with per-row error report")
+    public ProductImportReportDto importJson(InputStream body) {
+        return service.importProductsFromJson(body);
+    }
+
+    /**
+     * Returns active products from database
+     * GET /products - all active products
+     * GET /products?after=100&size=50 - keyset page, next cursor in X-Next-Cursor header
+     * ETag and Last-Modified are the catalog version, If-None-Match / If-Modified-Since are answered with 304
+     * The full list is served from the pre-serialized catalog snapshot, gzipped if the client accepts gzip
      *
-     * Возвращает все активные товары из базы данных
+     * Возвращает активные товары из базы данных
+     * Без параметров - все активные товары, с параметрами - keyset-страница,
+     * курсор следующей страницы в заголовке X-Next-Cursor (пустая страница - конец списка)
+     * ETag и Last-Modified - версия всего каталога, на If-None-Match / If-Modified-Since отвечает 304
+     * Полный список отдаётся из заранее сериализованного снимка каталога, сжатым gzip, если клиент его принимает
      *
+     * @param after last product ID of previous page / последний ID товара предыдущей страницы
+     * @param size page size / размер страницы
+     * @param request current request for conditional GET / текущий запрос для условного GET
      * @return list of active product DTOs / список активных товаров в виде DTO
      */
     // GET -> http://10.20.30.40:8081/products
     @GetMapping
-    public List<ProductDto> getAll() {
-        return service.getAllActiveProducts();
+    public ResponseEntity<?> getAll(
+            @RequestParam(required = false)
+            @Parameter(description = "Last product ID of the previous page")
+            Long after,
+            @RequestParam(required = false)
+            @Parameter(description = "Page size (max 500)")
+            Integer size,
+            WebRequest request
+    ) {
+        // Tag is taken before the data, so a concurrent change can only make it outdated, never too new
+        // Тег берётся до данных, поэтому параллельное изменение может сделать его только устаревшим, но не слишком новым
+        ProductCatalogSnapshot.Snapshot snapshot =
+                after == null && size == null ? service.getCatalogSnapshot() : null;
+        // The gzipped snapshot is another representation, so it gets its own strong tag /
+        // Сжатый снимок - другое представление, поэтому у него свой строгий тег
+        boolean gzip = snapshot != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String tag = snapshot == null ? service.getCatalogVersion() : snapshot.getTag();
+        String etag = "\"" + tag + (gzip ? GZIP_ETAG_SUFFIX : "") + "\"";
+        long lastModified = snapshot == null ? service.getCatalogLastModified() : snapshot.getLastModified();
+        if (request.checkNotModified(etag, lastModified)) {
+            // 304 Not Modified, no database access and no serialization / без обращения к БД и сериализации
+            return null;
+        }
+
+        if (snapshot != null) {
+            // Ready bytes, no database access and no serialization / Готовые байты, без обращения к БД и сериализации
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING).body(snapshot.getGzip());
+            }
+            return response.body(snapshot.getJson());
+        }
+
+        if (after == null && size == null) {
+            return ResponseEntity.ok(service.getAllActiveProducts());
+        }
+
+        List<ProductDto> page = service.getActiveProductsPage(
+                after, size == null ? Constants.DEFAULT_PAGE_SIZE : size);
+        if (page.isEmpty()) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(Constants.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()))
+                .body(page);
+    }
+
+    /**
+     * Streams all active products as newline-delimited JSON
+     * GET /products/stream
+     *
+     * Потоково отдаёт все активные товары в формате NDJSON (один товар на строку)
+     * Память сервера не зависит от размера каталога
+     *
+     * @return streaming response body / потоковое тело ответа
+     */
+    @GetMapping(value = "/stream", produces = Constants.NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Stream all Products", description = "Stream all active Products as NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> service.streamAllActiveProducts(new NdjsonWriter<>(out, objectMapper));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(Constants.NDJSON_MEDIA_TYPE))
+                .body(body);
     }
 
     /**
      * Returns one active product by its identifier
      * GET /products/{id}
+     * Strong ETag is built from product ID and version, If-None-Match is answered with 304
      *
      * Возвращает один активный товар по его идентификатору
+     * Сильный ETag строится из ID и версии товара, на If-None-Match отвечает 304
      *
      * @param id product identifier / идентификатор товара
+     * @param request current request for conditional GET / текущий запрос для условного GET
      * @return product DTO / товар в виде DTO
      */
     // GET -> http://10.20.30.40:8081/products/5
     @GetMapping("/{id}")
-    public ProductDto getById(@PathVariable  @Parameter(description = "Product ID to search") Long id) {
+    public ProductDto getById(@PathVariable  @Parameter(description = "Product ID to search") Long id,
+                              WebRequest request) {
+        // Version comes from the product cache: a cached product is answered with 304 without database access,
+        // a cache miss loads the product once and the body below is then served from the cache /
+        // Версия берётся из кэша товаров: на закэшированный товар 304 отвечается без обращения к БД,
+        // промах кэша загружает товар один раз, и тело ниже затем берётся из кэша
+        String etag = "\"" + id + "-" + service.getActiveProductVersion(id) + "\"";
+        if (request.checkNotModified(etag, service.getCatalogLastModified())) {
+            return null;
+        }
         return service.getActiveProductById(id);
     }
 
+    /**
+     * Returns several active products by their identifiers in one request
+     * GET /products/batch?ids=1,2,3
+     *
+     * Возвращает несколько активных товаров по их идентификаторам одним запросом
+     * Неактивные и отсутствующие товары пропускаются
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return list of active product DTOs / список активных товаров в виде DTO
+     */
+    // GET -> http://10.20.30.40:8081/products/batch?ids=1,2,3
+    @GetMapping("/batch")
+    @Operation(summary = "Get Products by IDs", description = "Get several active Products by their identifiers")
+    public List<ProductDto> getByIds(@RequestParam @Parameter(description = "Product IDs to search") List<Long> ids) {
+        return service.getActiveProductsByIds(ids);
+    }
+
+    /**
+     * Searches active products by title, best matches first
+     * GET /products/search?q=app&page=0&size=20
+     *
+     * Ищет активные товары по названию, лучшие совпадения первыми
+     * Короткие запросы (1-2 символа) ищутся по началу слов, более длинные - по подстроке
+     *
+     * @param q    search text / текст поиска
+     * @param page page number starting from 0 / номер страницы, начиная с 0
+     * @param size page size / размер страницы
+     * @return page of found products / страница найденных товаров
+     */
+    // GET -> http://10.20.30.40:8081/products/search?q=app
+    @GetMapping("/search")
+    @Operation(summary = "Search Products", description = "Search active Products by title with ranking and pagination")
+    public ProductSearchResultDto search(
+            @RequestParam @Parameter(description = "Search text (title prefix or part of title)") String q,
+            @RequestParam(defaultValue = "0") @Parameter(description = "Page number (starting from 0)") int page,
+            @RequestParam(defaultValue = "" + Constants.DEFAULT_PAGE_SIZE) @Parameter(description = "Page size (max 500)") int size
+    ) {
+        return service.searchProducts(q, page, size);
+    }
+
+    /**
+     * Returns active products with price between min and max (inclusive), cheapest first
+     * GET /products/price-range?min=10&max=50&size=50
+     *
+     * Возвращает активные товары с ценой от min до max (включительно), от дешёвых к дорогим
+     *
+     * @param min  minimum price / минимальная цена
+     * @param max  maximum price / максимальная цена
+     * @param size maximum number of products / максимальное количество товаров
+     * @return list of product DTOs / список товаров в виде DTO
+     */
+    // GET -> http://10.20.30.40:8081/products/price-range?min=10&max=50
+    @GetMapping("/price-range")
+    @Operation(summary = "Get Products by price range", description = "Get active Products with price between min and max")
+    public List<ProductDto> getByPriceRange(
+            @RequestParam @Parameter(description = "Minimum price (inclusive)") BigDecimal min,
+            @RequestParam @Parameter(description = "Maximum price (inclusive)") BigDecimal max,
+            @RequestParam(defaultValue = "" + Constants.DEFAULT_PAGE_SIZE) @Parameter(description = "Maximum number of Products (max 500)") int size
+    ) {
+        return service.getActiveProductsByPriceRange(min, max, size);
+    }
+
+    /**
+     * Returns the cheapest active products
+     * GET /products/cheapest?limit=10
+     *
+     * Возвращает самые дешёвые активные товары
+     *
+     * @param limit number of products / количество товаров
+     * @return list of product DTOs, cheapest first / список товаров в виде DTO, начиная с самого дешёвого
+     */
+    @GetMapping("/cheapest")
+    @Operation(summary = "Get cheapest Products", description = "Get top N cheapest active Products")
+    public List<ProductDto> getCheapest(
+            @RequestParam(defaultValue = "10") @Parameter(description = "Number of Products (max 500)") int limit
+    ) {
+        return service.getCheapestActiveProducts(limit);
+    }
+
+    /**
+     * Returns the most expensive active products
+     * GET /products/most-expensive?limit=10
+     *
+     * Возвращает самые дорогие активные товары
+     *
+     * @param limit number of products / количество товаров
+     * @return list of product DTOs, most expensive first / список товаров в виде DTO, начиная с самого дорогого
+     */
+    @GetMapping("/most-expensive")
+    @Operation(summary = "Get most expensive Products", description = "Get top N most expensive active Products")
+    public List<ProductDto> getMostExpensive(
+            @RequestParam(defaultValue = "10") @Parameter(description = "Number of Products (max 500)") int limit
+    ) {
+        return service.getMostExpensiveActiveProducts(limit);
+    }
+
     /**
      * Updates product in database by its identifier
      * PUT /products/{id}
@@ -135,6 +367,21 @@ public class ProductController {
         service.restoreById(id);
     }
 
+    /**
+     * Restores several previously deleted products (admin tooling)
+     * PUT /products/restore
+     *
+     * Восстанавливает несколько ранее удаленных товаров (инструменты администратора)
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return number of restored products / количество восстановленных товаров
+     */
+    // PUT -> http://10.20.30.40:8081/products/restore, body: [5, 6, 7]
+    @PutMapping("/restore")
+    public int restoreByIds(@RequestBody List<Long> ids) {
+        return service.restoreByIds(ids);
+    }
+
     /**
      * Returns total count of active products
      * GET /products/count
@@ -174,6 +421,36 @@ public class ProductController {
         return service.getAllActiveProductsAveragePrice();
     }
 
+    /**
+     * Checks running catalog statistics against the database
+     * Rebuilds them if they drifted
+     * POST /products/statistics/verify
+     *
+     * Сверяет текущую статистику каталога с базой данных
+     * Пересчитывает её при расхождении
+     *
+     * @return true if statistics were consistent / true, если статистика совпадала
+     */
+    @PostMapping("/statistics/verify")
+    @Operation(summary = "Verify catalog statistics", description = "Compare count and total cost with the Database")
+    public boolean verifyStatistics() {
+        return service.verifyStatistics();
+    }
+
+    /**
+     * Returns product cache counters (hits, misses, evictions)
+     * GET /products/cache/stats
+     *
+     * Возвращает счётчики кэша товаров (попадания, промахи, вытеснения)
+     *
+     * @return cache statistics / статистика кэша
+     */
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get product cache statistics", description = "Get hit, miss and eviction counters of the product cache")
+    public ProductCacheStatsDto getCacheStats() {
+        return service.getCacheStats();
+    }
+
     /**
      * Adds image to specific product by its identifier
      * POST /products/{id}/image with multipart/form-data
@@ -189,4 +466,46 @@ public class ProductController {
     public void addImage(@PathVariable Long id, @RequestParam MultipartFile image) throws IOException {
         service.addImage(id, image);
     }
+
+    /**
+     * Checks whether Accept-Encoding allows gzip: explicitly or by "*", in both cases with q above 0
+     * Проверяет, допускает ли Accept-Encoding gzip: явно или через "*", в обоих случаях с q больше 0
+     *
+     * @param acceptEncoding Accept-Encoding header value / значение заголовка Accept-Encoding
+     * @return true if the gzipped body may be sent / true, если можно отправить сжатое тело
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (coding.equals(GZIP_ENCODING) || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
 }
@@ -1,7 +1,9 @@
 package de.ait.g_75_shop.domain;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -26,14 +28,14 @@ public class Cart {
 
     /**
      * Collection of positions in the cart
-     * EAGER fetching - loads positions immediately with cart
+     * LAZY fetching - loaded only by cart changes (Customer.cartPositions graph)
      * Cascade ALL - operations on cart affect positions
      *
      * Коллекция позиций в корзине
-     * EAGER загрузка - загружает позиции сразу с корзиной
+     * LAZY загрузка - загружается только при изменениях корзины (граф Customer.cartPositions)
      * Cascade ALL - операции с корзиной влияют на позиции
      */
-    @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, mappedBy = "cart")
+    @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "cart")
     private Set<Position> positions = new HashSet<>();
 
     /**
@@ -43,10 +45,48 @@ public class Cart {
      * Покупатель, владеющий этой корзиной
      * Двунаправленное отношение один-к-одному
      */
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false, unique = true)
     private Customer customer;
 
+    /**
+     * Row version of the cart aggregate (optimistic locking)
+     * Cart writes force its increment, so concurrent changes of positions conflict here
+     *
+     * Версия строки агрегата корзины (оптимистичная блокировка)
+     * Изменения корзины принудительно увеличивают её, поэтому параллельные изменения позиций конфликтуют здесь
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Stored totals of positions with active products, kept exact by every cart change
+     * and by set-based updates when a product price or activity changes
+     *
+     * Хранимые итоги позиций с активными товарами, поддерживаются точными каждым изменением корзины
+     * и групповыми обновлениями при изменении цены или активности товара
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "total_price", nullable = false)
+    private Money totalPrice = Money.ZERO;
+
+    @Column(name = "total_quantity", nullable = false)
+    private int totalQuantity;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Time of the last change of positions by the customer; carts idle for too long are cleared by the sweeper
+     * Price or activity changes of products do not move it
+     *
+     * Время последнего изменения позиций покупателем; слишком долго неактивные корзины очищаются сборщиком
+     * Изменения цены или активности товаров его не сдвигают
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
     public Cart() {
     }
 
@@ -75,6 +115,43 @@ public class Cart {
         this.customer = customer;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns stored total price of positions with active products
+     *
+     * Возвращает хранимую общую стоимость позиций с активными товарами
+     *
+     * @return total price / общая стоимость
+     */
+    public Money getTotalPrice() {
+        return totalPrice;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    private void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
     // Business methods / Бизнес-методы
     /**
      * Adds product to cart with specified quantity
@@ -91,6 +168,7 @@ public class Cart {
         for (Position position : positions) {
             if (position.getProduct().equals(product)) {
                 position.setQuantity(position.getQuantity() + quantity);
+                recalculateTotals();
                 return;
             }
         }
@@ -101,6 +179,7 @@ public class Cart {
         position.setQuantity(quantity);
         position.setCart(this);
         positions.add(position);
+        recalculateTotals();
     }
 
     /**
@@ -112,6 +191,7 @@ public class Cart {
      */
     public void removePosition(Product product) {
         positions.removeIf(position -> position.getProduct().equals(product));
+        recalculateTotals();
     }
 
     /**
@@ -123,6 +203,7 @@ public class Cart {
      */
     public void removePositionById(Long productId) {
         positions.removeIf(position -> position.getProduct().getId().equals(productId));
+        recalculateTotals();
     }
 
     /**
@@ -132,45 +213,52 @@ public class Cart {
      */
     public void clearCart() {
         positions.clear();
+        recalculateTotals();
     }
 
     /**
-     * Calculates total price of all items in cart
-     *
-     * Вычисляет общую стоимость всех товаров в корзине
+     * Recalculates stored totals from positions and marks the cart as updated;
+     * positions of inactive products are not counted
+     * Called by the business methods, must be called after changing a position quantity directly
      *
-     * @return total price / общая стоимость
+     * Пересчитывает хранимые итоги по позициям и отмечает корзину как изменённую;
+     * позиции неактивных товаров не учитываются
+     * Вызывается бизнес-методами, должен вызываться после прямого изменения количества в позиции
      */
-    public BigDecimal getTotalPrice() {
-        BigDecimal total = BigDecimal.ZERO;
+    public void recalculateTotals() {
+        CartTotals.Accumulator accumulator = CartTotals.accumulator();
         for (Position position : positions) {
-            total = total.add(position.getProduct().getPrice()
-                    .multiply(BigDecimal.valueOf(position.getQuantity())));
+            Product product = position.getProduct();
+            accumulator.add(product.getPriceMoney().getCents(), position.getQuantity(), product.isActive());
         }
-        return total;
+        CartTotals totals = accumulator.build();
+        totalPrice = totals.getTotalPrice();
+        totalQuantity = totals.getTotalQuantity();
+        updatedAt = LocalDateTime.now();
     }
 
     /**
-     * Calculates average price per item in cart
+     * Returns summary built from stored totals, positions are not walked
+     * The positions count initializes the lazy positions collection if it is not loaded yet
      *
-     * Вычисляет среднюю цену товара в корзине
+     * Возвращает сводку из хранимых итогов, позиции не перебираются
+     * Количество позиций инициализирует ленивую коллекцию позиций, если она ещё не загружена
      *
-     * @return average price / средняя цена
+     * @return cart summary / сводка корзины
      */
-    public BigDecimal getAveragePrice() {
-        if (positions.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-
-        int totalQuantity = positions.stream()
-                .mapToInt(Position::getQuantity)
-                .sum();
-
-        if (totalQuantity == 0) {
-            return BigDecimal.ZERO;
-        }
+    public CartTotals getTotals() {
+        return CartTotals.of(positions.size(), totalQuantity, totalPrice);
+    }
 
-        return getTotalPrice().divide(BigDecimal.valueOf(totalQuantity), 2, BigDecimal.ROUND_HALF_UP);
+    /**
+     * Calculates average price per item from stored totals
+     *
+     * Вычисляет среднюю цену товара по хранимым итогам
+     *
+     * @return average price / средняя цена
+     */
+    public Money getAveragePrice() {
+        return getTotals().getAveragePrice();
     }
 
     // equals, hashCode, toString methods / методы equals, hashCode, toString
@@ -178,17 +266,18 @@ public class Cart {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Cart cart)) return false;
-        return id != null && Objects.equals(id, cart.id);
+        return id != null && Objects.equals(id, cart.getId());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        // Same value for a lazy proxy and the loaded instance / Одинаковое значение для ленивого прокси и загруженного экземпляра
+        return Hibernate.getClass(this).hashCode();
     }
 
     @Override
     public String toString() {
-        return String.format("Cart: id - %d, customer - %s, positions count - %d, total price - %.2f",
+        return String.format("Cart: id - %d, customer - %s, positions count - %d, total price - %s",
                 id, customer != null ? customer.getName() : "null",
                 positions.size(), getTotalPrice());
     }
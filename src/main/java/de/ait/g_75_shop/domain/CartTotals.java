@@ -0,0 +1,109 @@
+package de.ait.g_75_shop.domain;
+
+/**
+ * Summary of a cart: number of positions, quantity and total price of active products, average price
+ * The only place where cart totals are calculated: Cart, the live cart of the write-behind store and
+ * the read paths all build it, either from stored totals or with one pass of an Accumulator over positions.
+ * The accumulator returns the line total of every added position, so the caller gets the line totals
+ * in the same pass.
+ *
+ * Сводка корзины: количество позиций, количество и общая стоимость активных товаров, средняя цена
+ * Единственное место расчёта итогов корзины: Cart, корзина хранилища отложенной записи и пути чтения
+ * строят её из хранимых итогов или одним проходом Accumulator по позициям.
+ * Накопитель возвращает итог каждой добавленной позиции, поэтому вызывающий получает итоги позиций
+ * за тот же проход.
+ */
+public final class CartTotals {
+
+    public static final CartTotals EMPTY = new CartTotals(0, 0, Money.ZERO);
+
+    private final int positionsCount;
+    private final int totalQuantity;
+    private final Money totalPrice;
+
+    private CartTotals(int positionsCount, int totalQuantity, Money totalPrice) {
+        this.positionsCount = positionsCount;
+        this.totalQuantity = totalQuantity;
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * Creates a summary from already calculated (stored) totals, null price is zero
+     * Создаёт сводку из уже рассчитанных (хранимых) итогов, null цена - ноль
+     *
+     * @param positionsCount number of positions / количество позиций
+     * @param totalQuantity  quantity of active products / количество активных товаров
+     * @param totalPrice     total price of active products / общая стоимость активных товаров
+     * @return cart summary / сводка корзины
+     */
+    public static CartTotals of(int positionsCount, int totalQuantity, Money totalPrice) {
+        return new CartTotals(positionsCount, totalQuantity, totalPrice == null ? Money.ZERO : totalPrice);
+    }
+
+    public static Accumulator accumulator() {
+        return new Accumulator();
+    }
+
+    public int getPositionsCount() {
+        return positionsCount;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public Money getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * Average price per item, HALF_UP to a cent, zero for an empty cart
+     * Средняя цена товара, HALF_UP до цента, ноль для пустой корзины
+     */
+    public Money getAveragePrice() {
+        return totalPrice.averageOver(totalQuantity);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cart totals: positions - %d, quantity - %d, total price - %s",
+                positionsCount, totalQuantity, totalPrice);
+    }
+
+    /**
+     * One pass over cart positions in plain long arithmetic, positions of inactive products are not counted
+     * Один проход по позициям корзины в обычной long-арифметике, позиции неактивных товаров не учитываются
+     */
+    public static final class Accumulator {
+
+        private int positionsCount;
+        private int totalQuantity;
+        private long totalCents;
+
+        private Accumulator() {
+        }
+
+        /**
+         * Adds one position
+         * Добавляет одну позицию
+         *
+         * @param priceCents product price in cents / цена товара в центах
+         * @param quantity   quantity / количество
+         * @param active     whether the product is active / активен ли товар
+         * @return line total in cents / итог позиции в центах
+         */
+        public long add(long priceCents, int quantity, boolean active) {
+            long lineCents = Math.multiplyExact(priceCents, quantity);
+            positionsCount++;
+            if (active) {
+                totalQuantity += quantity;
+                totalCents = Math.addExact(totalCents, lineCents);
+            }
+            return lineCents;
+        }
+
+        public CartTotals build() {
+            return new CartTotals(positionsCount, totalQuantity, Money.ofCents(totalCents));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import org.hibernate.Hibernate;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -15,11 +16,30 @@ import java.util.Objects;
  *
  * Сущность покупателя, представляющая покупателя в системе
  * Содержит личную информацию и корзину покупок
+ *
+ * Named entity graphs (fetch plans per use case) / Именованные графы сущностей (планы выборки по сценариям):
+ * - Customer.cart: customer with the cart row, for changes of the customer itself
+ *   покупатель со строкой корзины, для изменений самого покупателя
+ * - Customer.cartPositions: customer, cart, positions and their products, for cart changes in JPA
+ *   покупатель, корзина, позиции и их товары, для изменений корзины через JPA
  */
 @Entity
 @Table(name = "customer")
+@NamedEntityGraph(name = Customer.GRAPH_CART, attributeNodes = @NamedAttributeNode("cart"))
+@NamedEntityGraph(
+        name = Customer.GRAPH_CART_POSITIONS,
+        attributeNodes = @NamedAttributeNode(value = "cart", subgraph = "cart.positions"),
+        subgraphs = {
+                @NamedSubgraph(name = "cart.positions",
+                        attributeNodes = @NamedAttributeNode(value = "positions", subgraph = "position.product")),
+                @NamedSubgraph(name = "position.product", attributeNodes = @NamedAttributeNode("product"))
+        }
+)
 public class Customer {
 
+    public static final String GRAPH_CART = "Customer.cart";
+    public static final String GRAPH_CART_POSITIONS = "Customer.cartPositions";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -64,9 +84,14 @@ public class Customer {
 
     /**
      * Customer's shopping cart (one-to-one relationship)
+     * Inverse side: without bytecode enhancement Hibernate resolves it on load anyway,
+     * so repository methods join it with the Customer.cart graph instead of a second select.
+     *
      * Корзина покупок покупателя (отношение один-к-одному)
+     * Обратная сторона: без модификации байт-кода Hibernate всё равно разрешает её при загрузке,
+     * поэтому методы репозитория присоединяют её графом Customer.cart вместо второго запроса.
      */
-    @OneToOne(cascade = CascadeType.ALL, mappedBy = "customer")
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "customer")
     private Cart cart;
 
     public Customer() {
@@ -119,12 +144,13 @@ public class Customer {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Customer customer)) return false;
-        return id != null && Objects.equals(id, customer.id);
+        return id != null && Objects.equals(id, customer.getId());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        // Same value for a lazy proxy and the loaded instance / Одинаковое значение для ленивого прокси и загруженного экземпляра
+        return Hibernate.getClass(this).hashCode();
     }
 
     @Override
@@ -0,0 +1,129 @@
+package de.ait.g_75_shop.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money as a long number of minor units (cents)
+ * Used for totals inside the domain: sums and products are plain long arithmetic without allocations
+ * per step and with overflow checks. Conversion from and to BigDecimal (API and database boundary) is exact,
+ * amounts with more than 2 decimal places are rejected.
+ *
+ * Денежная сумма как long-число минимальных единиц (центов)
+ * Используется для итогов внутри домена: суммы и произведения - обычная long-арифметика без выделения
+ * памяти на каждом шаге и с проверкой переполнения. Преобразование из BigDecimal и обратно (граница API и БД)
+ * точное, суммы с более чем 2 знаками после запятой отклоняются.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Converts an amount exactly
+     * Точно преобразует сумму
+     *
+     * @param amount amount with at most 2 decimal places / сумма не более чем с 2 знаками после запятой
+     * @return money / денежная сумма
+     * @throws ArithmeticException if the amount has more decimal places or does not fit into long cents
+     *                             если у суммы больше знаков после запятой или она не помещается в long центов
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(centsOf(amount));
+    }
+
+    /**
+     * Converts an amount to cents exactly, null is zero
+     * Точно преобразует сумму в центы, null - ноль
+     *
+     * @param amount amount with at most 2 decimal places / сумма не более чем с 2 знаками после запятой
+     * @return cents / центы
+     * @throws ArithmeticException if the amount has more decimal places or does not fit into long
+     *                             если у суммы больше знаков после запятой или она не помещается в long
+     */
+    public static long centsOf(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    /**
+     * Divides by a count with HALF_UP rounding to a cent, zero for count 0
+     * Делит на количество с округлением HALF_UP до цента, ноль при количестве 0
+     *
+     * @param count divisor / делитель
+     * @return average amount / среднее значение
+     */
+    public Money averageOver(long count) {
+        if (count == 0) {
+            return ZERO;
+        }
+        long absolute = Math.abs(cents);
+        long absoluteCount = Math.abs(count);
+        // Half up away from zero, like BigDecimal HALF_UP / Половина округляется от нуля, как BigDecimal HALF_UP
+        long rounded = (Math.multiplyExact(absolute, 2) + absoluteCount) / Math.multiplyExact(absoluteCount, 2);
+        return ofCents((cents < 0) != (count < 0) ? -rounded : rounded);
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    /**
+     * Converts to BigDecimal with scale 2 for the API and database
+     * Преобразует в BigDecimal с масштабом 2 для API и БД
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money money)) return false;
+        return cents == money.cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,127 @@
+package de.ait.g_75_shop.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Order entity: snapshot of a customer's cart at checkout
+ * Created by a set-based SQL checkout, lines keep the product prices of that moment
+ *
+ * Сущность заказа: снимок корзины покупателя на момент оформления
+ * Создаётся групповым SQL при оформлении, строки хранят цены товаров на тот момент
+ */
+@Entity
+@Table(name = "orders")
+public class Order {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * Customer who placed the order
+     * Покупатель, оформивший заказ
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private Customer customer;
+
+    /**
+     * Lines of the order, removed together with it
+     * Строки заказа, удаляются вместе с ним
+     */
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<OrderLine> lines = new ArrayList<>();
+
+    /**
+     * Totals of the lines at checkout
+     * Итоги строк на момент оформления
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "total_price", nullable = false)
+    private Money totalPrice = Money.ZERO;
+
+    @Column(name = "total_quantity", nullable = false)
+    private int totalQuantity;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public Order() {
+    }
+
+    // Getters and setters / Геттеры и сеттеры
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(Customer customer) {
+        this.customer = customer;
+    }
+
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<OrderLine> lines) {
+        this.lines = lines;
+    }
+
+    public Money getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(Money totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public void setTotalQuantity(int totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @PrePersist
+    private void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // equals, hashCode, toString methods / методы equals, hashCode, toString
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Order order)) return false;
+        return id != null && Objects.equals(id, order.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Order: id - %d, total quantity - %d, total price - %s, created at - %s",
+                id, totalQuantity, totalPrice, createdAt);
+    }
+}
@@ -0,0 +1,112 @@
+package de.ait.g_75_shop.domain;
+
+import jakarta.persistence.*;
+
+import java.util.Objects;
+
+/**
+ * Order line entity: product, its price at checkout and quantity
+ *
+ * Сущность строки заказа: товар, его цена на момент оформления и количество
+ */
+@Entity
+@Table(name = "order_line")
+public class OrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    /**
+     * Product price at checkout, later price changes do not affect the order
+     * Цена товара на момент оформления, последующие изменения цены не влияют на заказ
+     */
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "price", nullable = false)
+    private Money price;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    public OrderLine() {
+    }
+
+    // Getters and setters / Геттеры и сеттеры
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public Money getPrice() {
+        return price;
+    }
+
+    public void setPrice(Money price) {
+        this.price = price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Calculates line total: price at checkout times quantity
+     *
+     * Вычисляет итог строки: цена на момент оформления, умноженная на количество
+     *
+     * @return line total / итог строки
+     */
+    public Money getTotalPrice() {
+        return price.times(quantity);
+    }
+
+    // equals, hashCode, toString methods / методы equals, hashCode, toString
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderLine line)) return false;
+        return id != null && Objects.equals(id, line.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Order line: id - %d, price - %s, quantity - %d", id, price, quantity);
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
@@ -16,7 +17,8 @@ import java.util.Objects;
  * Связывает товар с количеством в конкретной корзине
  */
 @Entity
-@Table(name = "position")
+@Table(name = "position", uniqueConstraints = @UniqueConstraint(
+        name = "uk_position_cart_product", columnNames = {"cart_id", "product_id"}))
 public class Position {
 
     @Id
@@ -28,7 +30,7 @@ public class Position {
      * Product in this cart position (many-to-one relationship)
      * Товар в этой позиции корзины (отношение многие-к-одному)
      */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
@@ -51,10 +53,24 @@ public class Position {
      * Cart that contains this position (many-to-one relationship)
      * Корзина, содержащая эту позицию (отношение многие-к-одному)
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id", nullable = false)
     private Cart cart;
 
+    /**
+     * Row version, incremented by Hibernate and by SQL upserts on every quantity change (optimistic locking)
+     * Версия строки, увеличивается Hibernate и SQL upsert при каждом изменении количества (оптимистичная блокировка)
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
     public Position() {
     }
 
@@ -83,6 +99,17 @@ public class Position {
         this.quantity = quantity;
     }
 
+    /**
+     * Calculates position total: product price times quantity
+     *
+     * Вычисляет итог позиции: цена товара, умноженная на количество
+     *
+     * @return position total / итог позиции
+     */
+    public Money getTotalPrice() {
+        return product.getPriceMoney().times(quantity);
+    }
+
     public Cart getCart() {
         return cart;
     }
@@ -91,6 +118,33 @@ public class Position {
         this.cart = cart;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    private void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    private void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // equals, hashCode, toString methods / методы equals, hashCode, toString
     @Override
     public boolean equals(Object o) {
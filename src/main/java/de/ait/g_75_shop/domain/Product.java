@@ -2,6 +2,7 @@ package de.ait.g_75_shop.domain;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.Hibernate;
 import org.hibernate.validator.constraints.Length;
 
 import java.math.BigDecimal;
@@ -49,15 +50,18 @@ public class Product {
      * - NotNull: price cannot be null
      * - DecimalMin: price must be >= 0.00
      * - DecimalMax: price must be < 1000.00 (exclusive)
+     * - Digits: at most 2 decimal places, so the price converts to Money exactly
      *
      * Валидация цены товара:
      * - NotNull: цена не может быть null
      * - DecimalMin: цена должна быть >= 0.00
      * - DecimalMax: цена должна быть < 1000.00 (исключительно)
+     * - Digits: не более 2 знаков после запятой, чтобы цена точно преобразовывалась в Money
      */
     @NotNull(message = "Product price cannot be null")
     @DecimalMin(value = "0.00", message = "Product price should be greater or equal than 0")
     @DecimalMax(value = "1000.00", inclusive = false, message = "Product price should be lesser than 1000")
+    @Digits(integer = 3, fraction = 2, message = "Product price should have at most 2 decimal places")
     @Column(name = "price", nullable = false)
     private BigDecimal price;
 
@@ -75,6 +79,14 @@ public class Product {
     @Column(name = "image_url")
     private String imageUrl;
 
+    /**
+     * Row version, incremented by Hibernate on every update (optimistic locking, ETag of product)
+     * Версия строки, увеличивается Hibernate при каждом обновлении (оптимистичная блокировка, ETag товара)
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Product() {
         this.active = true; // New products are active by default / Новые товары активны по умолчани
     }
@@ -92,6 +104,14 @@ public class Product {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -112,6 +132,19 @@ public class Product {
         this.price = price;
     }
 
+    /**
+     * Returns the price as Money
+     * Not memoized: cached products are shared between threads, and the conversion is cheap
+     *
+     * Возвращает цену как Money
+     * Без запоминания: кэшированные товары общие для потоков, а преобразование дешёвое
+     *
+     * @return price in cents / цена в центах
+     */
+    public Money getPriceMoney() {
+        return Money.of(price);
+    }
+
     public boolean isActive() {
         return active;
     }
@@ -131,12 +164,13 @@ public class Product {
             return false;
         }
 
-        return id != null && Objects.equals(id, product.id);
+        return id != null && Objects.equals(id, product.getId());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        // Same value for a lazy proxy and the loaded instance / Одинаковое значение для ленивого прокси и загруженного экземпляра
+        return Hibernate.getClass(this).hashCode();
     }
 
     @Override
@@ -0,0 +1,49 @@
+package de.ait.g_75_shop.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * DTO with one product and quantity to put into the cart
+ * Used by bulk cart operations
+ *
+ * DTO с одним товаром и количеством для добавления в корзину
+ * Используется в пакетных операциях с корзиной
+ */
+@Schema(description = "Product and quantity to add to the Cart")
+public class CartItemDto {
+
+    @Schema(description = "Product identifier", example = "7", required = true)
+    private Long productId;
+
+    @Schema(description = "Quantity of product (1 - 100)", example = "2", required = true)
+    private int quantity;
+
+    public CartItemDto() {
+    }
+
+    public CartItemDto(Long productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cart item DTO: product id - %d, quantity - %d", productId, quantity);
+    }
+}
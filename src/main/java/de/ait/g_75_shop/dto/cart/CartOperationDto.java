@@ -0,0 +1,76 @@
+package de.ait.g_75_shop.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * DTO with one cart operation of a batch cart change
+ * Operations of one batch are applied in order and atomically
+ *
+ * DTO с одной операцией пакетного изменения корзины
+ * Операции одного пакета применяются по порядку и атомарно
+ */
+@Schema(description = "One operation of a batch Cart change")
+public class CartOperationDto {
+
+    /**
+     * Operation type / Тип операции
+     */
+    public enum Type {
+        // Add quantity to the position / Добавить количество в позицию
+        ADD,
+        // Set quantity of the position, 0 removes it / Установить количество позиции, 0 удаляет её
+        SET,
+        // Remove the position / Удалить позицию
+        REMOVE,
+        // Remove all positions / Удалить все позиции
+        CLEAR
+    }
+
+    @Schema(description = "Operation: ADD, SET, REMOVE or CLEAR", example = "ADD", required = true)
+    private Type type;
+
+    @Schema(description = "Product identifier, not used by CLEAR", example = "7")
+    private Long productId;
+
+    @Schema(description = "Quantity: 1 - 100 for ADD, 0 - 100 for SET", example = "2")
+    private int quantity;
+
+    public CartOperationDto() {
+    }
+
+    public CartOperationDto(Type type, Long productId, int quantity) {
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cart operation DTO: type - %s, product id - %d, quantity - %d",
+                type, productId, quantity);
+    }
+}
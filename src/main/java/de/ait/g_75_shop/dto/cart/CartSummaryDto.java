@@ -0,0 +1,74 @@
+package de.ait.g_75_shop.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * Cart summary DTO: totals of the cart without its positions
+ *
+ * DTO сводки корзины: итоги корзины без её позиций
+ */
+@Schema(description = "Cart summary DTO for sending to Client")
+public class CartSummaryDto {
+
+    @Schema(description = "Number of positions in cart", example = "2")
+    private int positionsCount;
+
+    @Schema(description = "Total quantity of items in cart", example = "3")
+    private int totalQuantity;
+
+    @Schema(description = "Total price of all items in cart", example = "250.50")
+    private BigDecimal totalPrice;
+
+    @Schema(description = "Average price per item in cart", example = "83.50")
+    private BigDecimal averagePrice;
+
+    public CartSummaryDto() {
+    }
+
+    public CartSummaryDto(int positionsCount, int totalQuantity, BigDecimal totalPrice, BigDecimal averagePrice) {
+        this.positionsCount = positionsCount;
+        this.totalQuantity = totalQuantity;
+        this.totalPrice = totalPrice;
+        this.averagePrice = averagePrice;
+    }
+
+    public int getPositionsCount() {
+        return positionsCount;
+    }
+
+    public void setPositionsCount(int positionsCount) {
+        this.positionsCount = positionsCount;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public void setTotalQuantity(int totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public BigDecimal getAveragePrice() {
+        return averagePrice;
+    }
+
+    public void setAveragePrice(BigDecimal averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cart summary DTO: positions - %d, total qty - %d, total price - %.2f, avg price - %.2f",
+                positionsCount, totalQuantity, totalPrice, averagePrice);
+    }
+}
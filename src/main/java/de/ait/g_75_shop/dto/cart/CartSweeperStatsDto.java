@@ -0,0 +1,88 @@
+package de.ait.g_75_shop.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Abandoned cart sweeper statistics DTO for sending to admin
+ * Used to choose idle period, batch size and interval of the sweeper
+ *
+ * DTO статистики сборщика заброшенных корзин для отправки администратору
+ * Используется для подбора периода бездействия, размера пакета и интервала сборщика
+ */
+@Schema(description = "Abandoned cart sweeper statistics")
+public class CartSweeperStatsDto {
+
+    @Schema(description = "Sweeper runs since startup", example = "24")
+    private long runs;
+
+    @Schema(description = "Positions removed since startup", example = "1500")
+    private long removedPositions;
+
+    @Schema(description = "Carts cleared since startup", example = "300")
+    private long clearedCarts;
+
+    @Schema(description = "Time spent in all runs, ms", example = "4200")
+    private long totalSweepMillis;
+
+    @Schema(description = "Time spent in the last run, ms", example = "150")
+    private long lastSweepMillis;
+
+    public CartSweeperStatsDto() {
+    }
+
+    public CartSweeperStatsDto(long runs, long removedPositions, long clearedCarts,
+                               long totalSweepMillis, long lastSweepMillis) {
+        this.runs = runs;
+        this.removedPositions = removedPositions;
+        this.clearedCarts = clearedCarts;
+        this.totalSweepMillis = totalSweepMillis;
+        this.lastSweepMillis = lastSweepMillis;
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public void setRuns(long runs) {
+        this.runs = runs;
+    }
+
+    public long getRemovedPositions() {
+        return removedPositions;
+    }
+
+    public void setRemovedPositions(long removedPositions) {
+        this.removedPositions = removedPositions;
+    }
+
+    public long getClearedCarts() {
+        return clearedCarts;
+    }
+
+    public void setClearedCarts(long clearedCarts) {
+        this.clearedCarts = clearedCarts;
+    }
+
+    public long getTotalSweepMillis() {
+        return totalSweepMillis;
+    }
+
+    public void setTotalSweepMillis(long totalSweepMillis) {
+        this.totalSweepMillis = totalSweepMillis;
+    }
+
+    public long getLastSweepMillis() {
+        return lastSweepMillis;
+    }
+
+    public void setLastSweepMillis(long lastSweepMillis) {
+        this.lastSweepMillis = lastSweepMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cart sweeper stats: runs - %d, removed positions - %d, cleared carts - %d, " +
+                        "total %d ms, last %d ms",
+                runs, removedPositions, clearedCarts, totalSweepMillis, lastSweepMillis);
+    }
+}
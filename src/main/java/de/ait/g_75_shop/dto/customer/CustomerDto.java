@@ -28,6 +28,16 @@ public class CustomerDto {
     public CustomerDto() {
     }
 
+    /**
+     * Used by JPQL constructor expressions, cart is filled separately
+     * Используется в конструкторных выражениях JPQL, корзина заполняется отдельно
+     */
+    public CustomerDto(Long id, String name, String imageUrl) {
+        this.id = id;
+        this.name = name;
+        this.imageUrl = imageUrl;
+    }
+
     public String getImageUrl() {
         return imageUrl;
     }
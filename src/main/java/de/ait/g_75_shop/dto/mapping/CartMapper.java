@@ -1,17 +1,21 @@
 package de.ait.g_75_shop.dto.mapping;
 
 import de.ait.g_75_shop.domain.Cart;
+import de.ait.g_75_shop.domain.CartTotals;
 import de.ait.g_75_shop.dto.cart.CartDto;
+import de.ait.g_75_shop.dto.cart.CartSummaryDto;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 
 /**
  * MapStruct mapper for Cart entity to CartDto conversion
- * Calculates total price, average price, and total quantity on the fly
+ * Totals come from CartTotals built from the stored cart totals, so positions are walked only once
+ * (by PositionMapper, which calculates the line totals)
  *
  * MapStruct маппер для преобразования сущности Cart в CartDto
- * Вычисляет общую стоимость, среднюю цену и общее количество на лету
+ * Итоги берутся из CartTotals, построенной по хранимым итогам корзины, поэтому позиции перебираются
+ * только один раз (PositionMapper, который вычисляет итоги позиций)
  */
 @Mapper(componentModel = "spring", uses = {PositionMapper.class})
 public interface CartMapper {
@@ -24,8 +28,20 @@ public interface CartMapper {
      * @param entity Cart entity to map / сущность корзины для преобразования
      * @return CartDto with calculated values / CartDto с вычисленными значениями
      */
-    @Mapping(target = "totalPrice", expression = "java(entity.getTotalPrice())")
-    @Mapping(target = "averagePrice", expression = "java(entity.getAveragePrice())")
-    @Mapping(target = "totalQuantity", expression = "java(entity.getPositions().stream().mapToInt(p -> p.getQuantity()).sum())")
+    @Mapping(target = "totalPrice", expression = "java(entity.getTotals().getTotalPrice().toBigDecimal())")
+    @Mapping(target = "averagePrice", expression = "java(entity.getTotals().getAveragePrice().toBigDecimal())")
+    @Mapping(target = "totalQuantity", expression = "java(entity.getTotals().getTotalQuantity())")
     CartDto mapEntityToDto(Cart entity);
+
+    /**
+     * Maps cart summary to CartSummaryDto
+     *
+     * Преобразует сводку корзины в CartSummaryDto
+     *
+     * @param totals cart summary / сводка корзины
+     * @return CartSummaryDto / CartSummaryDto
+     */
+    @Mapping(target = "totalPrice", expression = "java(totals.getTotalPrice().toBigDecimal())")
+    @Mapping(target = "averagePrice", expression = "java(totals.getAveragePrice().toBigDecimal())")
+    CartSummaryDto mapTotalsToSummaryDto(CartTotals totals);
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package de.ait.g_75_shop.dto.mapping;
+
+import de.ait.g_75_shop.domain.CartTotals;
+import de.ait.g_75_shop.domain.Money;
+import de.ait.g_75_shop.dto.cart.CartDto;
+import de.ait.g_75_shop.dto.position.PositionDto;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.repository.projection.CartPositionView;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds CartDto from flat cart position rows (read path without entities)
+ * Cart totals are the stored ones from the rows, like in CartMapper; position totals as in PositionMapper
+ *
+ * Собирает CartDto из плоских строк позиций корзины (чтение без сущностей)
+ * Итоги корзины - хранимые из строк, как в CartMapper; итоги позиций - как в PositionMapper
+ */
+@Component
+public class CartViewAssembler {
+
+    /**
+     * Groups rows by customer and builds one cart per customer
+     * Группирует строки по покупателю и собирает по одной корзине на покупателя
+     *
+     * @param rows cart position rows / строки позиций корзин
+     * @return carts by customer ID / корзины по ID покупателя
+     */
+    public Map<Long, CartDto> assembleByCustomer(List<CartPositionView> rows) {
+        Map<Long, CartDto> carts = new HashMap<>();
+
+        for (CartPositionView row : rows) {
+            CartDto cart = carts.computeIfAbsent(row.getCustomerId(), customerId -> {
+                CartDto dto = new CartDto();
+                dto.setId(row.getCartId());
+                int quantity = row.getCartTotalQuantity() == null ? 0 : row.getCartTotalQuantity();
+                CartTotals totals = CartTotals.of(0, quantity, row.getCartTotalPrice());
+                dto.setPositions(new LinkedHashSet<>());
+                dto.setTotalPrice(totals.getTotalPrice().toBigDecimal());
+                dto.setTotalQuantity(totals.getTotalQuantity());
+                dto.setAveragePrice(totals.getAveragePrice().toBigDecimal());
+                return dto;
+            });
+
+            // Row of an empty cart / Строка пустой корзины
+            if (row.getProductId() == null) {
+                continue;
+            }
+
+            PositionDto position = new PositionDto();
+            position.setId(row.getPositionId());
+            position.setProduct(new ProductDto(row.getProductId(), row.getProductTitle(),
+                    row.getProductPrice(), row.getProductImageUrl()));
+            position.setQuantity(row.getQuantity());
+            position.setTotalPrice(Money.of(row.getProductPrice()).times(row.getQuantity()).toBigDecimal());
+
+            cart.getPositions().add(position);
+        }
+        return carts;
+    }
+}
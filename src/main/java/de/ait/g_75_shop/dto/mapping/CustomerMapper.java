@@ -30,10 +30,10 @@ public interface CustomerMapper {
 
     /**
      * Maps CustomerSaveDto to new Customer entity
-     * Ignores system fields (id, active, cart)
+     * Ignores system fields (id, active, cart) and the image, which is uploaded separately
      *
      * Преобразует CustomerSaveDto в новую сущность Customer
-     * Игнорирует системные поля (id, active, cart)
+     * Игнорирует системные поля (id, active, cart) и изображение, которое загружается отдельно
      *
      * @param saveDto DTO with customer data / DTO с данными покупателя
      * @return new Customer entity / новая сущность покупателя
@@ -41,6 +41,7 @@ public interface CustomerMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "active", ignore = true)
     @Mapping(target = "cart", ignore = true)
+    @Mapping(target = "imageUrl", ignore = true)
     Customer mapDtoToEntity(CustomerSaveDto saveDto);
 
     /**
@@ -54,5 +55,6 @@ public interface CustomerMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "active", ignore = true)
     @Mapping(target = "cart", ignore = true)
+    @Mapping(target = "imageUrl", ignore = true)
     void updateEntity(@MappingTarget Customer entity, CustomerUpdateDto updateDto);
 }
\ No newline at end of file
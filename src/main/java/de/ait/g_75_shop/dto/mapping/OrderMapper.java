@@ -0,0 +1,43 @@
+package de.ait.g_75_shop.dto.mapping;
+
+import de.ait.g_75_shop.domain.Order;
+import de.ait.g_75_shop.domain.OrderLine;
+import de.ait.g_75_shop.dto.order.OrderDto;
+import de.ait.g_75_shop.dto.order.OrderLineDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * MapStruct mapper for Order entity to OrderDto conversion
+ * Prices are the ones stored at checkout
+ *
+ * MapStruct маппер для преобразования сущности Order в OrderDto
+ * Цены - сохранённые при оформлении
+ */
+@Mapper(componentModel = "spring", uses = ProductMapper.class)
+public interface OrderMapper {
+
+    /**
+     * Maps Order entity to OrderDto with its lines
+     *
+     * Преобразует сущность Order в OrderDto со строками
+     *
+     * @param entity Order entity to map / сущность заказа для преобразования
+     * @return OrderDto / DTO заказа
+     */
+    @Mapping(target = "customerId", source = "customer.id")
+    @Mapping(target = "totalPrice", expression = "java(entity.getTotalPrice().toBigDecimal())")
+    OrderDto mapEntityToDto(Order entity);
+
+    /**
+     * Maps OrderLine entity to OrderLineDto with calculated total price
+     *
+     * Преобразует сущность OrderLine в OrderLineDto с вычисленной общей стоимостью
+     *
+     * @param entity OrderLine entity to map / сущность строки заказа для преобразования
+     * @return OrderLineDto / DTO строки заказа
+     */
+    @Mapping(target = "price", expression = "java(entity.getPrice().toBigDecimal())")
+    @Mapping(target = "totalPrice", expression = "java(entity.getTotalPrice().toBigDecimal())")
+    OrderLineDto mapLineToDto(OrderLine entity);
+}
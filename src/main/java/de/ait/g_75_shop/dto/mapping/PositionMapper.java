@@ -22,6 +22,6 @@ public interface PositionMapper {
      * @param entity Position entity to map / сущность позиции для преобразования
      * @return PositionDto with calculated total price / PositionDto с вычисленной общей стоимостью
      */
-    @Mapping(target = "totalPrice", expression = "java(entity.getProduct().getPrice().multiply(java.math.BigDecimal.valueOf(entity.getQuantity())))")
+    @Mapping(target = "totalPrice", expression = "java(entity.getTotalPrice().toBigDecimal())")
     PositionDto mapEntityToDto(Position entity);
 }
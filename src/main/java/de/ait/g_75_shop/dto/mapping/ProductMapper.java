@@ -27,16 +27,18 @@ public interface ProductMapper {
     ProductDto mapEntityToDto(Product entity);
     /**
      * Maps ProductSaveDto to new Product entity
-     * Ignores system fields (id, active)
+     * Ignores system fields (id, active, version) and the image, which is uploaded separately
      *
      * Преобразует ProductSaveDto в новую сущность Product
-     * Игнорирует системные поля (id, active)
+     * Игнорирует системные поля (id, active, version) и изображение, которое загружается отдельно
      *
      * @param dto DTO with product data / DTO с данными товара
      * @return new Product entity / новая сущность товара
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "active", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "imageUrl", ignore = true)
     Product mapDtoToEntity(ProductSaveDto dto);
 //     public ProductDto mapEntityToDo(Product entity){
 //        if(entity == null) {
@@ -0,0 +1,91 @@
+package de.ait.g_75_shop.dto.order;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order DTO for sending order data to client
+ *
+ * DTO заказа для отправки данных заказа клиенту
+ */
+@Schema(description = "Order DTO for sending to Client")
+public class OrderDto {
+
+    @Schema(description = "Order unique identifier", example = "1")
+    private Long id;
+
+    @Schema(description = "Identifier of the customer who placed the order", example = "3")
+    private Long customerId;
+
+    @Schema(description = "Time of checkout", example = "2026-01-31T12:30:00")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Order lines")
+    private List<OrderLineDto> lines;
+
+    @Schema(description = "Total price of the order", example = "250.50")
+    private BigDecimal totalPrice;
+
+    @Schema(description = "Total quantity of items in the order", example = "3")
+    private int totalQuantity;
+
+    public OrderDto() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public List<OrderLineDto> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<OrderLineDto> lines) {
+        this.lines = lines;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public void setTotalQuantity(int totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Order DTO: id - %d, customer id - %d, lines - %d, total price - %s",
+                id, customerId, lines != null ? lines.size() : 0, totalPrice);
+    }
+}
@@ -0,0 +1,81 @@
+package de.ait.g_75_shop.dto.order;
+
+import de.ait.g_75_shop.dto.product.ProductDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * Order line DTO for sending to client
+ * Price is the product price at checkout
+ *
+ * DTO строки заказа для отправки клиенту
+ * Цена - цена товара на момент оформления
+ */
+@Schema(description = "Order line DTO for sending to Client")
+public class OrderLineDto {
+
+    @Schema(description = "Order line unique identifier", example = "1")
+    private Long id;
+
+    @Schema(description = "Ordered product")
+    private ProductDto product;
+
+    @Schema(description = "Product price at checkout", example = "120.00")
+    private BigDecimal price;
+
+    @Schema(description = "Quantity of product", example = "2")
+    private int quantity;
+
+    @Schema(description = "Total price of this line", example = "240.00")
+    private BigDecimal totalPrice;
+
+    public OrderLineDto() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDto product) {
+        this.product = product;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Order line DTO: id - %d, product - %s, price - %s, quantity - %d",
+                id, product, price, quantity);
+    }
+}
@@ -0,0 +1,104 @@
+package de.ait.g_75_shop.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Product cache statistics DTO for sending to admin
+ * Used to choose cache size and TTL
+ *
+ * DTO статистики кэша товаров для отправки администратору
+ * Используется для подбора размера кэша и TTL
+ */
+@Schema(description = "Product cache statistics")
+public class ProductCacheStatsDto {
+
+    @Schema(description = "Current number of cached products", example = "120")
+    private int size;
+
+    @Schema(description = "Maximum number of cached products", example = "10000")
+    private int maxSize;
+
+    @Schema(description = "Lookups served from cache", example = "9500")
+    private long hits;
+
+    @Schema(description = "Lookups that went to the database", example = "500")
+    private long misses;
+
+    @Schema(description = "Entries removed because cache was full or TTL expired", example = "10")
+    private long evictions;
+
+    @Schema(description = "Entries removed because product was changed", example = "3")
+    private long invalidations;
+
+    public ProductCacheStatsDto() {
+    }
+
+    public ProductCacheStatsDto(int size, int maxSize, long hits, long misses, long evictions, long invalidations) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    @Schema(description = "Share of lookups served from cache", example = "0.95")
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Product cache stats: size - %d/%d, hits - %d, misses - %d, evictions - %d, invalidations - %d",
+                size, maxSize, hits, misses, evictions, invalidations);
+    }
+}
@@ -24,6 +24,17 @@ public class ProductDto {
     public ProductDto() {
     }
 
+    /**
+     * Used by JPQL constructor expressions (read queries without entities)
+     * Используется в конструкторных выражениях JPQL (запросы чтения без сущностей)
+     */
+    public ProductDto(Long id, String title, BigDecimal price, String imageUrl) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.imageUrl = imageUrl;
+    }
+
     public String getImageUrl() {
         return imageUrl;
     }
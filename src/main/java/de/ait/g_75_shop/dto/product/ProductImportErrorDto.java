@@ -0,0 +1,60 @@
+package de.ait.g_75_shop.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * One rejected row of a bulk product import
+ *
+ * Одна отклонённая строка пакетного импорта товаров
+ */
+@Schema(description = "Rejected row of a bulk Product import")
+public class ProductImportErrorDto {
+
+    @Schema(description = "Row number: CSV line (header is line 1) or JSON array element (starting from 1)", example = "12")
+    private long row;
+
+    @Schema(description = "Product title from the row", example = "banana")
+    private String title;
+
+    @Schema(description = "Reason why the row was rejected",
+            example = "Product title should be at least three characters length and starts with capital letter")
+    private String message;
+
+    public ProductImportErrorDto() {
+    }
+
+    public ProductImportErrorDto(long row, String title, String message) {
+        this.row = row;
+        this.title = title;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Product import error: row - %d, title - %s, message - %s", row, title, message);
+    }
+}
@@ -0,0 +1,84 @@
+package de.ait.g_75_shop.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk product import: row counters, throughput and rejected rows
+ *
+ * Результат пакетного импорта товаров: счётчики строк, пропускная способность и отклонённые строки
+ */
+@Schema(description = "Bulk Product import report")
+public class ProductImportReportDto {
+
+    @Schema(description = "Number of rows read from the body", example = "20000")
+    private long totalRows;
+
+    @Schema(description = "Number of inserted products", example = "19990")
+    private long importedRows;
+
+    @Schema(description = "Number of rejected rows", example = "10")
+    private long failedRows;
+
+    @Schema(description = "Import duration in milliseconds", example = "1850")
+    private long durationMillis;
+
+    @Schema(description = "Rejected rows with reasons")
+    private List<ProductImportErrorDto> errors = new ArrayList<>();
+
+    public ProductImportReportDto() {
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public long getFailedRows() {
+        return failedRows;
+    }
+
+    public void setFailedRows(long failedRows) {
+        this.failedRows = failedRows;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<ProductImportErrorDto> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ProductImportErrorDto> errors) {
+        this.errors = errors;
+    }
+
+    @Schema(description = "Processed rows per second", example = "10810.8")
+    public double getRowsPerSecond() {
+        return durationMillis == 0 ? totalRows : totalRows * 1000.0 / durationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Product import report: total - %d, imported - %d, failed - %d, duration - %d ms",
+                totalRows, importedRows, failedRows, durationMillis);
+    }
+}
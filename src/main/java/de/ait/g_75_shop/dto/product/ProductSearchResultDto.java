@@ -0,0 +1,74 @@
+package de.ait.g_75_shop.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * One page of product search results ranked by relevance
+ *
+ * Одна страница результатов поиска товаров, отсортированных по релевантности
+ */
+@Schema(description = "Page of Product search results")
+public class ProductSearchResultDto {
+
+    @Schema(description = "Total number of matching products", example = "42")
+    private long total;
+
+    @Schema(description = "Page number (starting from 0)", example = "0")
+    private int page;
+
+    @Schema(description = "Page size", example = "20")
+    private int size;
+
+    @Schema(description = "Products of this page, best matches first")
+    private List<ProductDto> products;
+
+    public ProductSearchResultDto() {
+    }
+
+    public ProductSearchResultDto(long total, int page, int size, List<ProductDto> products) {
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.products = products;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public List<ProductDto> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductDto> products) {
+        this.products = products;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Product search result DTO: total - %d, page - %d, size - %d",
+                total, page, size);
+    }
+}
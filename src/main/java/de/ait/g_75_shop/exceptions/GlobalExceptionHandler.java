@@ -5,6 +5,7 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -82,6 +83,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles ConcurrencyFailureException (concurrent change still conflicting after all retries)
+     * Returns 409 CONFLICT, the client may repeat the request
+     *
+     * Обработка исключения ConcurrencyFailureException (параллельное изменение конфликтует после всех повторов)
+     * Возвращает 409 CONFLICT, клиент может повторить запрос
+     *
+     * @param e the exception / исключение
+     * @return response with 409 status and message / ответ со статусом 409 и сообщением
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<String> handleConcurrencyFailure(ConcurrencyFailureException e) {
+        logger.warn("Concurrent modification conflict: {}", e.getMessage());
+        return new ResponseEntity<>(
+                "Resource was modified concurrently, please repeat the request",
+                HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles ConstraintViolationException (validation errors at method parameter level)
      * Returns 400 BAD REQUEST with list of error messages
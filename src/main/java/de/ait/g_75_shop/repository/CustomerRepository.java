@@ -1,10 +1,18 @@
 package de.ait.g_75_shop.repository;
 
 import de.ait.g_75_shop.domain.Customer;
+import de.ait.g_75_shop.dto.customer.CustomerDto;
+import de.ait.g_75_shop.repository.projection.CartPositionView;
+import de.ait.g_75_shop.repository.projection.CartTotalsView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,13 +33,132 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
      */
     List<Customer> findAllByActiveTrue();
 
+    /**
+     * Finds all active customers as DTOs (without cart), no entities are loaded
+     * Находит всех активных покупателей в виде DTO (без корзины), сущности не загружаются
+     *
+     * @return customer DTOs ordered by ID / DTO покупателей, упорядоченные по ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.customer.CustomerDto(c.id, c.name, c.imageUrl) " +
+            "FROM Customer c WHERE c.active = true ORDER BY c.id")
+    List<CustomerDto> findAllActiveDtos();
+
+    /**
+     * Finds next page of active customers as DTOs (without cart), keyset pagination
+     * Находит следующую страницу активных покупателей в виде DTO (без корзины), keyset-пагинация
+     *
+     * @param afterId last ID of previous page / последний ID предыдущей страницы
+     * @param limit   page size / размер страницы
+     * @return customer DTOs ordered by ID / DTO покупателей, упорядоченные по ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.customer.CustomerDto(c.id, c.name, c.imageUrl) " +
+            "FROM Customer c WHERE c.active = true AND c.id > :afterId ORDER BY c.id")
+    List<CustomerDto> findActiveDtosAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Finds a keyset page of active customers whose lower-cased name matches the LIKE pattern, as DTOs
+     * Served by the trigram index on lower(name) in PostgreSQL; '!' escapes wildcards in the pattern
+     *
+     * Находит keyset-страницу активных покупателей, имя которых в нижнем регистре соответствует шаблону LIKE, в виде DTO
+     * Обслуживается триграммным индексом по lower(name) в PostgreSQL; '!' экранирует подстановочные символы шаблона
+     *
+     * @param pattern lower-case LIKE pattern / шаблон LIKE в нижнем регистре
+     * @param afterId last customer ID of previous page / последний ID покупателя предыдущей страницы
+     * @param limit   page size / размер страницы
+     * @return customer DTOs ordered by ID / DTO покупателей, упорядоченные по ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.customer.CustomerDto(c.id, c.name, c.imageUrl) " +
+            "FROM Customer c WHERE c.active = true AND LOWER(c.name) LIKE :pattern ESCAPE '!' " +
+            "AND c.id > :afterId ORDER BY c.id")
+    List<CustomerDto> searchActiveDtosAfter(@Param("pattern") String pattern, @Param("afterId") Long afterId,
+                                            Limit limit);
+
+    /**
+     * Finds active customer by ID as DTO (without cart)
+     * Находит активного покупателя по ID в виде DTO (без корзины)
+     *
+     * @param id customer identifier / идентификатор покупателя
+     * @return Optional containing customer DTO / Optional с DTO покупателя
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.customer.CustomerDto(c.id, c.name, c.imageUrl) " +
+            "FROM Customer c WHERE c.id = :id AND c.active = true")
+    Optional<CustomerDto> findActiveDtoById(@Param("id") Long id);
+
+    /**
+     * Finds cart positions of given customers as flat rows with product data
+     * One row per position, one row with empty position for an empty cart
+     *
+     * Находит позиции корзин указанных покупателей в виде плоских строк с данными товара
+     * Одна строка на позицию, одна строка с пустой позицией для пустой корзины
+     *
+     * @param customerIds customer identifiers / идентификаторы покупателей
+     * @return cart position rows / строки позиций корзин
+     */
+    @Query("SELECT new de.ait.g_75_shop.repository.projection.CartPositionView(" +
+            "cart.customer.id, cart.id, cart.totalPrice, cart.totalQuantity, " +
+            "pos.id, pr.id, pr.title, pr.price, pr.imageUrl, pr.active, pos.quantity) " +
+            "FROM Cart cart LEFT JOIN cart.positions pos LEFT JOIN pos.product pr " +
+            "WHERE cart.customer.id IN :customerIds ORDER BY pos.id")
+    List<CartPositionView> findCartPositionViews(@Param("customerIds") Collection<Long> customerIds);
+
+    /**
+     * Finds cart positions of all active customers as flat rows with product data
+     * Находит позиции корзин всех активных покупателей в виде плоских строк с данными товара
+     *
+     * @return cart position rows / строки позиций корзин
+     */
+    @Query("SELECT new de.ait.g_75_shop.repository.projection.CartPositionView(" +
+            "cart.customer.id, cart.id, cart.totalPrice, cart.totalQuantity, " +
+            "pos.id, pr.id, pr.title, pr.price, pr.imageUrl, pr.active, pos.quantity) " +
+            "FROM Cart cart LEFT JOIN cart.positions pos LEFT JOIN pos.product pr " +
+            "WHERE cart.customer.active = true ORDER BY pos.id")
+    List<CartPositionView> findAllActiveCartPositionViews();
+
+    /**
+     * Reads stored totals of active customer's cart from the cart row, no entities are loaded
+     * Only the positions count is counted by a subquery over the (cart_id, product_id) index.
+     * Returns one row for an active customer (totals are null if the cart is missing), none otherwise
+     *
+     * Читает хранимые итоги корзины активного покупателя из строки корзины, сущности не загружаются
+     * Подзапросом по индексу (cart_id, product_id) считается только количество позиций.
+     * Возвращает одну строку для активного покупателя (итоги равны null при отсутствии корзины), иначе ничего
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return Optional containing cart totals / Optional с итогами корзины
+     */
+    @Query("SELECT (SELECT COUNT(pos.id) FROM Position pos WHERE pos.cart = cart) AS positionsCount, " +
+            "CAST(cart.totalQuantity AS Long) AS totalQuantity, cart.totalPrice AS totalPrice " +
+            "FROM Customer c LEFT JOIN c.cart cart " +
+            "WHERE c.id = :customerId AND c.active = true")
+    Optional<CartTotalsView> findActiveCartTotals(@Param("customerId") Long customerId);
+
+    /**
+     * Reads stored total price of active customer's cart, one column of one row
+     * Native query: a JPQL select of the converted Money attribute would be read as a DTO projection.
+     * Empty if the customer is not active or has no cart yet
+     *
+     * Читает хранимую общую стоимость корзины активного покупателя, один столбец одной строки
+     * Нативный запрос: JPQL-выборка преобразуемого атрибута Money читалась бы как DTO-проекция.
+     * Пусто, если покупатель не активен или у него ещё нет корзины
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return Optional containing total price / Optional с общей стоимостью
+     */
+    @Query(value = "SELECT cart.total_price FROM cart JOIN customer c ON c.id = cart.customer_id " +
+            "WHERE c.id = :customerId AND c.active = true", nativeQuery = true)
+    Optional<BigDecimal> findActiveCartTotalPrice(@Param("customerId") Long customerId);
+
     /**
      * Finds active customer by ID
+     * The cart row is joined (Customer.cart graph), its positions are not loaded
+     *
      * Находит активного покупателя по ID
+     * Строка корзины присоединяется (граф Customer.cart), её позиции не загружаются
      *
      * @param id customer identifier / идентификатор покупателя
      * @return Optional containing customer if found and active / Optional с покупателем, если найден и активен
      */
+    @EntityGraph(Customer.GRAPH_CART)
     Optional<Customer> findByIdAndActiveTrue(Long id);
 
     /**
@@ -52,15 +179,50 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     boolean existsByIdAndActiveTrue(Long id);
 
     /**
-     * Finds active customer with cart and positions eagerly loaded
-     * Uses LEFT JOIN FETCH to load cart and positions in one query
+     * Finds active customer with cart, positions and their products loaded
+     * Uses the Customer.cartPositions graph to load them in one query, for cart changes in JPA
      *
-     * Находит активного покупателя с корзиной и позициями (жадная загрузка)
-     * Использует LEFT JOIN FETCH для загрузки корзины и позиций одним запросом
+     * Находит активного покупателя с загруженными корзиной, позициями и их товарами
+     * Использует граф Customer.cartPositions для загрузки одним запросом, для изменений корзины через JPA
      *
      * @param id customer identifier / идентификатор покупателя
      * @return Optional containing customer with loaded cart and positions / Optional с покупателем и загруженными корзиной и позициями
      */
-    @Query("SELECT c FROM Customer c LEFT JOIN FETCH c.cart cart LEFT JOIN FETCH cart.positions WHERE c.id = :id AND c.active = true")
+    @EntityGraph(Customer.GRAPH_CART_POSITIONS)
+    @Query("SELECT c FROM Customer c WHERE c.id = :id AND c.active = true")
     Optional<Customer> findActiveCustomerWithCart(@Param("id") Long id);
-}
\ No newline at end of file
+
+    /**
+     * Changes the name of an active customer with one UPDATE, nothing is loaded
+     * Изменяет имя активного покупателя одним UPDATE, ничего не загружается
+     *
+     * @param id   customer identifier / идентификатор покупателя
+     * @param name new name / новое имя
+     * @return number of changed rows, 0 if active customer not found / количество изменённых строк, 0 если активный покупатель не найден
+     */
+    @Modifying
+    @Query("UPDATE Customer c SET c.name = :name WHERE c.id = :id AND c.active = true")
+    int updateActiveName(@Param("id") Long id, @Param("name") String name);
+
+    /**
+     * Deactivates active customers with one UPDATE (soft delete)
+     * Деактивирует активных покупателей одним UPDATE (мягкое удаление)
+     *
+     * @param ids customer identifiers / идентификаторы покупателей
+     * @return number of deactivated customers / количество деактивированных покупателей
+     */
+    @Modifying
+    @Query("UPDATE Customer c SET c.active = false WHERE c.id IN :ids AND c.active = true")
+    int deactivate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Activates customer with one UPDATE, an already active customer counts as changed
+     * Активирует покупателя одним UPDATE, уже активный покупатель считается изменённым
+     *
+     * @param id customer identifier / идентификатор покупателя
+     * @return number of changed rows, 0 if customer not found / количество изменённых строк, 0 если покупатель не найден
+     */
+    @Modifying
+    @Query("UPDATE Customer c SET c.active = true WHERE c.id = :id")
+    int activate(@Param("id") Long id);
+}
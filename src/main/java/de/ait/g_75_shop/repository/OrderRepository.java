@@ -0,0 +1,28 @@
+package de.ait.g_75_shop.repository;
+
+import de.ait.g_75_shop.domain.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for Order entity operations
+ * Orders are created by set-based SQL at checkout, the repository reads them
+ *
+ * Интерфейс репозитория для операций с сущностью Order
+ * Заказы создаются групповым SQL при оформлении, репозиторий их читает
+ */
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    /**
+     * Finds order with its lines and their products in one query
+     * Находит заказ со строками и их товарами одним запросом
+     *
+     * @param id order identifier / идентификатор заказа
+     * @return Optional containing order / Optional с заказом
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.lines l LEFT JOIN FETCH l.product WHERE o.id = :id")
+    Optional<Order> findWithLinesById(@Param("id") Long id);
+}
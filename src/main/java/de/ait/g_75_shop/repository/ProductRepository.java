@@ -1,10 +1,25 @@
 package de.ait.g_75_shop.repository;
 
 import de.ait.g_75_shop.domain.Product;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.repository.projection.ProductStateView;
+import de.ait.g_75_shop.repository.projection.ProductTotalsView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Repository interface for Product entity operations
  *
@@ -35,6 +50,62 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return list of active products / список активных товаров
      */
     List<Product> findAllByActiveTrue();
+
+    /**
+     * Finds all active products as DTOs, no entities are loaded
+     * Находит все активные товары в виде DTO, сущности не загружаются
+     *
+     * @return product DTOs ordered by ID / DTO товаров, упорядоченные по ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.product.ProductDto(p.id, p.title, p.price, p.imageUrl) " +
+            "FROM Product p WHERE p.active = true ORDER BY p.id")
+    List<ProductDto> findAllActiveDtos();
+
+    /**
+     * Finds next page of active products as DTOs after given ID (keyset pagination)
+     * Uses primary key index, so cost does not depend on page number
+     *
+     * Находит следующую страницу активных товаров в виде DTO после указанного ID (keyset-пагинация)
+     * Использует индекс первичного ключа, поэтому стоимость не зависит от номера страницы
+     *
+     * @param afterId last ID of previous page / последний ID предыдущей страницы
+     * @param limit   page size / размер страницы
+     * @return product DTOs ordered by ID / DTO товаров, упорядоченные по ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.product.ProductDto(p.id, p.title, p.price, p.imageUrl) " +
+            "FROM Product p WHERE p.active = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductDto> findActiveDtosAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Finds next page of active product states with their row versions after given ID (keyset pagination)
+     * Used to build the in-memory product indexes
+     *
+     * Находит следующую страницу состояний активных товаров с версиями строк после указанного ID (keyset-пагинация)
+     * Используется для построения индексов товаров в памяти
+     *
+     * @param afterId last ID of previous page / последний ID предыдущей страницы
+     * @param limit   page size / размер страницы
+     * @return product states ordered by ID / состояния товаров, упорядоченные по ID
+     */
+    @Query("SELECT p.id AS id, p.title AS title, p.price AS price, p.active AS active, p.version AS version " +
+            "FROM Product p WHERE p.active = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductStateView> findActiveStatesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Streams all active products as DTOs ordered by ID
+     * Rows are fetched from JDBC in chunks, must be consumed inside a transaction.
+     * DTOs are not managed by the persistence context, so memory does not grow with table size.
+     *
+     * Потоково читает все активные товары в виде DTO, упорядоченные по ID
+     * Строки читаются из JDBC порциями, поток нужно обрабатывать внутри транзакции.
+     * DTO не управляются контекстом персистентности, поэтому память не растёт с размером таблицы.
+     *
+     * @return stream of active product DTOs / поток DTO активных товаров
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new de.ait.g_75_shop.dto.product.ProductDto(p.id, p.title, p.price, p.imageUrl) " +
+            "FROM Product p WHERE p.active = true ORDER BY p.id")
+    Stream<ProductDto> streamAllActiveDtos();
     /**
      * Finds active product by ID
      * Находит активный товар по ID
@@ -43,6 +114,76 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return Optional containing product if found and active / Optional с товаром, если найден и активен
      */
     Optional<Product> findByIdAndActiveTrue(Long id);
+
+    /**
+     * Finds active products by IDs with a single IN query
+     * Находит активные товары по списку ID одним запросом IN
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return active products among given IDs / активные товары среди указанных ID
+     */
+    List<Product> findAllByIdInAndActiveTrue(Collection<Long> ids);
+
+    /**
+     * Returns titles among given ones that already exist (active or not)
+     * Used by bulk import to check title uniqueness with one query per batch
+     *
+     * Возвращает названия из указанных, которые уже существуют (активные или нет)
+     * Используется пакетным импортом для проверки уникальности одним запросом на пакет
+     *
+     * @param titles product titles / названия товаров
+     * @return existing titles / существующие названия
+     */
+    @Query("SELECT p.title FROM Product p WHERE p.title IN :titles")
+    List<String> findExistingTitles(Collection<String> titles);
+
+    /**
+     * Finds products by titles (titles are unique)
+     * Находит товары по названиям (названия уникальны)
+     *
+     * @param titles product titles / названия товаров
+     * @return found products / найденные товары
+     */
+    List<Product> findAllByTitleIn(Collection<String> titles);
+
+    /**
+     * Finds active products with price in range (inclusive), cheapest first
+     * Uses index idx_product_active_price (active, price, id)
+     *
+     * Находит активные товары с ценой в диапазоне (включительно), от дешёвых к дорогим
+     * Использует индекс idx_product_active_price (active, price, id)
+     *
+     * @param min minimum price / минимальная цена
+     * @param max maximum price / максимальная цена
+     * @param limit maximum number of products / максимальное количество товаров
+     * @return products sorted by price and ID / товары, отсортированные по цене и ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.product.ProductDto(p.id, p.title, p.price, p.imageUrl) " +
+            "FROM Product p WHERE p.active = true AND p.price BETWEEN :min AND :max ORDER BY p.price, p.id")
+    List<ProductDto> findActiveDtosByPriceRange(@Param("min") BigDecimal min, @Param("max") BigDecimal max, Limit limit);
+
+    /**
+     * Finds the cheapest active products
+     * Находит самые дешёвые активные товары
+     *
+     * @param limit maximum number of products / максимальное количество товаров
+     * @return products sorted by price and ID / товары, отсортированные по цене и ID
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.product.ProductDto(p.id, p.title, p.price, p.imageUrl) " +
+            "FROM Product p WHERE p.active = true ORDER BY p.price, p.id")
+    List<ProductDto> findCheapestActiveDtos(Limit limit);
+
+    /**
+     * Finds the most expensive active products
+     * Находит самые дорогие активные товары
+     *
+     * @param limit maximum number of products / максимальное количество товаров
+     * @return products sorted by price and ID descending / товары, отсортированные по цене и ID по убыванию
+     */
+    @Query("SELECT new de.ait.g_75_shop.dto.product.ProductDto(p.id, p.title, p.price, p.imageUrl) " +
+            "FROM Product p WHERE p.active = true ORDER BY p.price DESC, p.id DESC")
+    List<ProductDto> findMostExpensiveActiveDtos(Limit limit);
+
     /**
      * Counts all active products
      * Подсчитывает все активные товары
@@ -58,4 +199,53 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return true if exists and active / true если существует и активен
      */
     boolean existsByIdAndActiveTrue(Long id);
+
+    /**
+     * Counts active products and sums their prices in one query
+     * Подсчитывает активные товары и суммирует их цены одним запросом
+     *
+     * @return count and total price of active products / количество и суммарная цена активных товаров
+     */
+    @Query("SELECT COUNT(p) AS count, SUM(p.price) AS total FROM Product p WHERE p.active = true")
+    ProductTotalsView getActiveProductsTotals();
+
+    /**
+     * Reads and locks the state of products before a single-statement UPDATE
+     * The lock keeps the state valid until the UPDATE and the events published after it
+     *
+     * Читает и блокирует состояние товаров перед изменением одним UPDATE
+     * Блокировка сохраняет состояние актуальным до UPDATE и публикуемых после него событий
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return states of existing products / состояния существующих товаров
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id AS id, p.title AS title, p.price AS price, p.active AS active, p.version AS version " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<ProductStateView> lockStates(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Changes product price with one UPDATE, the version is incremented as by Hibernate
+     * Изменяет цену товара одним UPDATE, версия увеличивается так же, как Hibernate
+     *
+     * @param id    product identifier / идентификатор товара
+     * @param price new price / новая цена
+     * @return number of changed rows, 0 if product not found / количество изменённых строк, 0 если товар не найден
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.price = :price, p.version = p.version + 1 WHERE p.id = :id")
+    int updatePrice(@Param("id") Long id, @Param("price") BigDecimal price);
+
+    /**
+     * Sets the active flag of products whose flag differs, with one UPDATE
+     * Устанавливает флаг активности товаров, у которых он отличается, одним UPDATE
+     *
+     * @param ids    product identifiers / идентификаторы товаров
+     * @param active new active flag / новый флаг активности
+     * @return number of changed rows / количество изменённых строк
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.active = :active, p.version = p.version + 1 " +
+            "WHERE p.id IN :ids AND p.active <> :active")
+    int updateActive(@Param("ids") Collection<Long> ids, @Param("active") boolean active);
 }
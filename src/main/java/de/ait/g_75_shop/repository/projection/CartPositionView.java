@@ -0,0 +1,89 @@
+package de.ait.g_75_shop.repository.projection;
+
+import de.ait.g_75_shop.domain.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat row of a cart position with its product, filled by a JPQL constructor expression
+ * Position fields are null for a cart without positions (LEFT JOIN)
+ * Stored cart totals are repeated in every row of the cart
+ *
+ * Плоская строка позиции корзины вместе с товаром, заполняется конструкторным выражением JPQL
+ * Поля позиции равны null для корзины без позиций (LEFT JOIN)
+ * Хранимые итоги корзины повторяются в каждой строке корзины
+ */
+public class CartPositionView {
+
+    private final Long customerId;
+    private final Long cartId;
+    private final Money cartTotalPrice;
+    private final Integer cartTotalQuantity;
+    private final Long positionId;
+    private final Long productId;
+    private final String productTitle;
+    private final BigDecimal productPrice;
+    private final String productImageUrl;
+    private final Boolean productActive;
+    private final Integer quantity;
+
+    public CartPositionView(Long customerId, Long cartId, Money cartTotalPrice, Integer cartTotalQuantity,
+                            Long positionId, Long productId, String productTitle, BigDecimal productPrice,
+                            String productImageUrl, Boolean productActive, Integer quantity) {
+        this.customerId = customerId;
+        this.cartId = cartId;
+        this.cartTotalPrice = cartTotalPrice;
+        this.cartTotalQuantity = cartTotalQuantity;
+        this.positionId = positionId;
+        this.productId = productId;
+        this.productTitle = productTitle;
+        this.productPrice = productPrice;
+        this.productImageUrl = productImageUrl;
+        this.productActive = productActive;
+        this.quantity = quantity;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public Money getCartTotalPrice() {
+        return cartTotalPrice;
+    }
+
+    public Integer getCartTotalQuantity() {
+        return cartTotalQuantity;
+    }
+
+    public Long getPositionId() {
+        return positionId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductTitle() {
+        return productTitle;
+    }
+
+    public BigDecimal getProductPrice() {
+        return productPrice;
+    }
+
+    public String getProductImageUrl() {
+        return productImageUrl;
+    }
+
+    public Boolean getProductActive() {
+        return productActive;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
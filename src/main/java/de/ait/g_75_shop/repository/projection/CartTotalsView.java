@@ -0,0 +1,21 @@
+package de.ait.g_75_shop.repository.projection;
+
+import de.ait.g_75_shop.domain.Money;
+
+/**
+ * Interface projection for the totals of one customer's cart
+ * Filled by a single query from the stored cart totals, no entities are loaded
+ *
+ * Интерфейсная проекция для итогов корзины одного покупателя
+ * Заполняется одним запросом из хранимых итогов корзины, сущности не загружаются
+ */
+public interface CartTotalsView {
+
+    long getPositionsCount();
+
+    // null when the cart is missing / null, если корзина отсутствует
+    Long getTotalQuantity();
+
+    // null when the cart is missing / null, если корзина отсутствует
+    Money getTotalPrice();
+}
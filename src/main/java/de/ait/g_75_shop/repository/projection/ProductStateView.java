@@ -0,0 +1,25 @@
+package de.ait.g_75_shop.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Interface projection for the product state published with ProductChangedEvent
+ * Read (and locked) right before a single-statement product UPDATE, no entities are loaded.
+ * Also read by the in-memory product indexes when they are built.
+ *
+ * Интерфейсная проекция для состояния товара, публикуемого с ProductChangedEvent
+ * Читается (и блокируется) прямо перед изменением товара одним UPDATE, сущности не загружаются.
+ * Также читается индексами товаров в памяти при их построении.
+ */
+public interface ProductStateView {
+
+    Long getId();
+
+    String getTitle();
+
+    BigDecimal getPrice();
+
+    boolean isActive();
+
+    Long getVersion();
+}
@@ -0,0 +1,18 @@
+package de.ait.g_75_shop.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Interface projection for the aggregate over active products
+ * Filled by a single COUNT/SUM query, no entities are loaded
+ *
+ * Интерфейсная проекция для агрегата по активным товарам
+ * Заполняется одним запросом COUNT/SUM, сущности не загружаются
+ */
+public interface ProductTotalsView {
+
+    long getCount();
+
+    // null when there are no active products / null, если активных товаров нет
+    BigDecimal getTotal();
+}
@@ -1,6 +1,7 @@
 package de.ait.g_75_shop.security.config;
 
 import de.ait.g_75_shop.security.filter.TokenFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -110,12 +111,50 @@ public class SecurityConfig {
                 .httpBasic(AbstractHttpConfigurer::disable)
                 // Configure authorization rules / Настраиваем правила авторизации
                 .authorizeHttpRequests(x -> x
+                        // Async dispatch of a streamed response, the request itself is already authorized /
+                        // Асинхронная отправка потокового ответа, сам запрос уже авторизован
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Product endpoints / Товары: только ADMIN может создавать
                         .requestMatchers(HttpMethod.POST, "/products").hasRole("ADMIN")
+                        // POST /products/import - пакетный импорт товаров, только ADMIN
+                        .requestMatchers(HttpMethod.POST, "/products/import").hasRole("ADMIN")
                         // GET /products - доступно всем
                         .requestMatchers(HttpMethod.GET, "/products").permitAll()
+                        // GET /products/search?q=... - поиск по названию, доступно всем
+                        .requestMatchers(HttpMethod.GET, "/products/search").permitAll()
+                        // GET /products/price-range, /cheapest, /most-expensive - витрина по ценам, доступно всем
+                        .requestMatchers(HttpMethod.GET, "/products/price-range", "/products/cheapest",
+                                "/products/most-expensive").permitAll()
+                        // GET /products/stream - потоковая выдача каталога, доступно всем
+                        .requestMatchers(HttpMethod.GET, "/products/stream").permitAll()
                         // GET /products/{id} - доступно ADMIN и USER
                         .requestMatchers(HttpMethod.GET, "/products/{id:\\d+}").hasAnyRole("ADMIN", "USER")
+                        // GET /products/batch?ids=... - доступно ADMIN и USER
+                        .requestMatchers(HttpMethod.GET, "/products/batch").hasAnyRole("ADMIN", "USER")
+                        // POST /products/statistics/verify - сверка статистики каталога, только ADMIN
+                        .requestMatchers(HttpMethod.POST, "/products/statistics/verify").hasRole("ADMIN")
+                        // GET /products/cache/stats - счётчики кэша товаров, только ADMIN
+                        .requestMatchers(HttpMethod.GET, "/products/cache/stats").hasRole("ADMIN")
+                        // PUT /products/restore - групповое восстановление товаров, только ADMIN
+                        .requestMatchers(HttpMethod.PUT, "/products/restore").hasRole("ADMIN")
+                        // POST /customers/batch - пакетное создание покупателей (импорт B2B), только ADMIN
+                        .requestMatchers(HttpMethod.POST, "/customers/batch").hasRole("ADMIN")
+                        // DELETE /customers - групповое удаление покупателей, только ADMIN
+                        .requestMatchers(HttpMethod.DELETE, "/customers").hasRole("ADMIN")
+                        // GET /customers/search?name=... - поиск покупателей по имени для поддержки, только ADMIN
+                        .requestMatchers(HttpMethod.GET, "/customers/search").hasRole("ADMIN")
+                        // GET /customers/cart-sweeper/stats - счётчики сборщика заброшенных корзин, только ADMIN
+                        .requestMatchers(HttpMethod.GET, "/customers/cart-sweeper/stats").hasRole("ADMIN")
+                        // GET /customers/stream - потоковая выдача покупателей, только ADMIN
+                        .requestMatchers(HttpMethod.GET, "/customers/stream").hasRole("ADMIN")
+                        // GET /customers/{id}/cart/summary - сводка корзины, доступно ADMIN и USER
+                        .requestMatchers(HttpMethod.GET, "/customers/{id:\\d+}/cart/summary").hasAnyRole("ADMIN", "USER")
+                        // POST /customers/{id}/cart/products - пакетное добавление в корзину, доступно ADMIN и USER
+                        .requestMatchers(HttpMethod.POST, "/customers/{id:\\d+}/cart/products").hasAnyRole("ADMIN", "USER")
+                        // PATCH /customers/{id}/cart - пакет операций с корзиной, доступно ADMIN и USER
+                        .requestMatchers(HttpMethod.PATCH, "/customers/{id:\\d+}/cart").hasAnyRole("ADMIN", "USER")
+                        // POST /customers/{id}/checkout - оформление заказа из корзины, доступно ADMIN и USER
+                        .requestMatchers(HttpMethod.POST, "/customers/{id:\\d+}/checkout").hasAnyRole("ADMIN", "USER")
                         // Authentication/Registration endpoints - public / Эндпоинты аутентификации/регистрации  - публичные
                         .requestMatchers(HttpMethod.POST, "/auth/login").permitAll() // даем всем доступ к логину
                         .requestMatchers(HttpMethod.POST, "/auth/access").permitAll() // даем всем доступ к авторизации
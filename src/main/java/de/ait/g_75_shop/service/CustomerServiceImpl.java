@@ -1,29 +1,72 @@
 package de.ait.g_75_shop.service;
 
+import de.ait.g_75_shop.constants.Constants;
 import de.ait.g_75_shop.domain.Cart;
+import de.ait.g_75_shop.domain.CartTotals;
 import de.ait.g_75_shop.domain.Customer;
+import de.ait.g_75_shop.domain.Money;
+import de.ait.g_75_shop.domain.Order;
+import de.ait.g_75_shop.domain.Position;
 import de.ait.g_75_shop.domain.Product;
+import de.ait.g_75_shop.dto.cart.CartDto;
+import de.ait.g_75_shop.dto.cart.CartItemDto;
+import de.ait.g_75_shop.dto.cart.CartOperationDto;
+import de.ait.g_75_shop.dto.cart.CartSummaryDto;
+import de.ait.g_75_shop.dto.cart.CartSweeperStatsDto;
 import de.ait.g_75_shop.dto.customer.CustomerDto;
 import de.ait.g_75_shop.dto.customer.CustomerSaveDto;
 import de.ait.g_75_shop.dto.customer.CustomerUpdateDto;
+import de.ait.g_75_shop.dto.mapping.CartMapper;
+import de.ait.g_75_shop.dto.mapping.CartViewAssembler;
 import de.ait.g_75_shop.dto.mapping.CustomerMapper;
+import de.ait.g_75_shop.dto.mapping.OrderMapper;
+import de.ait.g_75_shop.dto.order.OrderDto;
+import de.ait.g_75_shop.dto.product.ProductDto;
 import de.ait.g_75_shop.exceptions.types.EntityNotFoundException;
 import de.ait.g_75_shop.exceptions.types.EntityUpdateException;
 import de.ait.g_75_shop.repository.CustomerRepository;
+import de.ait.g_75_shop.repository.OrderRepository;
+import de.ait.g_75_shop.repository.projection.CartPositionView;
+import de.ait.g_75_shop.repository.projection.CartTotalsView;
+import de.ait.g_75_shop.service.cart.AbandonedCartSweeper;
+import de.ait.g_75_shop.service.cart.CartCheckoutWriter;
+import de.ait.g_75_shop.service.cart.CartPositionWriter;
+import de.ait.g_75_shop.service.cart.CartWrite;
+import de.ait.g_75_shop.service.cart.LiveCart;
+import de.ait.g_75_shop.service.cart.WriteBehindCartStore;
+import de.ait.g_75_shop.service.customer.CustomerOnboardingWriter;
 import de.ait.g_75_shop.service.interfaces.CustomerService;
 import de.ait.g_75_shop.service.interfaces.FileService;
 import de.ait.g_75_shop.service.interfaces.ProductService;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -38,32 +81,68 @@ public class CustomerServiceImpl implements CustomerService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomerServiceImpl.class);
 
+    // Cart limits / Ограничения корзины
+    private static final int MAX_CART_POSITIONS = 50;
+    private static final int MAX_ADD_QUANTITY = 100;
+    private static final int MAX_POSITION_QUANTITY = 100;
+
     private final CustomerRepository customerRepository;
     private final ProductService productService;
     private final CustomerMapper mapper;
+    private final CartMapper cartMapper;
+    private final CartViewAssembler cartViewAssembler;
     private final FileService fileService;
+    private final EntityManager entityManager;
+    private final CartPositionWriter cartPositionWriter;
+    private final WriteBehindCartStore cartStore;
+    private final CartCheckoutWriter cartCheckoutWriter;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final CustomerOnboardingWriter onboardingWriter;
+    private final AbandonedCartSweeper cartSweeper;
+    private final Validator validator;
 
     public CustomerServiceImpl(CustomerRepository customerRepository,
                                ProductService productService,
-                               CustomerMapper mapper, FileService fileService) {
+                               CustomerMapper mapper, CartMapper cartMapper,
+                               CartViewAssembler cartViewAssembler,
+                               FileService fileService, EntityManager entityManager,
+                               CartPositionWriter cartPositionWriter, WriteBehindCartStore cartStore,
+                               CartCheckoutWriter cartCheckoutWriter, OrderRepository orderRepository,
+                               OrderMapper orderMapper, CustomerOnboardingWriter onboardingWriter,
+                               AbandonedCartSweeper cartSweeper, Validator validator) {
         this.customerRepository = customerRepository;
         this.productService = productService;
         this.mapper = mapper;
+        this.cartMapper = cartMapper;
+        this.cartViewAssembler = cartViewAssembler;
         this.fileService = fileService;
+        this.entityManager = entityManager;
+        this.cartPositionWriter = cartPositionWriter;
+        this.cartStore = cartStore;
+        this.cartCheckoutWriter = cartCheckoutWriter;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.onboardingWriter = onboardingWriter;
+        this.cartSweeper = cartSweeper;
+        this.validator = validator;
     }
 
     /**
      * Saves a new customer
-     * Creates customer and automatically creates an empty cart for them
+     * Creates customer and automatically creates an empty cart for them.
+     * The cart is attached before persisting, so both rows are written by one persist cascaded to the cart.
      *
      * Сохраняет нового покупателя
-     * Создает покупателя и автоматически создает для него пустую корзину
+     * Создает покупателя и автоматически создает для него пустую корзину.
+     * Корзина привязывается до сохранения, поэтому обе строки записываются одним persist с каскадом на корзину.
      *
      * @param saveDto DTO with customer data / DTO с данными покупателя
      * @return saved customer as DTO / сохраненный покупатель в виде DTO
      * @throws NullPointerException if saveDto is null / если saveDto null
      */
     @Override
+    @Transactional
     public CustomerDto save(CustomerSaveDto saveDto) {
         // Null check / Проверка на null
         Objects.requireNonNull(saveDto, "CustomerSaveDto cannot be null");
@@ -74,36 +153,215 @@ public class CustomerServiceImpl implements CustomerService {
         // Set customer as active / Устанавливаем покупателя как активного
         customer.setActive(true);
 
-        // Save customer / Сохраняем покупателя
-        Customer savedCustomer = customerRepository.save(customer);
-        logger.info("Customer saved with ID: {}", savedCustomer.getId());
-
         // Create and link cart / Создаем и связываем корзину
         Cart cart = new Cart();
-        cart.setCustomer(savedCustomer);
-        savedCustomer.setCart(cart);
+        cart.setCustomer(customer);
+        customer.setCart(cart);
 
         // Save customer with cart / Сохраняем покупателя с корзиной
-        savedCustomer = customerRepository.save(savedCustomer);
-        logger.info("Cart created for customer ID: {}", savedCustomer.getId());
+        Customer savedCustomer = customerRepository.save(customer);
+        logger.info("Customer saved with ID: {}, cart ID: {}", savedCustomer.getId(), cart.getId());
 
         // Return DTO / Возвращаем DTO
         return mapper.mapEntityToDto(savedCustomer);
     }
 
+    /**
+     * Saves several new customers, each with an empty cart (B2B account imports)
+     * All customers are validated first, then inserted with JDBC batch inserts in one transaction:
+     * either all customers are created or none.
+     *
+     * Сохраняет нескольких новых покупателей, каждого с пустой корзиной (импорт B2B-аккаунтов)
+     * Сначала проверяются все покупатели, затем они вставляются пакетными JDBC-вставками в одной транзакции:
+     * создаются либо все покупатели, либо ни один.
+     *
+     * @param saveDtos DTOs with customer data / DTO с данными покупателей
+     * @return saved customers as DTOs in the order of the request / сохраненные покупатели в виде DTO в порядке запроса
+     * @throws NullPointerException if saveDtos is null / если saveDtos null
+     * @throws ConstraintViolationException if any customer is invalid / если какой-либо покупатель некорректен
+     */
+    @Override
+    @Transactional
+    public List<CustomerDto> saveAll(List<CustomerSaveDto> saveDtos) {
+        Objects.requireNonNull(saveDtos, "Customer list cannot be null");
+
+        Set<ConstraintViolation<CustomerSaveDto>> violations = new LinkedHashSet<>();
+        for (CustomerSaveDto saveDto : saveDtos) {
+            Objects.requireNonNull(saveDto, "CustomerSaveDto cannot be null");
+            violations.addAll(validator.validate(saveDto));
+        }
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+
+        List<String> names = saveDtos.stream()
+                .map(CustomerSaveDto::getName)
+                .toList();
+        List<CustomerOnboardingWriter.CreatedCustomer> created = onboardingWriter.insertAll(names);
+
+        // Entities are only built for mapping, the rows are already written /
+        // Сущности создаются только для преобразования, строки уже записаны
+        List<CustomerDto> result = new ArrayList<>(created.size());
+        for (int i = 0; i < created.size(); i++) {
+            Customer customer = new Customer();
+            customer.setId(created.get(i).customerId());
+            customer.setName(names.get(i));
+            customer.setActive(true);
+
+            Cart cart = new Cart();
+            cart.setId(created.get(i).cartId());
+            cart.setCustomer(customer);
+            customer.setCart(cart);
+
+            result.add(mapper.mapEntityToDto(customer));
+        }
+
+        logger.info("{} customers saved with carts", result.size());
+        return result;
+    }
+
     /**
      * Gets all active customers
+     * Fixed fetch plan: one query for customers and, with carts, one join query for all cart positions
+     * and their products; no entities are loaded, so there are no per-customer selects.
      *
      * Получает всех активных покупателей
+     * Фиксированный план выборки: один запрос покупателей и, с корзинами, один запрос с соединением
+     * для всех позиций корзин и их товаров; сущности не загружаются, поэтому нет запросов на каждого покупателя.
      *
+     * @param includeCart whether carts are included / включать ли корзины
      * @return list of active customer DTOs / список DTO активных покупателей
      */
     @Override
-    public List<CustomerDto> getAllActiveCustomers() {
-        return customerRepository.findAllByActiveTrue()
-                .stream()
-                .map(mapper::mapEntityToDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<CustomerDto> getAllActiveCustomers(boolean includeCart) {
+        List<CustomerDto> customers = customerRepository.findAllActiveDtos();
+        if (!includeCart) {
+            return customers;
+        }
+        return attachCarts(customers, customerRepository.findAllActiveCartPositionViews());
+    }
+
+    /**
+     * Gets one page of active customers ordered by ID (keyset pagination)
+     * Any page costs one query, or two with carts (positions and products of the whole page by one join query)
+     *
+     * Получает одну страницу активных покупателей, упорядоченных по ID (keyset-пагинация)
+     * Любая страница стоит одного запроса или двух с корзинами (позиции и товары всей страницы одним запросом с соединением)
+     *
+     * @param afterId     last ID of previous page, null for the first page / последний ID предыдущей страницы, null для первой
+     * @param size        page size, limited by MAX_PAGE_SIZE / размер страницы, ограничен MAX_PAGE_SIZE
+     * @param includeCart whether carts are included / включать ли корзины
+     * @return list of active customer DTOs / список DTO активных покупателей
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerDto> getActiveCustomersPage(Long afterId, int size, boolean includeCart) {
+        int limit = Math.max(1, Math.min(size, Constants.MAX_PAGE_SIZE));
+        List<CustomerDto> customers = customerRepository.findActiveDtosAfter(
+                afterId == null ? 0L : afterId, Limit.of(limit));
+        if (customers.isEmpty() || !includeCart) {
+            return customers;
+        }
+        return attachCarts(customers, customerRepository.findCartPositionViews(
+                customers.stream().map(CustomerDto::getId).toList()));
+    }
+
+    /**
+     * Searches active customers by name, case-insensitive, with keyset pagination
+     * Prefix search matches the beginning of the name, otherwise any part of it. Carts are not included.
+     *
+     * Ищет активных покупателей по имени без учёта регистра, с keyset-пагинацией
+     * Поиск по префиксу сравнивает начало имени, иначе - любую его часть. Корзины не включаются.
+     *
+     * @param name    searched text / искомый текст
+     * @param prefix  match the beginning of the name only / сравнивать только начало имени
+     * @param afterId last customer ID of previous page (null for the first page) / последний ID предыдущей страницы (null для первой)
+     * @param size    page size, at most MAX_PAGE_SIZE / размер страницы, не более MAX_PAGE_SIZE
+     * @return page of customers ordered by ID / страница покупателей, упорядоченная по ID
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerDto> searchActiveCustomers(String name, boolean prefix, Long afterId, int size) {
+        Objects.requireNonNull(name, "Search name cannot be null");
+
+        String text = name.trim().toLowerCase(Locale.ROOT);
+        if (text.isEmpty()) {
+            return List.of();
+        }
+
+        // Wildcards typed by the user are matched literally / Подстановочные символы пользователя сравниваются буквально
+        String escaped = text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        String pattern = prefix ? escaped + "%" : "%" + escaped + "%";
+        int limit = Math.max(1, Math.min(size, Constants.MAX_PAGE_SIZE));
+        return customerRepository.searchActiveDtosAfter(pattern, afterId == null ? 0L : afterId, Limit.of(limit));
+    }
+
+    /**
+     * Sets carts built from flat position rows to customer DTOs
+     * Customers without cart keep null, like in CustomerMapper
+     *
+     * Устанавливает DTO покупателей корзины, собранные из плоских строк позиций
+     * У покупателей без корзины остаётся null, как в CustomerMapper
+     *
+     * @param customers customer DTOs / DTO покупателей
+     * @param rows      cart position rows / строки позиций корзин
+     * @return the same customer DTOs / те же DTO покупателей
+     */
+    private List<CustomerDto> attachCarts(List<CustomerDto> customers, List<CartPositionView> rows) {
+        Map<Long, CartDto> carts = cartViewAssembler.assembleByCustomer(rows);
+        customers.forEach(customer -> {
+            customer.setCart(carts.get(customer.getId()));
+            attachLiveCart(customer);
+        });
+        return customers;
+    }
+
+    /**
+     * In write-behind mode replaces the cart with the live one, if the customer's cart is in memory
+     * Database rows may lag behind it by one flush interval.
+     *
+     * В режиме отложенной записи заменяет корзину актуальной из памяти, если корзина покупателя загружена
+     * Строки в БД могут отставать от неё на один интервал записи.
+     *
+     * @param customer customer DTO / DTO покупателя
+     * @return the same customer DTO / тот же DTO покупателя
+     */
+    private CustomerDto attachLiveCart(CustomerDto customer) {
+        if (cartStore.isEnabled()) {
+            List<CartPositionView> liveRows = cartStore.findLoadedRows(customer.getId());
+            if (liveRows != null) {
+                customer.setCart(cartViewAssembler.assembleByCustomer(liveRows).get(customer.getId()));
+            }
+        }
+        return customer;
+    }
+
+    /**
+     * Streams all active customers with carts to the consumer one by one
+     * Customers are read by keyset pages of MAX_PAGE_SIZE, two queries per page and no entities,
+     * so memory stays flat and the number of queries does not grow with the carts.
+     *
+     * Передаёт всех активных покупателей с корзинами потребителю по одному
+     * Покупатели читаются keyset-страницами по MAX_PAGE_SIZE, два запроса на страницу и без сущностей,
+     * поэтому память не растёт, а количество запросов не зависит от корзин.
+     *
+     * @param consumer receiver of customer DTOs / получатель DTO покупателей
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllActiveCustomers(Consumer<CustomerDto> consumer) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+
+        Long afterId = null;
+        List<CustomerDto> page;
+        do {
+            page = getActiveCustomersPage(afterId, Constants.MAX_PAGE_SIZE, true);
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == Constants.MAX_PAGE_SIZE);
     }
 
     /**
@@ -128,6 +386,27 @@ public class CustomerServiceImpl implements CustomerService {
                 );
     }
 
+    /**
+     * Gets active customer entity with cart, positions and their products loaded by one query
+     * Used by cart changes in JPA, other methods load only the customer and the cart row
+     *
+     * Получает активного покупателя с корзиной, позициями и их товарами одним запросом
+     * Используется изменениями корзины через JPA, остальные методы загружают только покупателя и строку корзины
+     *
+     * @param id customer identifier / идентификатор покупателя
+     * @return customer entity / сущность покупателя
+     * @throws EntityNotFoundException if customer not found or inactive / если покупатель не найден или неактивен
+     */
+    private Customer getActiveEntityWithCartPositions(Long id) {
+        return customerRepository.findActiveCustomerWithCart(id)
+                .orElseThrow(
+                        () -> {
+                            logger.warn("Active customer with ID {} not found", id);
+                            return new EntityNotFoundException(Customer.class, id);
+                        }
+                );
+    }
+
     /**
             * Gets active customer DTO by ID
      *
@@ -137,17 +416,25 @@ public class CustomerServiceImpl implements CustomerService {
      * @return customer DTO / DTO покупателя
      */
     @Override
+    @Transactional(readOnly = true)
     public CustomerDto getActiveCustomerById(Long id) {
 //        Customer customer = getActiveEntityById(id);
 //        return customer != null ? mapper.mapEntityToDto(customer) : null;
-        Customer customer = getActiveEntityById(id);
-        return mapper.mapEntityToDto(customer);
+        Objects.requireNonNull(id, "Customer ID cannot be null");
+        CustomerDto customer = customerRepository.findActiveDtoById(id)
+                .orElseThrow(() -> {
+                    logger.warn("Active customer with ID {} not found", id);
+                    return new EntityNotFoundException(Customer.class, id);
+                });
+        return attachCarts(List.of(customer), customerRepository.findCartPositionViews(List.of(id))).get(0);
     }
 
     /**
      * Updates customer name
+     * One UPDATE, the customer is not loaded; not found is detected from the affected row count
      *
      * Обновляет имя покупателя
+     * Один UPDATE, покупатель не загружается; отсутствие определяется по количеству изменённых строк
      *
      * @param id customer identifier / идентификатор покупателя
      * @param updateDto DTO with new name / DTO с новым именем
@@ -157,65 +444,100 @@ public class CustomerServiceImpl implements CustomerService {
     @Override
     @Transactional
     public void update(Long id, @Valid CustomerUpdateDto updateDto) {
-//        customerRepository.findByIdAndActiveTrue(id)
-//                .ifPresent(existingCustomer -> {
-//                    mapper.updateEntity(existingCustomer, updateDto);
-//                });
-
         // Null checks / Проверка на null
         Objects.requireNonNull(id, "Customer ID cannot be null");
         Objects.requireNonNull(updateDto, "CustomerUpdateDto cannot be null");
 
-        // Get existing customer / Получаем существующего покупателя
-        Customer existingCustomer = getActiveEntityById(id);
-
         // Update name / Обновляем имя
-        existingCustomer.setName(updateDto.getNewName());
+        if (customerRepository.updateActiveName(id, updateDto.getNewName()) == 0) {
+            logger.warn("Active customer with ID {} not found", id);
+            throw new EntityNotFoundException(Customer.class, id);
+        }
 
         logger.info("Customer ID {} updated. New name: '{}'", id, updateDto.getNewName());
     }
 
     /**
      * Soft deletes customer (deactivates)
+     * One UPDATE, the customer is not loaded
      *
      * Мягкое удаление покупателя (деактивация)
+     * Один UPDATE, покупатель не загружается
      *
      * @param id customer identifier / идентификатор покупателя
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
      */
     @Override
     @Transactional
     public void deleteById(Long id) {
-        Customer customer = getActiveEntityById(id);
-        customer.setActive(false);
+        Objects.requireNonNull(id, "Customer ID cannot be null");
+
+        if (customerRepository.deactivate(List.of(id)) == 0) {
+            logger.warn("Active customer with ID {} not found", id);
+            throw new EntityNotFoundException(Customer.class, id);
+        }
+
+        if (cartStore.isEnabled()) {
+            // Live cart is written and dropped / Корзина из памяти записывается и удаляется
+            cartStore.evict(id);
+        }
 
         logger.info("Customer ID {} marked as inactive", id);
-//        if (customer != null) {
-//            customer.setActive(false);
-//        }
+    }
+
+    /**
+     * Soft deletes several customers (admin tooling)
+     * One UPDATE per MAX_BULK_IDS_PER_STATEMENT IDs; missing and already inactive customers are skipped
+     *
+     * Мягкое удаление нескольких покупателей (инструменты администратора)
+     * Один UPDATE на каждые MAX_BULK_IDS_PER_STATEMENT ID; отсутствующие и уже неактивные покупатели пропускаются
+     *
+     * @param ids customer identifiers / идентификаторы покупателей
+     * @return number of deactivated customers / количество деактивированных покупателей
+     */
+    @Override
+    @Transactional
+    public int deleteByIds(Collection<Long> ids) {
+        Objects.requireNonNull(ids, "Customer IDs cannot be null");
+
+        List<Long> uniqueIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        int deactivated = 0;
+        for (int from = 0; from < uniqueIds.size(); from += Constants.MAX_BULK_IDS_PER_STATEMENT) {
+            List<Long> chunk = uniqueIds.subList(from,
+                    Math.min(from + Constants.MAX_BULK_IDS_PER_STATEMENT, uniqueIds.size()));
+            deactivated += customerRepository.deactivate(chunk);
+        }
+
+        if (cartStore.isEnabled()) {
+            uniqueIds.forEach(cartStore::evict);
+        }
 
+        logger.info("{} of {} customers marked as inactive", deactivated, uniqueIds.size());
+        return deactivated;
     }
 
     /**
      * Restores previously deleted customer (activates)
+     * One UPDATE, the customer is not loaded
      *
      * Восстанавливает удаленного покупателя (активация)
+     * Один UPDATE, покупатель не загружается
      *
      * @param id customer identifier / идентификатор покупателя
+     * @throws EntityNotFoundException if customer not found / если покупатель не найден
      */
     @Override
     @Transactional
     public void restoreById(Long id) {
         Objects.requireNonNull(id, "Customer ID cannot be null");
 
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Customer.class, id));
-
-        customer.setActive(true);
+        if (customerRepository.activate(id) == 0) {
+            throw new EntityNotFoundException(Customer.class, id);
+        }
         logger.info("Customer ID {} restored (marked as active)", id);
-//        customerRepository.findById(id)
-//                .ifPresent(customer -> {
-//                    customer.setActive(true);
-//                });
     }
 
     /**
@@ -231,87 +553,140 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     /**
-     * Gets total cost of customer's cart
+     * Gets abandoned cart sweeper counters
+     *
+     * Получает счётчики сборщика заброшенных корзин
+     *
+     * @return sweeper statistics / статистика сборщика
+     */
+    @Override
+    public CartSweeperStatsDto getCartSweeperStats() {
+        return cartSweeper.getStats();
+    }
+
+    /**
+     * Gets total cost of customer's cart (positions of active products)
+     * One column of the cart row is read, the cart is not loaded
      *
-     * Получает общую стоимость корзины покупателя
+     * Получает общую стоимость корзины покупателя (позиции активных товаров)
+     * Читается один столбец строки корзины, корзина не загружается
      *
      * @param customerId customer identifier / идентификатор покупателя
      * @return total cart cost / общая стоимость корзины
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
      */
     @Override
+    @Transactional(readOnly = true)
     public BigDecimal getCustomerCartTotalCost(Long customerId) {
-        Customer customer = getActiveEntityById(customerId);
-        if (customer == null || customer.getCart() == null) {
-            return BigDecimal.ZERO;
+        Objects.requireNonNull(customerId, "Customer ID cannot be null");
+        if (cartStore.isEnabled()) {
+            return cartStore.read(customerId, LiveCart::summary).getTotalPrice().toBigDecimal();
+        }
+
+        Optional<BigDecimal> totalPrice = customerRepository.findActiveCartTotalPrice(customerId);
+        if (totalPrice.isPresent()) {
+            return Money.of(totalPrice.get()).toBigDecimal();
         }
-        return customer.getCart().getTotalPrice();
+        // No cart row: either an empty cart or no active customer / Нет строки корзины: пустая корзина или нет покупателя
+        if (!customerRepository.existsByIdAndActiveTrue(customerId)) {
+            logger.warn("Active customer with ID {} not found", customerId);
+            throw new EntityNotFoundException(Customer.class, customerId);
+        }
+        return Money.ZERO.toBigDecimal();
     }
 
     /**
      * Gets average price in customer's cart
+     * Derived from the stored cart totals, the cart is not loaded
      *
      * Получает среднюю цену товаров в корзине покупателя
+     * Вычисляется из хранимых итогов корзины, корзина не загружается
      *
      * @param customerId customer identifier / идентификатор покупателя
      * @return average price / средняя цена
      */
     @Override
+    @Transactional(readOnly = true)
     public BigDecimal getCustomerCartAveragePrice(Long customerId) {
-        Customer customer = getActiveEntityById(customerId);
-        if (customer == null || customer.getCart() == null) {
-            return BigDecimal.ZERO;
+        return readCartTotals(customerId).getAveragePrice().toBigDecimal();
+    }
+
+    /**
+     * Gets summary of customer's cart: positions, quantity, total and average price
+     * One query reading the stored cart totals, the summary is built by CartTotals like for Cart.
+     * Quantity and prices count positions of active products only, positions count counts all positions.
+     *
+     * Получает сводку корзины покупателя: позиции, количество, общая и средняя цена
+     * Один запрос, читающий хранимые итоги корзины, сводку строит CartTotals, как и для Cart.
+     * Количество и цены учитывают только позиции активных товаров, количество позиций - все позиции.
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return cart summary / сводка корзины
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CartSummaryDto getCustomerCartSummary(Long customerId) {
+        return cartMapper.mapTotalsToSummaryDto(readCartTotals(customerId));
+    }
+
+    /**
+     * Reads the summary of the customer's cart: from the live cart in write-behind mode,
+     * otherwise from the stored totals with one query
+     *
+     * Читает сводку корзины покупателя: из корзины в памяти в режиме отложенной записи,
+     * иначе из хранимых итогов одним запросом
+     */
+    private CartTotals readCartTotals(Long customerId) {
+        Objects.requireNonNull(customerId, "Customer ID cannot be null");
+        if (cartStore.isEnabled()) {
+            return cartStore.read(customerId, LiveCart::summary);
         }
-        return customer.getCart().getAveragePrice();
+
+        CartTotalsView totals = customerRepository.findActiveCartTotals(customerId)
+                .orElseThrow(() -> {
+                    logger.warn("Active customer with ID {} not found", customerId);
+                    return new EntityNotFoundException(Customer.class, customerId);
+                });
+
+        int totalQuantity = totals.getTotalQuantity() == null ? 0 : totals.getTotalQuantity().intValue();
+        return CartTotals.of((int) totals.getPositionsCount(), totalQuantity, totals.getTotalPrice());
     }
 
     /**
      * Adds product to customer's cart with validation
+     * Hot path is one upsert statement, the cart is not loaded. Only if the upsert changes nothing
+     * (no active customer, no cart yet, the product deactivated after it was cached, or a limit is hit)
+     * the customer is loaded to create the cart or to report the reason. In write-behind mode only the live cart in memory is changed.
      *
      * Добавляет товар в корзину покупателя с валидацией
+     * Основной путь - один запрос upsert, корзина не загружается. Только если upsert ничего не изменил
+     * (нет активного покупателя, ещё нет корзины, товар деактивирован после попадания в кэш
+     * или превышено ограничение), покупатель загружается,
+     * чтобы создать корзину или сообщить причину. В режиме отложенной записи меняется только корзина в памяти.
      *
      * @param customerId customer identifier / идентификатор покупателя
      * @param productId product identifier / идентификатор товара
      * @param quantity quantity to add / количество для добавления
      * @throws EntityUpdateException if product inactive, quantity invalid, or cart limits exceeded
      *                               если товар неактивен, количество некорректно или превышены лимиты корзины
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
      */
     @Override
     @Transactional
+    @CartWrite
     public void addProductToCart(Long customerId, Long productId, int quantity) {
         // Null checks / Проверка параметров на null
         Objects.requireNonNull(customerId, "Customer ID cannot be null");
         Objects.requireNonNull(productId, "Product ID cannot be null");
 
-        // Получаем активный товар через сервис продуктов
-//        Product product = productService.getActiveEntityById(productId);
-//        if (product == null) {
-//            System.out.println("Товар с ID " + productId + " не найден или не активен");
-//            return;
-//        }
-
         // Validate quantity / Проверяем количество
-        if (quantity <= 0) {
-            throw new EntityUpdateException(
-                    String.format("Quantity must be positive. Provided: %d", quantity));
-        }
-
-        if (quantity > 100) {
-            throw new EntityUpdateException(
-                    String.format("Cannot add more than 100 items. Provided: %d", quantity)
-            );
-        }
+        validateQuantity(quantity);
 
-        // Get customer / Проверяем существование активного покупателя
-        Customer customer = getActiveEntityById(customerId);
-        if (customer == null) {
-            System.out.println("Покупатель с ID " + customerId + " не найден или не активен");
-            return;
-        }
-
-        // Get product (check if active) / Получаем товар (проверяем, что он активен)
-        Product product;
+        // Check product is active, usually served by the product cache / Проверяем активность товара (обычно из кэша)
+        ProductDto product;
         try {
-            product = productService.getActiveEntityById(productId);
+            product = productService.getActiveProductById(productId);
         } catch (EntityNotFoundException e) {
             throw new EntityUpdateException(
                     String.format("Cannot add product to cart: Product with ID %d is not active or does not exist",
@@ -319,27 +694,131 @@ public class CustomerServiceImpl implements CustomerService {
             );
         }
 
-        // Get or create cart / Получаем или создаем корзину
-        Cart cart = customer.getCart();
-        if (cart == null) {
-            cart = new Cart();
-            cart.setCustomer(customer);
-            customer.setCart(cart);
-            logger.debug("New cart created for customer ID: {}", customerId);
+        if (cartStore.isEnabled()) {
+            cartStore.update(customerId, cart -> {
+                cart.add(product, quantity, MAX_CART_POSITIONS, MAX_POSITION_QUANTITY);
+                return null;
+            });
+        } else if (!cartPositionWriter.addQuantity(customerId, productId, quantity,
+                MAX_CART_POSITIONS, MAX_POSITION_QUANTITY)) {
+            // Nothing changed, find out why / Ничего не изменилось, выясняем причину
+            Customer customer = getActiveEntityById(customerId);
+            if (customer.getCart() == null) {
+                // First product of the customer: create the cart / Первый товар: создаём корзину
+                getOrCreateCart(customer);
+                entityManager.flush();
+            }
+
+            // Repeat, the cart may also have been created concurrently after the first attempt
+            // Повторяем, корзина могла быть создана параллельно и после первой попытки
+            if (!cartPositionWriter.addQuantity(customerId, productId, quantity,
+                    MAX_CART_POSITIONS, MAX_POSITION_QUANTITY)) {
+                // The cached product may have been deactivated meanwhile, the upsert checks the row
+                // Товар из кэша мог быть деактивирован за это время, upsert проверяет строку
+                if (!productService.isProductActive(productId)) {
+                    throw new EntityUpdateException(String.format(
+                            "Cannot add product to cart: Product with ID %d is not active or does not exist",
+                            productId));
+                }
+                throw cartLimitException(customer.getCart(), productId);
+            }
         }
 
-        // Check cart size limit / Проверяем, не превышен ли лимит позиций в корзине
-        if (cart.getPositions().size() >= 50) {
+        logger.info("Product ID {} (quantity: {}) added to cart of customer ID {}",
+                productId, quantity, customerId);
+    }
+
+    /**
+     * Adds several products to customer's cart in one transaction
+     * Products are loaded with one query, limits are the same as for a single add:
+     * quantity 1 - 100 per item and at most 50 different products in the cart.
+     * Either all items are added or none.
+     *
+     * Добавляет несколько товаров в корзину покупателя в одной транзакции
+     * Товары загружаются одним запросом, ограничения такие же, как при одиночном добавлении:
+     * количество 1 - 100 на позицию и не более 50 разных товаров в корзине.
+     * Добавляются либо все позиции, либо ни одной.
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param items products and quantities to add / товары и количества для добавления
+     * @return updated cart / обновлённая корзина
+     * @throws EntityUpdateException if any item is invalid or cart limits exceeded
+     *                               если какая-либо позиция некорректна или превышены лимиты корзины
+     */
+    @Override
+    @Transactional
+    @CartWrite
+    public CartDto addProductsToCart(Long customerId, List<CartItemDto> items) {
+        Objects.requireNonNull(customerId, "Customer ID cannot be null");
+        Objects.requireNonNull(items, "Cart items cannot be null");
+
+        if (items.isEmpty()) {
+            throw new EntityUpdateException("Cart items list cannot be empty");
+        }
+
+        // Validate items and merge duplicates / Проверяем позиции и объединяем дубликаты
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemDto item : items) {
+            Objects.requireNonNull(item, "Cart item cannot be null");
+            Objects.requireNonNull(item.getProductId(), "Product ID cannot be null");
+            validateQuantity(item.getQuantity());
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        if (cartStore.isEnabled()) {
+            Map<Long, ProductDto> productDtos = new LinkedHashMap<>();
+            for (ProductDto product : productService.getActiveProductsByIds(quantities.keySet())) {
+                productDtos.put(product.getId(), product);
+            }
+            checkAllProductsFound(quantities.keySet(), productDtos.keySet());
+
+            List<CartPositionView> rows = cartStore.update(customerId, cart -> {
+                cart.addAll(quantities, productDtos, MAX_CART_POSITIONS, MAX_POSITION_QUANTITY);
+                return cart.toRows();
+            });
+            logger.info("{} products added to cart of customer ID {}", quantities.size(), customerId);
+            return cartViewAssembler.assembleByCustomer(rows).get(customerId);
+        }
+
+        Customer customer = getActiveEntityWithCartPositions(customerId);
+
+        // Load all products with one query / Загружаем все товары одним запросом
+        Map<Long, Product> products = new LinkedHashMap<>();
+        for (Product product : productService.getActiveEntitiesByIds(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+
+        checkAllProductsFound(quantities.keySet(), products.keySet());
+
+        Cart cart = getOrCreateCart(customer);
+        lockCart(cart);
+
+        // Check position quantity limit with merged duplicates and quantities already in the cart /
+        // Проверяем лимит количества позиции с учётом объединённых дубликатов и количества в корзине
+        Map<Long, Integer> quantitiesInCart = cart.getPositions().stream()
+                .collect(Collectors.toMap(position -> position.getProduct().getId(), Position::getQuantity));
+        quantities.forEach((productId, quantity) -> {
+            if (quantitiesInCart.getOrDefault(productId, 0) + quantity > MAX_POSITION_QUANTITY) {
+                throw new EntityUpdateException(
+                        String.format("Cart position cannot contain more than %d items", MAX_POSITION_QUANTITY));
+            }
+        });
+
+        // Check cart size limit for new positions / Проверяем лимит позиций с учётом новых товаров
+        long newPositions = quantities.keySet().stream()
+                .filter(id -> !quantitiesInCart.containsKey(id))
+                .count();
+
+        if (cart.getPositions().size() + newPositions > MAX_CART_POSITIONS) {
             throw new EntityUpdateException(
-                    "Cart cannot contain more than 50 different items"
+                    String.format("Cart cannot contain more than %d different items", MAX_CART_POSITIONS)
             );
         }
 
-        // Add product to cart / Добавляем товар в корзину
-        cart.addPosition(product, quantity);
-        logger.info("Product ID {} (quantity: {}) added to cart of customer ID {}",
-                productId, quantity, customerId);
+        quantities.forEach((productId, quantity) -> cart.addPosition(products.get(productId), quantity));
+        logger.info("{} products added to cart of customer ID {}", quantities.size(), customerId);
 
+        return cartMapper.mapEntityToDto(cart);
     }
 
     /**
@@ -354,13 +833,23 @@ public class CustomerServiceImpl implements CustomerService {
      */
     @Override
     @Transactional
+    @CartWrite
     public void removeProductFromCart(Long customerId, Long productId) {
         // Null checks / Проверка параметров на null
         Objects.requireNonNull(customerId, "Customer ID cannot be null");
         Objects.requireNonNull(productId, "Product ID cannot be null");
 
-        // Get customer / Получаем покупателя
-        Customer customer = getActiveEntityById(customerId);
+        if (cartStore.isEnabled()) {
+            cartStore.update(customerId, cart -> {
+                cart.remove(productId);
+                return null;
+            });
+            logger.info("Product ID {} removed from cart of customer ID {}", productId, customerId);
+            return;
+        }
+
+        // Get customer with cart positions / Получаем покупателя с позициями корзины
+        Customer customer = getActiveEntityWithCartPositions(customerId);
 
         // Check if cart exists and not empty / Проверяем наличие корзины
         if (customer == null || customer.getCart().getPositions().isEmpty()) {
@@ -370,6 +859,7 @@ public class CustomerServiceImpl implements CustomerService {
         }
 
         Cart cart = customer.getCart();
+        lockCart(cart);
 
         // Check if product exists in cart / Проверяем, есть ли такой товар в корзине
         boolean productExists = cart.getPositions().stream()
@@ -397,12 +887,22 @@ public class CustomerServiceImpl implements CustomerService {
      */
     @Override
     @Transactional
+    @CartWrite
     public void clearCart(Long customerId) {
         // Null check / Проверка параметров на null
         Objects.requireNonNull(customerId, "Customer ID cannot be null");
 
-        // Get customer / Получаем покупателя
-        Customer customer = getActiveEntityById(customerId);
+        if (cartStore.isEnabled()) {
+            cartStore.update(customerId, cart -> {
+                cart.clear();
+                return null;
+            });
+            logger.info("Cart of customer ID {} cleared", customerId);
+            return;
+        }
+
+        // Get customer with cart positions / Получаем покупателя с позициями корзины
+        Customer customer = getActiveEntityWithCartPositions(customerId);
 
         // Check if cart exists and not empty / Проверяем наличие корзины
         if (customer.getCart() == null || customer.getCart().getPositions().isEmpty()) {
@@ -412,10 +912,326 @@ public class CustomerServiceImpl implements CustomerService {
         }
 
         // Clear cart / Очищаем корзину
+        lockCart(customer.getCart());
         customer.getCart().clearCart();
         logger.info("Cart of customer ID {} cleared", customerId);
     }
 
+    /**
+     * Checks out customer's cart: creates an order from positions of active products and removes them from the cart
+     * Positions of inactive products stay in the cart until the product is restored or the position is removed.
+     * Set-based SQL in one transaction, the cart and its positions are not loaded (see CartCheckoutWriter).
+     * Only the created order is read back. In write-behind mode the live cart is written and evicted first.
+     *
+     * Оформляет корзину покупателя: создаёт заказ из позиций активных товаров и удаляет их из корзины
+     * Позиции неактивных товаров остаются в корзине, пока товар не восстановлен или позиция не удалена.
+     * Групповой SQL в одной транзакции, корзина и её позиции не загружаются (см. CartCheckoutWriter).
+     * Обратно читается только созданный заказ. В режиме отложенной записи корзина из памяти сначала записывается и удаляется.
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return created order / созданный заказ
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
+     * @throws EntityUpdateException if cart has no positions of active products / если в корзине нет позиций активных товаров
+     */
+    @Override
+    @Transactional
+    @CartWrite
+    public OrderDto checkout(Long customerId) {
+        Objects.requireNonNull(customerId, "Customer ID cannot be null");
+
+        if (cartStore.isEnabled()) {
+            cartStore.evict(customerId);
+        }
+
+        Long orderId = cartCheckoutWriter.checkout(customerId);
+        if (orderId == null) {
+            if (!customerRepository.existsByIdAndActiveTrue(customerId)) {
+                logger.warn("Active customer with ID {} not found", customerId);
+                throw new EntityNotFoundException(Customer.class, customerId);
+            }
+            throw new EntityUpdateException(
+                    String.format("Cannot checkout: Cart of customer ID %d has no available products", customerId)
+            );
+        }
+
+        logger.info("Order ID {} created from cart of customer ID {}", orderId, customerId);
+        return orderRepository.findWithLinesById(orderId)
+                .map(orderMapper::mapEntityToDto)
+                .orElseThrow(() -> new EntityNotFoundException(Order.class, orderId));
+    }
+
+    /**
+     * Applies an ordered batch of cart operations (add, set quantity, remove, clear) in one transaction
+     * Operations are applied to the quantities of the cart in order, limits are checked on the result:
+     * at most 50 different products and 100 items per position. Then the result is written to the loaded cart.
+     * Either the whole batch is applied or nothing. CLEAR of an empty cart is not an error,
+     * REMOVE of a product that is not in the cart (at that point of the batch) is.
+     *
+     * Применяет упорядоченный пакет операций с корзиной (добавление, установка количества, удаление, очистка)
+     * в одной транзакции. Операции применяются по порядку к количествам корзины, ограничения проверяются по результату:
+     * не более 50 разных товаров и 100 единиц в позиции. Затем результат записывается в загруженную корзину.
+     * Применяется либо весь пакет, либо ничего. CLEAR пустой корзины не ошибка,
+     * REMOVE товара, которого нет в корзине (на этот момент пакета), - ошибка.
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param operations operations in order / операции по порядку
+     * @return updated cart / обновлённая корзина
+     * @throws EntityUpdateException if any operation is invalid, a product is inactive or cart limits exceeded
+     *                               если операция некорректна, товар неактивен или превышены лимиты корзины
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
+     */
+    @Override
+    @Transactional
+    @CartWrite
+    public CartDto applyCartOperations(Long customerId, List<CartOperationDto> operations) {
+        Objects.requireNonNull(customerId, "Customer ID cannot be null");
+        Objects.requireNonNull(operations, "Cart operations cannot be null");
+
+        if (operations.isEmpty()) {
+            throw new EntityUpdateException("Cart operations list cannot be empty");
+        }
+
+        // Validate operations and collect products put into the cart / Проверяем операции и собираем добавляемые товары
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartOperationDto operation : operations) {
+            validateOperation(operation);
+            if (operation.getType() == CartOperationDto.Type.ADD
+                    || operation.getType() == CartOperationDto.Type.SET && operation.getQuantity() > 0) {
+                productIds.add(operation.getProductId());
+            }
+        }
+
+        if (cartStore.isEnabled()) {
+            Map<Long, ProductDto> productDtos = new HashMap<>();
+            if (!productIds.isEmpty()) {
+                for (ProductDto product : productService.getActiveProductsByIds(productIds)) {
+                    productDtos.put(product.getId(), product);
+                }
+            }
+            checkAllProductsFound(productIds, productDtos.keySet());
+
+            List<CartPositionView> rows = cartStore.update(customerId, cart -> {
+                cart.replace(applyOperations(customerId, cart.quantities(), operations), productDtos);
+                return cart.toRows();
+            });
+            logger.info("{} cart operations applied to cart of customer ID {}", operations.size(), customerId);
+            return cartViewAssembler.assembleByCustomer(rows).get(customerId);
+        }
+
+        Customer customer = getActiveEntityWithCartPositions(customerId);
+
+        // Load all products with one query / Загружаем все товары одним запросом
+        Map<Long, Product> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Product product : productService.getActiveEntitiesByIds(productIds)) {
+                products.put(product.getId(), product);
+            }
+        }
+        checkAllProductsFound(productIds, products.keySet());
+
+        Cart cart = getOrCreateCart(customer);
+        lockCart(cart);
+
+        Map<Long, Position> positions = new HashMap<>();
+        Map<Long, Integer> current = new LinkedHashMap<>();
+        for (Position position : cart.getPositions()) {
+            positions.put(position.getProduct().getId(), position);
+            current.put(position.getProduct().getId(), position.getQuantity());
+        }
+        Map<Long, Integer> result = applyOperations(customerId, current, operations);
+
+        // Write only the difference into the cart / Записываем в корзину только разницу
+        cart.getPositions().removeIf(position -> !result.containsKey(position.getProduct().getId()));
+        result.forEach((productId, quantity) -> {
+            Position position = positions.get(productId);
+            if (position == null) {
+                cart.addPosition(products.get(productId), quantity);
+            } else if (position.getQuantity() != quantity) {
+                position.setQuantity(quantity);
+            }
+        });
+        cart.recalculateTotals();
+        logger.info("{} cart operations applied to cart of customer ID {}", operations.size(), customerId);
+
+        return cartMapper.mapEntityToDto(cart);
+    }
+
+    /**
+     * Validates the shape of one cart operation
+     *
+     * Проверяет структуру одной операции с корзиной
+     *
+     * @param operation cart operation / операция с корзиной
+     * @throws EntityUpdateException if quantity is out of range / если количество вне допустимого диапазона
+     */
+    private void validateOperation(CartOperationDto operation) {
+        Objects.requireNonNull(operation, "Cart operation cannot be null");
+        Objects.requireNonNull(operation.getType(), "Cart operation type cannot be null");
+        if (operation.getType() == CartOperationDto.Type.CLEAR) {
+            return;
+        }
+
+        Objects.requireNonNull(operation.getProductId(), "Product ID cannot be null");
+        if (operation.getType() == CartOperationDto.Type.ADD) {
+            validateQuantity(operation.getQuantity());
+        } else if (operation.getType() == CartOperationDto.Type.SET
+                && (operation.getQuantity() < 0 || operation.getQuantity() > MAX_POSITION_QUANTITY)) {
+            throw new EntityUpdateException(
+                    String.format("Quantity to set must be between 0 and %d. Provided: %d",
+                            MAX_POSITION_QUANTITY, operation.getQuantity()));
+        }
+    }
+
+    /**
+     * Applies operations to cart quantities and checks cart limits on the result
+     *
+     * Применяет операции к количествам корзины и проверяет лимиты корзины по результату
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param current    current quantity by product ID / текущее количество по ID товара
+     * @param operations validated operations in order / проверенные операции по порядку
+     * @return resulting quantity by product ID, without zeros / итоговое количество по ID товара, без нулей
+     * @throws EntityUpdateException if a removed product is not in the cart or limits are exceeded
+     *                               если удаляемого товара нет в корзине или превышены лимиты
+     */
+    private Map<Long, Integer> applyOperations(Long customerId, Map<Long, Integer> current,
+                                               List<CartOperationDto> operations) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>(current);
+        for (CartOperationDto operation : operations) {
+            Long productId = operation.getProductId();
+            switch (operation.getType()) {
+                case ADD -> quantities.merge(productId, operation.getQuantity(), Integer::sum);
+                case SET -> {
+                    if (operation.getQuantity() == 0) {
+                        quantities.remove(productId);
+                    } else {
+                        quantities.put(productId, operation.getQuantity());
+                    }
+                }
+                case REMOVE -> {
+                    if (quantities.remove(productId) == null) {
+                        throw new EntityUpdateException(
+                                String.format("Product ID %d not found in cart of customer ID %d",
+                                        productId, customerId));
+                    }
+                }
+                case CLEAR -> quantities.clear();
+            }
+        }
+
+        if (quantities.size() > MAX_CART_POSITIONS) {
+            throw new EntityUpdateException(
+                    String.format("Cart cannot contain more than %d different items", MAX_CART_POSITIONS));
+        }
+        if (quantities.values().stream().anyMatch(quantity -> quantity > MAX_POSITION_QUANTITY)) {
+            throw new EntityUpdateException(
+                    String.format("Cart position cannot contain more than %d items", MAX_POSITION_QUANTITY));
+        }
+        return quantities;
+    }
+
+    /**
+     * Validates quantity of one add-to-cart operation
+     *
+     * Проверяет количество в одной операции добавления в корзину
+     *
+     * @param quantity quantity to add / количество для добавления
+     * @throws EntityUpdateException if quantity is out of range / если количество вне допустимого диапазона
+     */
+    private void validateQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new EntityUpdateException(
+                    String.format("Quantity must be positive. Provided: %d", quantity));
+        }
+
+        if (quantity > MAX_ADD_QUANTITY) {
+            throw new EntityUpdateException(
+                    String.format("Cannot add more than %d items. Provided: %d", MAX_ADD_QUANTITY, quantity)
+            );
+        }
+    }
+
+    /**
+     * Checks that every requested product was found active
+     *
+     * Проверяет, что каждый запрошенный товар найден и активен
+     *
+     * @param requestedIds requested product IDs / запрошенные ID товаров
+     * @param foundIds found active product IDs / найденные ID активных товаров
+     * @throws EntityUpdateException if some products are missing / если каких-то товаров нет
+     */
+    private void checkAllProductsFound(Set<Long> requestedIds, Set<Long> foundIds) {
+        if (foundIds.size() != requestedIds.size()) {
+            List<Long> missingIds = requestedIds.stream()
+                    .filter(id -> !foundIds.contains(id))
+                    .toList();
+            throw new EntityUpdateException(
+                    String.format("Cannot add products to cart: Products with IDs %s are not active or do not exist",
+                            missingIds));
+        }
+    }
+
+    /**
+     * Builds the error for an upsert rejected by cart limits
+     *
+     * Формирует ошибку для upsert, отклонённого ограничениями корзины
+     *
+     * @param cart customer's cart / корзина покупателя
+     * @param productId product identifier / идентификатор товара
+     * @return exception to throw / исключение для выбрасывания
+     */
+    private EntityUpdateException cartLimitException(Cart cart, Long productId) {
+        boolean inCart = cart.getPositions().stream()
+                .anyMatch(position -> position.getProduct().getId().equals(productId));
+        if (inCart) {
+            return new EntityUpdateException(
+                    String.format("Cart position cannot contain more than %d items", MAX_POSITION_QUANTITY));
+        }
+        return new EntityUpdateException(
+                String.format("Cart cannot contain more than %d different items", MAX_CART_POSITIONS));
+    }
+
+    /**
+     * Returns customer's cart, creating it if it does not exist yet
+     *
+     * Возвращает корзину покупателя, создавая её при отсутствии
+     *
+     * @param customer customer entity / сущность покупателя
+     * @return customer's cart / корзина покупателя
+     */
+    private Cart getOrCreateCart(Customer customer) {
+        Cart cart = customer.getCart();
+        if (cart == null) {
+            cart = new Cart();
+            cart.setCustomer(customer);
+            customer.setCart(cart);
+            logger.debug("New cart created for customer ID: {}", customer.getId());
+        }
+        return cart;
+    }
+
+    /**
+     * Increments the cart version right away, so concurrent changes of the same cart conflict
+     * even if they touch different positions. The cart row is locked before any position is written,
+     * in the same order as CartPositionWriter and the checkout. A cart created in this transaction needs no lock.
+     *
+     * Сразу увеличивает версию корзины, чтобы параллельные изменения одной корзины
+     * конфликтовали, даже если они затрагивают разные позиции. Строка корзины блокируется до записи любых позиций,
+     * в том же порядке, что и в CartPositionWriter и при оформлении заказа. Корзине, созданной в этой транзакции, блокировка не нужна.
+     *
+     * @param cart customer's cart / корзина покупателя
+     */
+    private void lockCart(Cart cart) {
+        if (cart.getId() != null) {
+            try {
+                entityManager.lock(cart, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+            } catch (PersistenceException e) {
+                // Same exception as the conflict on commit / То же исключение, что и при конфликте на коммите
+                throw EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            }
+        }
+    }
+
     /**
      * Adds image to customer profile
      *
@@ -1,25 +1,48 @@
 package de.ait.g_75_shop.service;
 
+import de.ait.g_75_shop.constants.Constants;
 import de.ait.g_75_shop.domain.Product;
 import de.ait.g_75_shop.dto.mapping.ProductMapper;
+import de.ait.g_75_shop.dto.product.ProductCacheStatsDto;
 import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.dto.product.ProductImportReportDto;
 import de.ait.g_75_shop.dto.product.ProductSaveDto;
+import de.ait.g_75_shop.dto.product.ProductSearchResultDto;
 import de.ait.g_75_shop.dto.product.ProductUpdateDto;
 import de.ait.g_75_shop.exceptions.types.EntityNotFoundException;
 import de.ait.g_75_shop.repository.ProductRepository;
+import de.ait.g_75_shop.repository.projection.ProductStateView;
+import de.ait.g_75_shop.service.catalog.ProductCache;
+import de.ait.g_75_shop.service.catalog.ProductCatalogStatistics;
+import de.ait.g_75_shop.service.catalog.ProductCatalogSnapshot;
+import de.ait.g_75_shop.service.catalog.ProductCatalogVersion;
+import de.ait.g_75_shop.service.catalog.ProductChangedEvent;
+import de.ait.g_75_shop.service.catalog.ProductImporter;
+import de.ait.g_75_shop.service.catalog.ProductPriceIndex;
+import de.ait.g_75_shop.service.catalog.ProductSearchIndex;
 import de.ait.g_75_shop.service.interfaces.FileService;
 import de.ait.g_75_shop.service.interfaces.ProductService;
-import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /*
@@ -50,11 +73,34 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository repository;
     private final ProductMapper mapper;
     private final FileService fileService;
+    private final ProductCatalogStatistics statistics;
+    private final ProductCache cache;
+    private final ProductImporter importer;
+    private final ProductSearchIndex searchIndex;
+    private final ProductPriceIndex priceIndex;
+    private final ProductCatalogVersion catalogVersion;
+    private final ProductCatalogSnapshot catalogSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
 
-    public ProductServiceImpl(ProductRepository repository, ProductMapper mapper, FileService fileService) {
+    public ProductServiceImpl(ProductRepository repository, ProductMapper mapper, FileService fileService,
+                              ProductCatalogStatistics statistics, ProductCache cache,
+                              ProductImporter importer, ProductSearchIndex searchIndex,
+                              ProductPriceIndex priceIndex, ProductCatalogVersion catalogVersion,
+                              ProductCatalogSnapshot catalogSnapshot,
+                              ApplicationEventPublisher eventPublisher, Validator validator) {
         this.repository = repository;
         this.mapper = mapper;
         this.fileService = fileService;
+        this.statistics = statistics;
+        this.cache = cache;
+        this.importer = importer;
+        this.searchIndex = searchIndex;
+        this.priceIndex = priceIndex;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
     }
 
     /**
@@ -77,6 +123,8 @@ public class ProductServiceImpl implements ProductService {
 
         // не всегда стоит логгировать объект целиком, ьак как он может быть очень большим
         logger.info("Product saved to the database: {}", entity);
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                entity.getId(), entity.getTitle(), null, false, entity.getPrice(), true, entity.getVersion()));
 
         return mapper.mapEntityToDto(entity);
     }
@@ -84,23 +132,59 @@ public class ProductServiceImpl implements ProductService {
 
     /**
      * Gets all active products
+     * DTOs are built by the query itself, no entities are loaded
      *
      * Получает все активные товары
+     * DTO создаются самим запросом, сущности не загружаются
      *
      * @return list of active product DTOs / список DTO активных товаров
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductDto> getAllActiveProducts() {
-        return repository.findAllByActiveTrue()
-                .stream()
-                .map(mapper::mapEntityToDto)
-                .toList();
+        return repository.findAllActiveDtos();
+    }
+
+    /**
+     * Gets one page of active products ordered by ID (keyset pagination)
+     *
+     * Получает одну страницу активных товаров, упорядоченных по ID (keyset-пагинация)
+     *
+     * @param afterId last ID of previous page, null for the first page / последний ID предыдущей страницы, null для первой
+     * @param size    page size, limited by MAX_PAGE_SIZE / размер страницы, ограничен MAX_PAGE_SIZE
+     * @return list of active product DTOs / список DTO активных товаров
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDto> getActiveProductsPage(Long afterId, int size) {
+        return repository.findActiveDtosAfter(afterId == null ? 0L : afterId, Limit.of(clampLimit(size)));
+    }
+
+    /**
+     * Streams all active products to the consumer one by one
+     * Rows are read as DTOs, nothing is kept in the persistence context, so memory does not grow with table size
+     *
+     * Передаёт все активные товары потребителю по одному
+     * Строки читаются как DTO, в контексте персистентности ничего не хранится, поэтому память не растёт с размером таблицы
+     *
+     * @param consumer receiver of product DTOs / получатель DTO товаров
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllActiveProducts(Consumer<ProductDto> consumer) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+
+        try (Stream<ProductDto> products = repository.streamAllActiveDtos()) {
+            products.forEach(consumer);
+        }
     }
 
     /**
      * Gets active product entity by ID
+     * Served from product cache; returned entity is detached and shared, it must not be modified
      *
      * Получает активный товар (сущность) по ID
+     * Берётся из кэша товаров; возвращаемая сущность отсоединена и разделяется, изменять её нельзя
      *
      * @param id product identifier / идентификатор товара
      * @return product entity / сущность товара
@@ -109,45 +193,252 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public Product getActiveEntityById(Long id) {
         Objects.requireNonNull(id, "Product id cannot be null");
-        return repository.findByIdAndActiveTrue(id)
-                .orElseThrow(
-                        () -> new EntityNotFoundException(Product.class, id)
-                );
+        return cache.getOrLoad(id, () -> findActiveEntity(id)).getEntity();
     }
 
     /**
      * Gets active product DTO by ID
+     * Served from product cache
      *
      * Получает активный товар (DTO) по ID
+     * Берётся из кэша товаров
      *
      * @param id product identifier / идентификатор товара
      * @return product DTO / DTO товара
      */
     @Override
     public ProductDto getActiveProductById(Long id) {
-        Product product = getActiveEntityById(id);
-        return mapper.mapEntityToDto(product);
+        Objects.requireNonNull(id, "Product id cannot be null");
+        return cache.getOrLoad(id, () -> findActiveEntity(id)).getDto();
+    }
+
+    /**
+     * Gets version of active product (changes on every product update)
+     * Served from product cache, used as ETag of the product
+     *
+     * Получает версию активного товара (меняется при каждом изменении товара)
+     * Берётся из кэша товаров, используется как ETag товара
+     *
+     * @param id product identifier / идентификатор товара
+     * @return product version / версия товара
+     */
+    @Override
+    public long getActiveProductVersion(Long id) {
+        Long version = getActiveEntityById(id).getVersion();
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Gets pre-serialized JSON of all active products
+     * No database access; null while the snapshot is being regenerated after a change
+     *
+     * Получает заранее сериализованный JSON всех активных товаров
+     * Без обращения к БД; null, пока снимок пересобирается после изменения
+     *
+     * @return current snapshot or null / актуальный снимок или null
+     */
+    @Override
+    public ProductCatalogSnapshot.Snapshot getCatalogSnapshot() {
+        return catalogSnapshot.getIfCurrent();
+    }
+
+    /**
+     * Gets catalog version tag (changes on every product write)
+     * Used as ETag of product lists
+     *
+     * Получает тег версии каталога (меняется при каждом изменении товаров)
+     * Используется как ETag списков товаров
+     *
+     * @return catalog version tag / тег версии каталога
+     */
+    @Override
+    public String getCatalogVersion() {
+        return catalogVersion.getTag();
+    }
+
+    /**
+     * Gets time of the last catalog change
+     *
+     * Получает время последнего изменения каталога
+     *
+     * @return epoch milliseconds / время в миллисекундах
+     */
+    @Override
+    public long getCatalogLastModified() {
+        return catalogVersion.getLastModified();
+    }
+
+    /**
+     * Gets active product entities by IDs
+     * Cached products are taken from the cache, all others are loaded with one IN query.
+     * Missing and inactive IDs are skipped. Returned entities are detached and must not be modified.
+     *
+     * Получает активные товары (сущности) по списку ID
+     * Закэшированные товары берутся из кэша, остальные загружаются одним запросом IN.
+     * Отсутствующие и неактивные ID пропускаются. Возвращаемые сущности отсоединены, изменять их нельзя.
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return active products in request order / активные товары в порядке запроса
+     */
+    @Override
+    public List<Product> getActiveEntitiesByIds(Collection<Long> ids) {
+        Objects.requireNonNull(ids, "Product ids cannot be null");
+        return cache.getAllOrLoad(new LinkedHashSet<>(ids), repository::findAllByIdInAndActiveTrue)
+                .values()
+                .stream()
+                .map(ProductCache.CachedProduct::getEntity)
+                .toList();
+    }
+
+    /**
+     * Gets active product DTOs by IDs
+     *
+     * Получает активные товары (DTO) по списку ID
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return active product DTOs in request order / DTO активных товаров в порядке запроса
+     */
+    @Override
+    public List<ProductDto> getActiveProductsByIds(Collection<Long> ids) {
+        Objects.requireNonNull(ids, "Product ids cannot be null");
+        return cache.getAllOrLoad(new LinkedHashSet<>(ids), repository::findAllByIdInAndActiveTrue)
+                .values()
+                .stream()
+                .map(ProductCache.CachedProduct::getDto)
+                .toList();
+    }
+
+    /**
+     * Searches active products by title using the in-memory search index
+     * Only the requested page is resolved to DTOs (through the product cache)
+     *
+     * Ищет активные товары по названию с помощью поискового индекса в памяти
+     * В DTO преобразуется только запрошенная страница (через кэш товаров)
+     *
+     * @param query search text / текст поиска
+     * @param page page number starting from 0 / номер страницы, начиная с 0
+     * @param size page size / размер страницы
+     * @return page of ranked products / страница товаров по релевантности
+     */
+    @Override
+    public ProductSearchResultDto searchProducts(String query, int page, int size) {
+        Objects.requireNonNull(query, "Search query cannot be null");
+
+        int limit = Math.max(1, Math.min(size, Constants.MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        int offset = (int) Math.min((long) pageNumber * limit, Integer.MAX_VALUE);
+
+        ProductSearchIndex.SearchResult result = searchIndex.search(query, offset, limit);
+        List<ProductDto> products = result.getIds().isEmpty()
+                ? List.of()
+                : getActiveProductsByIds(result.getIds());
+        return new ProductSearchResultDto(result.getTotal(), pageNumber, limit, products);
+    }
+
+    /**
+     * Gets active products with price in range (inclusive), cheapest first
+     * Served from the in-memory price index when it is ready, otherwise from the database
+     *
+     * Получает активные товары с ценой в диапазоне (включительно), от дешёвых к дорогим
+     * Обслуживается индексом цен в памяти, если он готов, иначе - из БД
+     *
+     * @param min minimum price / минимальная цена
+     * @param max maximum price / максимальная цена
+     * @param limit maximum number of products / максимальное количество товаров
+     * @return list of product DTOs / список DTO товаров
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDto> getActiveProductsByPriceRange(BigDecimal min, BigDecimal max, int limit) {
+        Objects.requireNonNull(min, "Minimum price cannot be null");
+        Objects.requireNonNull(max, "Maximum price cannot be null");
+
+        if (min.compareTo(max) > 0) {
+            return List.of();
+        }
+
+        int clamped = clampLimit(limit);
+        if (priceIndex.isReady()) {
+            return getActiveProductsByIds(priceIndex.findIdsByPriceRange(min, max, clamped));
+        }
+        return repository.findActiveDtosByPriceRange(min, max, Limit.of(clamped));
+    }
+
+    /**
+     * Gets the cheapest active products
+     *
+     * Получает самые дешёвые активные товары
+     *
+     * @param limit number of products / количество товаров
+     * @return list of product DTOs, cheapest first / список DTO товаров, начиная с самого дешёвого
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDto> getCheapestActiveProducts(int limit) {
+        int clamped = clampLimit(limit);
+        if (priceIndex.isReady()) {
+            return getActiveProductsByIds(priceIndex.findCheapestIds(clamped));
+        }
+        return repository.findCheapestActiveDtos(Limit.of(clamped));
+    }
+
+    /**
+     * Gets the most expensive active products
+     *
+     * Получает самые дорогие активные товары
+     *
+     * @param limit number of products / количество товаров
+     * @return list of product DTOs, most expensive first / список DTO товаров, начиная с самого дорогого
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDto> getMostExpensiveActiveProducts(int limit) {
+        int clamped = clampLimit(limit);
+        if (priceIndex.isReady()) {
+            return getActiveProductsByIds(priceIndex.findMostExpensiveIds(clamped));
+        }
+        return repository.findMostExpensiveActiveDtos(Limit.of(clamped));
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, Constants.MAX_PAGE_SIZE));
     }
 
     /**
      * Updates product price
+     * The product state is read and locked without loading the entity, then changed with one UPDATE.
+     * The new price is validated with the constraints of Product.price, as a flush would do.
      *
      * Обновляет цену товара
+     * Состояние товара читается и блокируется без загрузки сущности, затем изменяется одним UPDATE.
+     * Новая цена проверяется ограничениями Product.price, как это сделал бы flush.
      *
      * @param id product identifier / идентификатор товара
      * @param updateDto DTO with new price / DTO с новой ценой
+     * @throws EntityNotFoundException if product not found / если товар не найден
      */
     @Override
     @Transactional
     public void update(Long id, ProductUpdateDto updateDto) {
         Objects.requireNonNull(id, "Product id cannot be null");
-        Objects.requireNonNull(id, "ProductUpdateDto cannot be null");
+        Objects.requireNonNull(updateDto, "ProductUpdateDto cannot be null");
 
-        repository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Product.class, id))
-                .setPrice(updateDto.getNewPrice());
+        BigDecimal newPrice = updateDto.getNewPrice();
+        Set<ConstraintViolation<Product>> violations = validator.validateValue(Product.class, "price", newPrice);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+
+        List<ProductStateView> states = repository.lockStates(List.of(id));
+        if (states.isEmpty() || repository.updatePrice(id, newPrice) == 0) {
+            throw new EntityNotFoundException(Product.class, id);
+        }
+        ProductStateView product = states.get(0);
 
-        logger.info("Product id {} updated, new price : {}", id, updateDto.getNewPrice());
+        logger.info("Product id {} updated, new price : {}", id, newPrice);
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                id, product.getTitle(), product.getPrice(), product.isActive(), newPrice, product.isActive(),
+                product.getVersion() + 1));
     }
 
     /**
@@ -156,17 +447,16 @@ public class ProductServiceImpl implements ProductService {
      * Мягкое удаление товара (деактивация)
      *
      * @param id product identifier / идентификатор товара
+     * @throws EntityNotFoundException if active product not found / если активный товар не найден
      */
     @Override
     @Transactional
     public void deleteById(Long id) {
-        getActiveEntityById(id).setActive(false);
+        Objects.requireNonNull(id, "Product id cannot be null");
+        if (changeActive(List.of(id), false) == 0) {
+            throw new EntityNotFoundException(Product.class, id);
+        }
         logger.info("Product id {} marked as inactive", id);
-//        repository.findByIdAndActiveTrue(id)
-//                .ifPresent(x -> {
-//                    x.setActive(false);
-//                    logger.info("Product id {} marked as inactive", id);
-//                });
     }
 
     /**
@@ -175,65 +465,171 @@ public class ProductServiceImpl implements ProductService {
      * Восстанавливает удаленный товар (активация)
      *
      * @param id product identifier / идентификатор товара
+     * @throws EntityNotFoundException if product not found / если товар не найден
      */
     @Override
     @Transactional
     public void restoreById(Long id) {
         Objects.requireNonNull(id, "Product id cannot be null");
-        repository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Product.class, id))
-                .setActive(true);
+        if (changeActive(List.of(id), true) == 0 && !repository.existsById(id)) {
+            throw new EntityNotFoundException(Product.class, id);
+        }
         logger.info("Product id {} marked as active", id);
-//                .ifPresent(x -> {
-//                    x.setActive(true);
-//                    logger.info("Product id {} marked as active", id);
-//                });
+    }
+
+    /**
+     * Restores several previously deleted products (admin tooling)
+     * Missing and already active products are skipped
+     *
+     * Восстанавливает несколько удалённых товаров (инструменты администратора)
+     * Отсутствующие и уже активные товары пропускаются
+     *
+     * @param ids product identifiers / идентификаторы товаров
+     * @return number of restored products / количество восстановленных товаров
+     */
+    @Override
+    @Transactional
+    public int restoreByIds(Collection<Long> ids) {
+        Objects.requireNonNull(ids, "Product ids cannot be null");
+        List<Long> uniqueIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        int restored = changeActive(uniqueIds, true);
+        logger.info("{} of {} products marked as active", restored, uniqueIds.size());
+        return restored;
+    }
+
+    /**
+     * Sets the active flag of products with one locking read of their state and one UPDATE
+     * per MAX_BULK_IDS_PER_STATEMENT IDs, then publishes ProductChangedEvent for every changed product.
+     * Products whose flag already has the requested value are not changed.
+     *
+     * Устанавливает флаг активности товаров одним блокирующим чтением их состояния и одним UPDATE
+     * на каждые MAX_BULK_IDS_PER_STATEMENT ID, затем публикует ProductChangedEvent для каждого изменённого товара.
+     * Товары, у которых флаг уже имеет нужное значение, не изменяются.
+     *
+     * @param ids    distinct product identifiers / уникальные идентификаторы товаров
+     * @param active new active flag / новый флаг активности
+     * @return number of changed products / количество изменённых товаров
+     */
+    private int changeActive(List<Long> ids, boolean active) {
+        int changed = 0;
+        for (int from = 0; from < ids.size(); from += Constants.MAX_BULK_IDS_PER_STATEMENT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + Constants.MAX_BULK_IDS_PER_STATEMENT, ids.size()));
+            List<ProductStateView> toChange = repository.lockStates(chunk).stream()
+                    .filter(state -> state.isActive() != active)
+                    .toList();
+            if (toChange.isEmpty()) {
+                continue;
+            }
+
+            changed += repository.updateActive(chunk, active);
+            for (ProductStateView product : toChange) {
+                eventPublisher.publishEvent(new ProductChangedEvent(
+                        product.getId(), product.getTitle(), product.getPrice(), !active, product.getPrice(), active,
+                        product.getVersion() + 1));
+            }
+        }
+        return changed;
     }
 
     /**
      * Gets count of active products
+     * Served from running catalog statistics, no database access
      *
      * Получает количество активных товаров
+     * Берётся из текущей статистики каталога, без обращения к БД
      *
      * @return count of active products / количество активных товаров
      */
     @Override
     public long getAllActiveProductsCount() {
-        return repository.countByActiveTrue();
+        return statistics.getCount();
     }
 
     /**
      * Gets total cost of all active products
+     * Served from running catalog statistics, no database access
      *
      * Получает общую стоимость всех активных товаров
+     * Берётся из текущей статистики каталога, без обращения к БД
      *
      * @return total cost / общая стоимость
      */
     @Override
     public BigDecimal getAllActiveProductsTotalCost() {
-
-        return repository.findAllByActiveTrue()
-                .stream()
-                .map(Product::getPrice)
-                .reduce(BigDecimal::add)
-                .orElse(BigDecimal.ZERO);
+        return statistics.getTotalCost();
     }
 
     /**
      * Gets average price of active products
+     * Served from running catalog statistics, no database access
      *
      * Получает среднюю цену активных товаров
+     * Берётся из текущей статистики каталога, без обращения к БД
      *
      * @return average price / средняя цена
      */
     @Override
     public BigDecimal getAllActiveProductsAveragePrice() {
-        long productsCount = getAllActiveProductsCount();
-        if (productsCount == 0) {
-            return BigDecimal.ZERO;
-        }
-        return getAllActiveProductsTotalCost().divide(
-                BigDecimal.valueOf(productsCount), 2, RoundingMode.HALF_UP);
+        return statistics.getAveragePrice();
+    }
+
+    /**
+     * Checks catalog statistics against the database and rebuilds them on mismatch
+     *
+     * Сверяет статистику каталога с БД и пересчитывает её при расхождении
+     *
+     * @return true if statistics were consistent / true, если статистика совпадала
+     */
+    @Override
+    public boolean verifyStatistics() {
+        return statistics.verify();
+    }
+
+    /**
+     * Gets product cache counters
+     *
+     * Получает счётчики кэша товаров
+     *
+     * @return cache statistics / статистика кэша
+     */
+    @Override
+    public ProductCacheStatsDto getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Imports products from CSV body
+     * Rows are inserted in JDBC batches, each batch in its own transaction
+     *
+     * Импортирует товары из тела в формате CSV
+     * Строки вставляются JDBC-пакетами, каждый пакет в своей транзакции
+     *
+     * @param in CSV body with title and price columns / CSV с колонками title и price
+     * @return per-row import report / отчёт об импорте по строкам
+     */
+    @Override
+    public ProductImportReportDto importProductsFromCsv(InputStream in) {
+        Objects.requireNonNull(in, "Import body cannot be null");
+        return importer.importCsv(in);
+    }
+
+    /**
+     * Imports products from JSON array body
+     * Rows are inserted in JDBC batches, each batch in its own transaction
+     *
+     * Импортирует товары из тела в формате JSON-массива
+     * Строки вставляются JDBC-пакетами, каждый пакет в своей транзакции
+     *
+     * @param in JSON array of products / JSON-массив товаров
+     * @return per-row import report / отчёт об импорте по строкам
+     */
+    @Override
+    public ProductImportReportDto importProductsFromJson(InputStream in) {
+        Objects.requireNonNull(in, "Import body cannot be null");
+        return importer.importJson(in);
     }
 
     /**
@@ -263,11 +659,31 @@ public class ProductServiceImpl implements ProductService {
     public void addImage(Long id, MultipartFile image) throws IOException {
         Objects.requireNonNull(id, "Product id cannot be null");
 
-        Product product = getActiveEntityById(id);
+        Product product = findActiveEntity(id);
         // Upload file and get URL / Загружаем файл и получаем ссылку
         String imageUrl = fileService.uploadAndGetUrl(image);
         // Set image URL to product / Присваиваем ссылку товару
         product.setImageUrl(imageUrl);
+        // Flush to get the incremented version for the event / Сбрасываем, чтобы получить увеличенную версию для события
+        repository.flush();
+        eventPublisher.publishEvent(new ProductChangedEvent(
+                id, product.getTitle(), product.getPrice(), true, product.getPrice(), true, product.getVersion()));
+    }
+
+    /**
+     * Loads active product entity from the database, bypassing the cache
+     * Used by write methods, which need a managed entity
+     *
+     * Загружает активный товар из БД в обход кэша
+     * Используется методами записи, которым нужна управляемая сущность
+     *
+     * @param id product identifier / идентификатор товара
+     * @return managed product entity / управляемая сущность товара
+     */
+    private Product findActiveEntity(Long id) {
+        return repository.findByIdAndActiveTrue(id)
+                .orElseThrow(
+                        () -> new EntityNotFoundException(Product.class, id)
+                );
     }
-}
-// RoundingMode.HALF_UP - способы округления остатка
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package de.ait.g_75_shop.service.cart;
+
+import de.ait.g_75_shop.dto.cart.CartSweeperStatsDto;
+import de.ait.g_75_shop.exceptions.types.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clears carts not changed by their customers for longer than cart.sweeper.idle-period
+ * Carts are swept in batches of cart.sweeper.batch-size carts, every batch is its own short transaction:
+ * idle carts are locked with FOR UPDATE SKIP LOCKED, then their positions are deleted and their stored totals
+ * reset. A customer writing the cart either holds its lock (the cart is skipped until the next run) or waits
+ * and writes to the cleared cart; the update time is checked on the locked row. The cart rows themselves are kept.
+ * With the write-behind store the live carts of active customers are cleared through the store instead,
+ * so a cart changed in memory but not yet written is not cleared.
+ * Removed rows and time spent are counted and exposed through getStats() and the log.
+ *
+ * Очищает корзины, не изменявшиеся покупателями дольше cart.sweeper.idle-period
+ * Корзины обрабатываются пакетами по cart.sweeper.batch-size корзин, каждый пакет - отдельная короткая транзакция:
+ * неактивные корзины блокируются через FOR UPDATE SKIP LOCKED, затем их позиции удаляются, а хранимые итоги
+ * сбрасываются. Покупатель, изменяющий корзину, либо держит её блокировку (корзина пропускается до следующего
+ * запуска), либо ждёт и пишет в уже очищенную корзину; время изменения проверяется на заблокированной строке.
+ * Сами строки корзин сохраняются.
+ * При хранилище с отложенной записью корзины активных покупателей очищаются через хранилище,
+ * поэтому корзина, изменённая в памяти, но ещё не записанная, не очищается.
+ * Удалённые строки и затраченное время подсчитываются и доступны через getStats() и журнал.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private static final String IDLE_CARTS =
+            "FROM cart c WHERE c.updated_at < ? AND EXISTS (SELECT 1 FROM position p WHERE p.cart_id = c.id) ";
+    private static final String OF_ACTIVE_CUSTOMER =
+            "EXISTS (SELECT 1 FROM customer cu WHERE cu.id = c.customer_id AND cu.active = true) ";
+
+    private static final String LOCK_IDLE_CARTS_SQL =
+            "SELECT c.id " + IDLE_CARTS + "ORDER BY c.id LIMIT ? FOR UPDATE SKIP LOCKED";
+    // Carts of inactive customers are not loaded by the write-behind store
+    // Корзины неактивных покупателей не загружаются хранилищем с отложенной записью
+    private static final String LOCK_IDLE_CARTS_OF_INACTIVE_SQL =
+            "SELECT c.id " + IDLE_CARTS + "AND NOT " + OF_ACTIVE_CUSTOMER + "ORDER BY c.id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_IDLE_LIVE_CARTS_SQL =
+            "SELECT c.id, c.customer_id " + IDLE_CARTS + "AND " + OF_ACTIVE_CUSTOMER + "AND c.id > ? " +
+            "ORDER BY c.id LIMIT ?";
+    private static final String DELETE_CART_POSITIONS_SQL = "DELETE FROM position WHERE cart_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartTotalsWriter cartTotalsWriter;
+    private final WriteBehindCartStore cartStore;
+    private final boolean enabled;
+    private final Duration idlePeriod;
+    private final int batchSize;
+
+    private final LongAdder removedPositions = new LongAdder();
+    private final LongAdder clearedCarts = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public AbandonedCartSweeper(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                CartTotalsWriter cartTotalsWriter,
+                                WriteBehindCartStore cartStore,
+                                @Value("${cart.sweeper.enabled:true}") boolean enabled,
+                                @Value("${cart.sweeper.idle-period:30d}") Duration idlePeriod,
+                                @Value("${cart.sweeper.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cartTotalsWriter = cartTotalsWriter;
+        this.cartStore = cartStore;
+        this.enabled = enabled;
+        this.idlePeriod = idlePeriod;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Scheduled run of the sweeper, does nothing if it is disabled
+     * Запуск сборщика по расписанию, ничего не делает, если он отключён
+     */
+    @Scheduled(
+            initialDelayString = "${cart.sweeper.interval-ms:3600000}",
+            fixedDelayString = "${cart.sweeper.interval-ms:3600000}"
+    )
+    public void sweepScheduled() {
+        if (enabled) {
+            sweep(LocalDateTime.now().minus(idlePeriod));
+        }
+    }
+
+    /**
+     * Clears all carts not changed since the given time
+     * Очищает все корзины, не изменявшиеся с указанного времени
+     *
+     * @param idleBefore carts not changed since this time are cleared / очищаются корзины без изменений с этого времени
+     * @return number of removed positions / количество удалённых позиций
+     */
+    public long sweep(LocalDateTime idleBefore) {
+        long start = System.nanoTime();
+
+        Swept swept;
+        if (cartStore.isEnabled()) {
+            swept = clearLiveCarts(idleBefore)
+                    .plus(deleteLocked(LOCK_IDLE_CARTS_OF_INACTIVE_SQL, idleBefore));
+        } else {
+            swept = deleteLocked(LOCK_IDLE_CARTS_SQL, idleBefore);
+        }
+
+        long nanos = System.nanoTime() - start;
+        removedPositions.add(swept.positions);
+        clearedCarts.add(swept.carts);
+        runs.increment();
+        totalNanos.add(nanos);
+        lastRunMillis.set(TimeUnit.NANOSECONDS.toMillis(nanos));
+
+        if (swept.positions > 0) {
+            logger.info("Abandoned cart sweep: {} positions removed from {} carts in {} ms",
+                    swept.positions, swept.carts, lastRunMillis.get());
+        } else {
+            logger.debug("Abandoned cart sweep: nothing to remove ({} ms)", lastRunMillis.get());
+        }
+        return swept.positions;
+    }
+
+    /**
+     * Returns runs, removed rows and time spent since startup
+     * Возвращает запуски, удалённые строки и затраченное время с момента запуска
+     *
+     * @return sweeper statistics / статистика сборщика
+     */
+    public CartSweeperStatsDto getStats() {
+        return new CartSweeperStatsDto(runs.sum(), removedPositions.sum(), clearedCarts.sum(),
+                TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()), lastRunMillis.get());
+    }
+
+    /**
+     * Locks a batch of idle carts, deletes their positions and resets their totals in one transaction,
+     * until a batch is not full
+     * Блокирует пакет неактивных корзин, удаляет их позиции и сбрасывает итоги одной транзакцией,
+     * пока пакет не окажется неполным
+     */
+    private Swept deleteLocked(String lockSql, LocalDateTime idleBefore) {
+        Swept total = Swept.NONE;
+        Swept batch;
+        do {
+            batch = transactionTemplate.execute(status -> deleteLockedBatch(lockSql, idleBefore));
+            total = total.plus(batch);
+        } while (batch.carts == batchSize);
+        return total;
+    }
+
+    private Swept deleteLockedBatch(String lockSql, LocalDateTime idleBefore) {
+        List<Long> cartIds = jdbcTemplate.queryForList(lockSql, Long.class, idleBefore, batchSize);
+        if (cartIds.isEmpty()) {
+            return Swept.NONE;
+        }
+
+        List<Object[]> args = cartIds.stream()
+                .map(cartId -> new Object[]{cartId})
+                .toList();
+        long positions = 0;
+        for (int deleted : jdbcTemplate.batchUpdate(DELETE_CART_POSITIONS_SQL, args)) {
+            positions += Math.max(0, deleted);
+        }
+        cartTotalsWriter.recalculateSweptCarts(cartIds);
+        return new Swept(positions, cartIds.size());
+    }
+
+    /**
+     * Clears idle carts of active customers through the write-behind store, batch by batch,
+     * and writes every batch with one flush
+     * Очищает неактивные корзины активных покупателей через хранилище с отложенной записью, пакет за пакетом,
+     * и записывает каждый пакет одной записью
+     */
+    private Swept clearLiveCarts(LocalDateTime idleBefore) {
+        Swept total = Swept.NONE;
+        long afterId = 0;
+        List<IdleCart> idleCarts;
+        do {
+            idleCarts = jdbcTemplate.query(SELECT_IDLE_LIVE_CARTS_SQL,
+                    (rs, rowNum) -> new IdleCart(rs.getLong(1), rs.getLong(2)),
+                    idleBefore, afterId, batchSize);
+
+            for (IdleCart idleCart : idleCarts) {
+                afterId = idleCart.cartId;
+                try {
+                    int removed = cartStore.clearIfIdle(idleCart.customerId, idleBefore);
+                    if (removed > 0) {
+                        total = total.plus(new Swept(removed, 1));
+                    }
+                } catch (EntityNotFoundException e) {
+                    // Deactivated meanwhile, swept with the carts of inactive customers next time
+                    // Деактивирован за это время, очищается вместе с корзинами неактивных покупателей в следующий раз
+                    logger.debug("Customer ID {} deactivated during the sweep", idleCart.customerId);
+                }
+            }
+            cartStore.flush();
+        } while (idleCarts.size() == batchSize);
+        return total;
+    }
+
+    private record IdleCart(long cartId, long customerId) {
+    }
+
+    /**
+     * Removed positions and cleared carts of a part of the run
+     * Удалённые позиции и очищенные корзины части запуска
+     */
+    private record Swept(long positions, long carts) {
+        private static final Swept NONE = new Swept(0, 0);
+
+        private Swept plus(Swept other) {
+            return new Swept(positions + other.positions, carts + other.carts);
+        }
+    }
+}
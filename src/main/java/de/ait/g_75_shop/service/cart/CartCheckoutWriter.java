@@ -0,0 +1,99 @@
+package de.ait.g_75_shop.service.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Converts a cart into an order with set-based SQL, positions are never loaded into Java
+ * 1. The cart row is locked by incrementing its version: concurrent cart writes wait for the checkout
+ *    (SQL writes) or conflict with it (JPA writes).
+ * 2. The order row is inserted from the stored cart totals (positions of active products only).
+ * 3. Order lines are copied from the positions with the current product prices by one INSERT ... SELECT.
+ * 4. Ordered positions are removed from the cart and its totals are recalculated. Positions of inactive
+ *    products are not ordered and stay in the cart, they count again when the product is restored.
+ * All steps run in the surrounding transaction.
+ *
+ * Преобразует корзину в заказ групповым SQL, позиции никогда не загружаются в Java
+ * 1. Строка корзины блокируется увеличением её версии: параллельные записи в корзину ждут оформления
+ *    (записи через SQL) или конфликтуют с ним (записи через JPA).
+ * 2. Строка заказа вставляется из хранимых итогов корзины (только позиции активных товаров).
+ * 3. Строки заказа копируются из позиций с текущими ценами товаров одним INSERT ... SELECT.
+ * 4. Заказанные позиции удаляются из корзины, её итоги пересчитываются. Позиции неактивных товаров
+ *    не заказываются и остаются в корзине, они снова учитываются после восстановления товара.
+ * Все шаги выполняются в окружающей транзакции.
+ */
+@Component
+public class CartCheckoutWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartCheckoutWriter.class);
+
+    private static final String LOCK_CART_SQL =
+            "UPDATE cart SET version = version + 1 WHERE customer_id = ? " +
+            "AND EXISTS (SELECT 1 FROM customer c WHERE c.id = cart.customer_id AND c.active = true)";
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (customer_id, total_price, total_quantity, created_at) " +
+            "SELECT customer_id, total_price, total_quantity, CURRENT_TIMESTAMP FROM cart " +
+            "WHERE customer_id = ? AND total_quantity > 0";
+
+    private static final String INSERT_ORDER_LINES_SQL =
+            "INSERT INTO order_line (order_id, product_id, price, quantity) " +
+            "SELECT ?, p.product_id, pr.price, p.quantity FROM position p " +
+            "JOIN cart ON cart.id = p.cart_id JOIN product pr ON pr.id = p.product_id " +
+            "WHERE cart.customer_id = ? AND pr.active = true ORDER BY p.id";
+
+    private static final String REMOVE_ORDERED_POSITIONS_SQL =
+            "DELETE FROM position WHERE cart_id = (SELECT id FROM cart WHERE customer_id = ?) " +
+            "AND product_id IN (SELECT id FROM product WHERE active = true)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CartTotalsWriter cartTotalsWriter;
+
+    public CartCheckoutWriter(JdbcTemplate jdbcTemplate, CartTotalsWriter cartTotalsWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cartTotalsWriter = cartTotalsWriter;
+    }
+
+    /**
+     * Creates an order from the cart of an active customer and removes the ordered positions
+     * Must be called inside the surrounding transaction
+     *
+     * Создаёт заказ из корзины активного покупателя и удаляет заказанные позиции
+     * Должен вызываться внутри окружающей транзакции
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return order identifier, null if the customer is not active, has no cart
+     * or no positions of active products / идентификатор заказа, null, если покупатель не активен,
+     * у него нет корзины или позиций активных товаров
+     */
+    public Long checkout(Long customerId) {
+        if (jdbcTemplate.update(LOCK_CART_SQL, customerId) == 0) {
+            return null;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int orders = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ORDER_SQL, new String[]{"id"});
+            statement.setLong(1, customerId);
+            return statement;
+        }, keyHolder);
+        if (orders == 0) {
+            return null;
+        }
+        Long orderId = keyHolder.getKeyAs(Long.class);
+
+        int lines = jdbcTemplate.update(INSERT_ORDER_LINES_SQL, orderId, customerId);
+        int removed = jdbcTemplate.update(REMOVE_ORDERED_POSITIONS_SQL, customerId);
+        cartTotalsWriter.recalculateForCustomer(customerId);
+
+        logger.debug("Order ID {} created from cart of customer ID {}: {} lines, {} positions removed",
+                orderId, customerId, lines, removed);
+        return orderId;
+    }
+}
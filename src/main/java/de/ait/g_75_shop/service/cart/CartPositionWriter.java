@@ -0,0 +1,117 @@
+package de.ait.g_75_shop.service.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds quantity of a product to a cart position with one SQL statement
+ * The cart is not loaded: the position is inserted or its quantity increased by an upsert
+ * on the unique (cart_id, product_id) constraint. Limits (positions per cart, quantity per position)
+ * and the product being active are checked in the same statement; if a limit is hit or the product
+ * is not active, no row is changed. A product deactivated after it was read from the cache is not added.
+ * The cart row is locked first by incrementing its version, as the checkout does: concurrent adds to one cart
+ * run one after another, so the positions count is never read from a snapshot without a concurrent insert,
+ * and JPA writes of the same cart conflict with the add.
+ * PostgreSQL uses INSERT ... ON CONFLICT DO UPDATE, other databases (H2 in tests) use standard MERGE;
+ * the PostgreSQL statement is not run by the tests.
+ * After a change the stored cart totals are recalculated with one more statement.
+ *
+ * Добавляет количество товара в позицию корзины одним SQL-запросом
+ * Корзина не загружается: позиция вставляется или её количество увеличивается через upsert
+ * по уникальному ограничению (cart_id, product_id). Ограничения (позиций в корзине, количества в позиции)
+ * и активность товара проверяются в том же запросе; если ограничение нарушено или товар не активен,
+ * ни одна строка не изменяется. Товар, деактивированный после чтения из кэша, не добавляется.
+ * Сначала строка корзины блокируется увеличением её версии, как при оформлении заказа: параллельные добавления
+ * в одну корзину выполняются по очереди, поэтому количество позиций не читается из снимка без параллельной вставки,
+ * а записи той же корзины через JPA конфликтуют с добавлением.
+ * PostgreSQL использует INSERT ... ON CONFLICT DO UPDATE, остальные БД (H2 в тестах) - стандартный MERGE;
+ * запрос для PostgreSQL тестами не выполняется.
+ * После изменения хранимые итоги корзины пересчитываются ещё одним запросом.
+ */
+@Component
+public class CartPositionWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartPositionWriter.class);
+
+    private static final String LOCK_CART_SQL =
+            "UPDATE cart SET version = version + 1 WHERE customer_id = ? " +
+            "AND EXISTS (SELECT 1 FROM customer c WHERE c.id = cart.customer_id AND c.active = true)";
+
+    // Not executed by any test: the integration tests run on H2, which has no ON CONFLICT DO UPDATE,
+    // so only MERGE_SQL is covered. Keep both statements in step when changing one of them.
+    // Не выполняется ни одним тестом: интеграционные тесты работают на H2, где нет ON CONFLICT DO UPDATE,
+    // поэтому покрыт только MERGE_SQL. При изменении одного запроса меняйте и второй.
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO position (cart_id, product_id, quantity) " +
+            "SELECT cart.id, pr.id, ? FROM cart JOIN customer c ON c.id = cart.customer_id " +
+            "JOIN product pr ON pr.id = ? AND pr.active = true " +
+            "WHERE c.id = ? AND c.active = true " +
+            "AND ((SELECT COUNT(*) FROM position p WHERE p.cart_id = cart.id) < ? " +
+            "OR EXISTS (SELECT 1 FROM position p WHERE p.cart_id = cart.id AND p.product_id = ?)) " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE " +
+            "SET quantity = position.quantity + EXCLUDED.quantity, version = position.version + 1, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE position.quantity + EXCLUDED.quantity <= ?";
+
+    private static final String MERGE_SQL =
+            "MERGE INTO position p " +
+            "USING (SELECT cart.id AS cart_id, pr.id AS product_id, CAST(? AS INT) AS quantity " +
+            "FROM cart JOIN customer c ON c.id = cart.customer_id " +
+            "JOIN product pr ON pr.id = ? AND pr.active = true " +
+            "WHERE c.id = ? AND c.active = true) s " +
+            "ON p.cart_id = s.cart_id AND p.product_id = s.product_id " +
+            "WHEN MATCHED AND p.quantity + s.quantity <= ? " +
+            "THEN UPDATE SET quantity = p.quantity + s.quantity, version = p.version + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED AND (SELECT COUNT(*) FROM position o WHERE o.cart_id = s.cart_id) < ? " +
+            "THEN INSERT (cart_id, product_id, quantity) VALUES (s.cart_id, s.product_id, s.quantity)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CartTotalsWriter cartTotalsWriter;
+    private final boolean postgres;
+
+    public CartPositionWriter(JdbcTemplate jdbcTemplate, CartTotalsWriter cartTotalsWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cartTotalsWriter = cartTotalsWriter;
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        this.postgres = database != null && database.toLowerCase().contains("postgresql");
+        logger.info("Cart position upsert uses {}", postgres ? "INSERT ... ON CONFLICT" : "MERGE");
+    }
+
+    /**
+     * Adds quantity of the product to the cart of an active customer
+     * Must be called inside the surrounding transaction
+     *
+     * Добавляет количество товара в корзину активного покупателя
+     * Должен вызываться внутри окружающей транзакции
+     *
+     * @param customerId   customer identifier / идентификатор покупателя
+     * @param productId    product identifier / идентификатор товара
+     * @param quantity     quantity to add / добавляемое количество
+     * @param maxPositions maximum number of different products in the cart / максимум разных товаров в корзине
+     * @param maxQuantity  maximum quantity of one position / максимальное количество в одной позиции
+     * @return true if the position was inserted or updated, false if the customer is not active,
+     * has no cart, the product is not active or a limit would be exceeded /
+     * true, если позиция вставлена или изменена, false, если покупатель не активен,
+     * у него нет корзины, товар не активен или ограничение было бы превышено
+     */
+    public boolean addQuantity(Long customerId, Long productId, int quantity, int maxPositions, int maxQuantity) {
+        if (jdbcTemplate.update(LOCK_CART_SQL, customerId) == 0) {
+            return false;
+        }
+
+        int updated = postgres
+                ? jdbcTemplate.update(POSTGRES_UPSERT_SQL,
+                        quantity, productId, customerId, maxPositions, productId, maxQuantity)
+                : jdbcTemplate.update(MERGE_SQL,
+                        quantity, productId, customerId, maxQuantity, maxPositions);
+        if (updated == 0) {
+            return false;
+        }
+        cartTotalsWriter.recalculateForCustomer(customerId);
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package de.ait.g_75_shop.service.cart;
+
+import de.ait.g_75_shop.service.catalog.ProductChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps stored cart totals (cart.total_price, cart.total_quantity) exact for writes done with SQL
+ * Totals are recalculated from the positions of active products with one UPDATE, which also
+ * increments the cart version, so a concurrent JPA write of the same cart cannot overwrite them.
+ * JPA writes recalculate totals in the Cart entity itself.
+ * A product price or activity change is propagated to all carts containing the product
+ * with one set-based UPDATE before the product transaction commits; it does not move cart.updated_at,
+ * which is the time of the last change by the customer.
+ *
+ * Поддерживает хранимые итоги корзины (cart.total_price, cart.total_quantity) точными при записи через SQL
+ * Итоги пересчитываются по позициям активных товаров одним UPDATE, который также
+ * увеличивает версию корзины, поэтому параллельная запись той же корзины через JPA не может их перезаписать.
+ * Записи через JPA пересчитывают итоги в самой сущности Cart.
+ * Изменение цены или активности товара распространяется на все корзины с этим товаром
+ * одним групповым UPDATE перед коммитом транзакции товара; он не сдвигает cart.updated_at,
+ * то есть время последнего изменения покупателем.
+ */
+@Component
+public class CartTotalsWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartTotalsWriter.class);
+
+    private static final String SET_TOTALS =
+            "UPDATE cart SET " +
+            "total_quantity = (SELECT COALESCE(SUM(p.quantity), 0) FROM position p " +
+            "JOIN product pr ON pr.id = p.product_id WHERE p.cart_id = cart.id AND pr.active = true), " +
+            "total_price = (SELECT COALESCE(SUM(pr.price * p.quantity), 0) FROM position p " +
+            "JOIN product pr ON pr.id = p.product_id WHERE p.cart_id = cart.id AND pr.active = true), " +
+            "version = version + 1";
+
+    // Change by the customer / Изменение покупателем
+    private static final String TOUCH = ", updated_at = CURRENT_TIMESTAMP ";
+
+    private static final String RECALCULATE_BY_CUSTOMER_SQL = SET_TOTALS + TOUCH + "WHERE customer_id = ?";
+    private static final String RECALCULATE_BY_CART_SQL = SET_TOTALS + TOUCH + "WHERE id = ?";
+    private static final String RECALCULATE_BY_PRODUCT_SQL =
+            SET_TOTALS + " WHERE id IN (SELECT p.cart_id FROM position p WHERE p.product_id = ?)";
+    private static final String RECALCULATE_SWEPT_SQL = SET_TOTALS + " WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public CartTotalsWriter(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Recalculates totals of the customer's cart
+     * Must be called inside the transaction that changed the positions
+     *
+     * Пересчитывает итоги корзины покупателя
+     * Должен вызываться внутри транзакции, изменившей позиции
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     */
+    public void recalculateForCustomer(Long customerId) {
+        jdbcTemplate.update(RECALCULATE_BY_CUSTOMER_SQL, customerId);
+    }
+
+    /**
+     * Recalculates totals of several carts with one batch
+     * Must be called inside the transaction that changed the positions
+     *
+     * Пересчитывает итоги нескольких корзин одним пакетом
+     * Должен вызываться внутри транзакции, изменившей позиции
+     *
+     * @param cartIds cart identifiers / идентификаторы корзин
+     */
+    public void recalculateCarts(Collection<Long> cartIds) {
+        if (cartIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = cartIds.stream()
+                .map(cartId -> new Object[]{cartId})
+                .toList();
+        jdbcTemplate.batchUpdate(RECALCULATE_BY_CART_SQL, args);
+    }
+
+    /**
+     * Recalculates totals of carts cleared by the abandoned cart sweeper with one batch
+     * Does not move the update time, the customer didn't change the carts.
+     * Must be called inside the transaction that locked the carts and deleted their positions.
+     *
+     * Пересчитывает итоги корзин, очищенных сборщиком заброшенных корзин, одним пакетом
+     * Не сдвигает время изменения, покупатель корзины не менял.
+     * Должен вызываться внутри транзакции, заблокировавшей корзины и удалившей их позиции.
+     *
+     * @param cartIds cart identifiers / идентификаторы корзин
+     */
+    public void recalculateSweptCarts(Collection<Long> cartIds) {
+        if (cartIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = cartIds.stream()
+                .map(cartId -> new Object[]{cartId})
+                .toList();
+        jdbcTemplate.batchUpdate(RECALCULATE_SWEPT_SQL, args);
+    }
+
+    /**
+     * Propagates a price or activity change of a product to all carts containing it
+     * Runs in the product transaction right before commit; pending JPA changes are flushed first,
+     * so the UPDATE sees the new price.
+     *
+     * Распространяет изменение цены или активности товара на все корзины, где он есть
+     * Выполняется в транзакции товара прямо перед коммитом; сначала записываются ожидающие изменения JPA,
+     * чтобы UPDATE увидел новую цену.
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        // A new product is in no cart yet / Нового товара ещё нет ни в одной корзине
+        if (event.getOldPrice() == null) {
+            return;
+        }
+        boolean priceChanged = event.getNewPrice() != null && event.getOldPrice().compareTo(event.getNewPrice()) != 0;
+        if (!priceChanged && event.wasActive() == event.isActive()) {
+            return;
+        }
+
+        entityManager.flush();
+        int carts = jdbcTemplate.update(RECALCULATE_BY_PRODUCT_SQL, event.getProductId());
+        logger.debug("Totals of {} carts recalculated after change of product ID {}", carts, event.getProductId());
+    }
+}
@@ -0,0 +1,20 @@
+package de.ait.g_75_shop.service.cart;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a transactional cart write whose first argument is the customer ID
+ * CartWriteConcurrency runs such a method outside its transaction: optionally under the customer's
+ * striped lock, and repeats the whole transaction on an optimistic lock conflict.
+ *
+ * Помечает транзакционную запись в корзину, первый аргумент которой - ID покупателя
+ * CartWriteConcurrency выполняет такой метод вне его транзакции: при необходимости под блокировкой
+ * покупателя и повторяет всю транзакцию при конфликте оптимистической блокировки.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CartWrite {
+}
@@ -0,0 +1,165 @@
+package de.ait.g_75_shop.service.cart;
+
+import jakarta.persistence.OptimisticLockException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.StaleStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency control of cart writes (methods marked with CartWrite)
+ * Cart and position rows carry a version, so two transactions changing the same cart concurrently
+ * cannot silently overwrite each other: the later commit fails with an optimistic lock conflict.
+ * This aspect wraps the transaction and repeats it with full-jitter exponential backoff,
+ * so the conflict is not visible to the client. A concurrent insert of the same cart or position
+ * (unique constraint violation) is repeated the same way.
+ * With cart.concurrency.striped-lock.enabled=true writes of one customer are additionally serialized
+ * in-process by one of cart.concurrency.striped-lock.stripes locks, which removes most conflicts
+ * on a single instance; retries still cover other instances.
+ *
+ * Управление конкурентным доступом при записи в корзину (методы, помеченные CartWrite)
+ * Строки корзины и позиций имеют версию, поэтому две транзакции, одновременно меняющие одну корзину,
+ * не могут незаметно перезаписать друг друга: более поздний коммит завершается конфликтом блокировки.
+ * Этот аспект оборачивает транзакцию и повторяет её с экспоненциальной задержкой со случайным разбросом,
+ * так что клиент конфликта не видит. Параллельная вставка одной и той же корзины или позиции
+ * (нарушение уникального ограничения) повторяется так же.
+ * При cart.concurrency.striped-lock.enabled=true записи одного покупателя дополнительно выполняются
+ * последовательно внутри процесса под одной из cart.concurrency.striped-lock.stripes блокировок, что убирает
+ * большинство конфликтов на одном экземпляре; повторы по-прежнему покрывают другие экземпляры.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1) // Outside of @Transactional / Снаружи @Transactional
+public class CartWriteConcurrency {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteConcurrency.class);
+
+    // SQL state of a unique constraint violation (PostgreSQL and H2) / SQL state нарушения уникальности
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    /**
+     * Locks by customer ID hash, null if striped locking is disabled
+     * Блокировки по хэшу ID покупателя, null, если блокировки отключены
+     */
+    private final ReentrantLock[] stripes;
+
+    private final LongAdder retries = new LongAdder();
+
+    public CartWriteConcurrency(@Value("${cart.concurrency.max-attempts:10}") int maxAttempts,
+                                @Value("${cart.concurrency.backoff-ms:5}") long backoffMs,
+                                @Value("${cart.concurrency.max-backoff-ms:200}") long maxBackoffMs,
+                                @Value("${cart.concurrency.striped-lock.enabled:false}") boolean stripedLock,
+                                @Value("${cart.concurrency.striped-lock.stripes:64}") int stripeCount) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(1, backoffMs);
+        this.maxBackoffMs = Math.max(this.backoffMs, maxBackoffMs);
+        if (stripedLock) {
+            stripes = new ReentrantLock[Math.max(1, stripeCount)];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new ReentrantLock();
+            }
+        } else {
+            stripes = null;
+        }
+    }
+
+    /**
+     * Runs the cart write under the customer's lock (if enabled) and retries it on conflicts
+     * A call inside an already running transaction is not retried here, the outermost caller owns the retry.
+     *
+     * Выполняет запись в корзину под блокировкой покупателя (если включена) и повторяет её при конфликтах
+     * Вызов внутри уже идущей транзакции здесь не повторяется, повтор выполняет самый внешний вызов.
+     *
+     * @param joinPoint  cart write / запись в корзину
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return result of the write / результат записи
+     * @throws Throwable the last conflict if all attempts failed, or any other error
+     *                   последний конфликт, если все попытки не удались, или любая другая ошибка
+     */
+    @Around("@annotation(de.ait.g_75_shop.service.cart.CartWrite) && args(customerId, ..)")
+    public Object around(ProceedingJoinPoint joinPoint, Long customerId) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        ReentrantLock lock = stripes == null || customerId == null
+                ? null
+                : stripes[Math.floorMod(Long.hashCode(customerId), stripes.length)];
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            return proceedWithRetry(joinPoint, customerId);
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of repeated cart transactions since startup
+     * Возвращает количество повторённых транзакций корзины с момента запуска
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    private Object proceedWithRetry(ProceedingJoinPoint joinPoint, Long customerId) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isConflict(e)) {
+                    throw e;
+                }
+                retries.increment();
+                long delay = backoff(attempt);
+                logger.debug("Cart write {} of customer ID {} conflicted (attempt {}), retrying in {} ms",
+                        joinPoint.getSignature().getName(), customerId, attempt, delay);
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Full jitter: random delay between 0 and min(maxBackoff, backoff * 2^(attempt - 1))
+     * Полный разброс: случайная задержка от 0 до min(maxBackoff, backoff * 2^(attempt - 1))
+     */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException
+                    || cause instanceof DuplicateKeyException
+                    || cause instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,363 @@
+package de.ait.g_75_shop.service.cart;
+
+import de.ait.g_75_shop.domain.CartTotals;
+import de.ait.g_75_shop.domain.Money;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.exceptions.types.EntityUpdateException;
+import de.ait.g_75_shop.repository.projection.CartPositionView;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authoritative in-memory state of one customer's cart in write-behind mode
+ * Every change is also recorded in the journal: the latest quantity per touched product (0 - removed),
+ * which WriteBehindCartStore drains and writes to the database.
+ * Not thread-safe by itself, all access goes through WriteBehindCartStore under the cart's monitor.
+ *
+ * Основное состояние корзины одного покупателя в памяти в режиме отложенной записи
+ * Каждое изменение также записывается в журнал: последнее количество по каждому затронутому товару (0 - удалён),
+ * который WriteBehindCartStore забирает и записывает в БД.
+ * Сам по себе не потокобезопасен, весь доступ идёт через WriteBehindCartStore под монитором корзины.
+ */
+public class LiveCart {
+
+    private final Long customerId;
+    private Long cartId;
+
+    /**
+     * Positions by product ID in insertion order
+     * Позиции по ID товара в порядке добавления
+     */
+    private final Map<Long, LivePosition> positions = new LinkedHashMap<>();
+
+    /**
+     * Latest quantity by product ID, not yet written to the database
+     * Последнее количество по ID товара, ещё не записанное в БД
+     */
+    private Map<Long, Integer> journal = new HashMap<>();
+
+    /**
+     * Set when the cart is removed from the store, an evicted instance must not be changed any more
+     * Устанавливается при удалении корзины из хранилища, вытесненный экземпляр больше нельзя изменять
+     */
+    private boolean evicted;
+
+    /**
+     * Time of the last change by the customer in memory, null if not changed since the load
+     * Время последнего изменения покупателем в памяти, null, если корзина не менялась после загрузки
+     */
+    private LocalDateTime changedAt;
+
+    /**
+     * System.nanoTime() of the last access through the store, for the eviction of idle carts
+     * System.nanoTime() последнего обращения через хранилище, для вытеснения неиспользуемых корзин
+     */
+    private long accessedAt = System.nanoTime();
+
+    LiveCart(Long customerId, Long cartId) {
+        this.customerId = customerId;
+        this.cartId = cartId;
+    }
+
+    /**
+     * Adds quantity of the product, a new position is created if needed
+     * Добавляет количество товара, при необходимости создаётся новая позиция
+     *
+     * @param product      active product / активный товар
+     * @param quantity     quantity to add / добавляемое количество
+     * @param maxPositions maximum number of different products / максимум разных товаров
+     * @param maxQuantity  maximum quantity of one position / максимальное количество в одной позиции
+     * @throws EntityUpdateException if a limit would be exceeded / если ограничение было бы превышено
+     */
+    public void add(ProductDto product, int quantity, int maxPositions, int maxQuantity) {
+        addAll(Map.of(product.getId(), quantity), Map.of(product.getId(), product), maxPositions, maxQuantity);
+    }
+
+    /**
+     * Adds several products at once: either all or none
+     * Добавляет несколько товаров сразу: либо все, либо ни одного
+     *
+     * @param quantities   quantity by product ID / количество по ID товара
+     * @param products     active products by ID / активные товары по ID
+     * @param maxPositions maximum number of different products / максимум разных товаров
+     * @param maxQuantity  maximum quantity of one position / максимальное количество в одной позиции
+     * @throws EntityUpdateException if a limit would be exceeded / если ограничение было бы превышено
+     */
+    public void addAll(Map<Long, Integer> quantities, Map<Long, ProductDto> products,
+                       int maxPositions, int maxQuantity) {
+        int newPositions = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            LivePosition position = positions.get(entry.getKey());
+            if (position == null) {
+                newPositions++;
+            }
+            if ((position == null ? 0 : position.quantity) + entry.getValue() > maxQuantity) {
+                throw new EntityUpdateException(
+                        String.format("Cart position cannot contain more than %d items", maxQuantity));
+            }
+        }
+        if (positions.size() + newPositions > maxPositions) {
+            throw new EntityUpdateException(
+                    String.format("Cart cannot contain more than %d different items", maxPositions));
+        }
+
+        quantities.forEach((productId, quantity) -> {
+            LivePosition position = positions.computeIfAbsent(productId, id -> new LivePosition(null));
+            position.setProduct(products.get(productId));
+            position.active = true;
+            position.quantity += quantity;
+            record(productId, position.quantity);
+        });
+    }
+
+    /**
+     * Removes the product from the cart
+     * Удаляет товар из корзины
+     *
+     * @param productId product identifier / идентификатор товара
+     * @throws EntityUpdateException if cart is empty or has no such product / если корзина пуста или товара в ней нет
+     */
+    public void remove(Long productId) {
+        if (positions.isEmpty()) {
+            throw new EntityUpdateException(
+                    String.format("Cannot remove product: Cart of customer ID %d is empty", customerId));
+        }
+        if (positions.remove(productId) == null) {
+            throw new EntityUpdateException(
+                    String.format("Product ID %d not found in cart of customer ID %d", productId, customerId));
+        }
+        record(productId, 0);
+    }
+
+    /**
+     * Removes all positions
+     * Удаляет все позиции
+     *
+     * @throws EntityUpdateException if cart is already empty / если корзина уже пуста
+     */
+    public void clear() {
+        if (positions.isEmpty()) {
+            throw new EntityUpdateException(
+                    String.format("Cannot clear cart: Cart of customer ID %d is already empty", customerId));
+        }
+        positions.keySet().forEach(productId -> record(productId, 0));
+        positions.clear();
+    }
+
+    /**
+     * Removes all positions for the abandoned cart sweeper, unless the customer changed the cart in memory
+     * since the given time; the database row may still be older because of the write-behind.
+     * Does not count as a change by the customer.
+     *
+     * Удаляет все позиции для сборщика заброшенных корзин, если покупатель не менял корзину в памяти
+     * с указанного времени; строка в БД из-за отложенной записи может быть старше.
+     * Не считается изменением покупателем.
+     *
+     * @param idleBefore cart is cleared only if not changed since this time / корзина очищается, только если не менялась с этого времени
+     * @return number of removed positions / количество удалённых позиций
+     */
+    public int clearIfIdle(LocalDateTime idleBefore) {
+        if (changedAt != null && !changedAt.isBefore(idleBefore)) {
+            return 0;
+        }
+        int removed = positions.size();
+        positions.keySet().forEach(productId -> journal.put(productId, 0));
+        positions.clear();
+        return removed;
+    }
+
+    /**
+     * Returns quantities by product ID in position order
+     * Возвращает количества по ID товара в порядке позиций
+     *
+     * @return copy of quantities / копия количеств
+     */
+    public Map<Long, Integer> quantities() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        positions.forEach((productId, position) -> quantities.put(productId, position.quantity));
+        return quantities;
+    }
+
+    /**
+     * Replaces the contents with the given quantities; positions not in the map are removed
+     * Limits are checked by the caller.
+     *
+     * Заменяет содержимое заданными количествами; позиции, которых нет в карте, удаляются
+     * Ограничения проверяет вызывающий код.
+     *
+     * @param quantities new quantity by product ID / новое количество по ID товара
+     * @param products   product data, required for products not in the cart yet
+     *                   данные товаров, обязательны для товаров, которых ещё нет в корзине
+     */
+    public void replace(Map<Long, Integer> quantities, Map<Long, ProductDto> products) {
+        for (Long productId : new ArrayList<>(positions.keySet())) {
+            if (!quantities.containsKey(productId)) {
+                positions.remove(productId);
+                record(productId, 0);
+            }
+        }
+        quantities.forEach((productId, quantity) -> {
+            LivePosition position = positions.computeIfAbsent(productId, id -> new LivePosition(null));
+            ProductDto product = products.get(productId);
+            if (product != null) {
+                position.setProduct(product);
+                position.active = true;
+            }
+            if (position.quantity != quantity) {
+                position.quantity = quantity;
+                record(productId, quantity);
+            }
+        });
+    }
+
+    /**
+     * Calculates totals like the stored cart totals: quantity and prices of active products only
+     * Вычисляет итоги как хранимые итоги корзины: количество и цены только активных товаров
+     *
+     * @return cart summary / сводка корзины
+     */
+    public CartTotals summary() {
+        CartTotals.Accumulator accumulator = CartTotals.accumulator();
+        for (LivePosition position : positions.values()) {
+            accumulator.add(position.priceCents, position.quantity, position.active);
+        }
+        return accumulator.build();
+    }
+
+    /**
+     * Returns positions as flat rows for CartViewAssembler (one empty row for an empty cart)
+     * Positions added after the last load have no ID yet.
+     *
+     * Возвращает позиции в виде плоских строк для CartViewAssembler (одна пустая строка для пустой корзины)
+     * Позиции, добавленные после последней загрузки, ещё не имеют ID.
+     *
+     * @return cart position rows / строки позиций корзины
+     */
+    public List<CartPositionView> toRows() {
+        CartTotals summary = summary();
+        List<CartPositionView> rows = new ArrayList<>(Math.max(1, positions.size()));
+        for (LivePosition position : positions.values()) {
+            ProductDto product = position.product;
+            rows.add(new CartPositionView(customerId, cartId, summary.getTotalPrice(), summary.getTotalQuantity(),
+                    position.id, product.getId(), product.getTitle(), product.getPrice(), product.getImageUrl(),
+                    position.active, position.quantity));
+        }
+        if (rows.isEmpty()) {
+            rows.add(new CartPositionView(customerId, cartId, Money.ZERO, 0,
+                    null, null, null, null, null, null, null));
+        }
+        return rows;
+    }
+
+    Long getCustomerId() {
+        return customerId;
+    }
+
+    Long getCartId() {
+        return cartId;
+    }
+
+    void setCartId(Long cartId) {
+        this.cartId = cartId;
+    }
+
+    /**
+     * Puts a loaded position without journaling it
+     * Добавляет загруженную позицию без записи в журнал
+     */
+    void load(Long positionId, ProductDto product, boolean active, int quantity) {
+        LivePosition position = new LivePosition(positionId);
+        position.setProduct(product);
+        position.active = active;
+        position.quantity = quantity;
+        positions.put(product.getId(), position);
+    }
+
+    /**
+     * Replaces product data (title, price, activity) in the position, if the product is in the cart
+     * Заменяет данные товара (название, цена, активность) в позиции, если товар есть в корзине
+     */
+    void refreshProduct(Long productId, String title, BigDecimal price, boolean active) {
+        LivePosition position = positions.get(productId);
+        if (position != null) {
+            position.setProduct(new ProductDto(productId, title, price, position.product.getImageUrl()));
+            position.active = active;
+        }
+    }
+
+    long getAccessedAt() {
+        return accessedAt;
+    }
+
+    void markAccessed() {
+        accessedAt = System.nanoTime();
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void setEvicted(boolean evicted) {
+        this.evicted = evicted;
+    }
+
+    boolean isDirty() {
+        return !journal.isEmpty();
+    }
+
+    /**
+     * Journals the latest quantity of the product as a change by the customer
+     * Журналирует последнее количество товара как изменение покупателем
+     */
+    private void record(Long productId, int quantity) {
+        journal.put(productId, quantity);
+        changedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Takes the journal for writing and starts a new one
+     * Забирает журнал для записи и начинает новый
+     */
+    Map<Long, Integer> drainJournal() {
+        Map<Long, Integer> drained = journal;
+        journal = new HashMap<>();
+        return drained;
+    }
+
+    /**
+     * Returns a journal that could not be written; newer entries win
+     * Возвращает журнал, который не удалось записать; более новые записи имеют приоритет
+     */
+    void restoreJournal(Map<Long, Integer> failed) {
+        failed.forEach(journal::putIfAbsent);
+    }
+
+    /**
+     * Position: database ID (null until reloaded), product data, product activity and quantity
+     * Позиция: ID в БД (null до перезагрузки), данные товара, активность товара и количество
+     */
+    private static final class LivePosition {
+        private final Long id;
+        private ProductDto product;
+        private boolean active = true;
+        private int quantity;
+
+        // Price of the product in cents for totals / Цена товара в центах для итогов
+        private long priceCents;
+
+        private LivePosition(Long id) {
+            this.id = id;
+        }
+
+        private void setProduct(ProductDto product) {
+            this.product = product;
+            this.priceCents = Money.centsOf(product.getPrice());
+        }
+    }
+}
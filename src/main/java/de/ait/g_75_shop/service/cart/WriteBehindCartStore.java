@@ -0,0 +1,529 @@
+package de.ait.g_75_shop.service.cart;
+
+import de.ait.g_75_shop.domain.Customer;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.exceptions.types.EntityNotFoundException;
+import de.ait.g_75_shop.repository.CustomerRepository;
+import de.ait.g_75_shop.repository.projection.CartPositionView;
+import de.ait.g_75_shop.service.catalog.ProductChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind cart storage (cart.write-behind.enabled=true)
+ * The live cart of every customer touched since startup is held in memory and is authoritative:
+ * mutations and totals are served from memory, changes are journaled per cart and written
+ * to the cart/position tables in one batched transaction every cart.write-behind.flush-interval-ms.
+ * A crash loses at most the changes of the last flush interval. Recovery: the store starts empty
+ * and every cart is reloaded from the tables on its first access; on shutdown everything is flushed.
+ * Written carts not accessed for cart.write-behind.idle-eviction are removed from memory, and so are
+ * the least recently accessed written carts above cart.write-behind.max-carts; they are reloaded on next access.
+ *
+ * Необязательное хранилище корзин с отложенной записью (cart.write-behind.enabled=true)
+ * Корзина каждого покупателя, затронутая после старта, хранится в памяти и является основной:
+ * изменения и итоги обслуживаются из памяти, изменения журналируются по корзинам и записываются
+ * в таблицы cart/position одной пакетной транзакцией каждые cart.write-behind.flush-interval-ms.
+ * При падении теряются максимум изменения последнего интервала. Восстановление: хранилище стартует пустым,
+ * каждая корзина перечитывается из таблиц при первом обращении; при остановке всё записывается.
+ * Записанные корзины, к которым не обращались дольше cart.write-behind.idle-eviction, удаляются из памяти,
+ * как и давнее всего использованные записанные корзины сверх cart.write-behind.max-carts;
+ * при следующем обращении они загружаются заново.
+ */
+@Component
+public class WriteBehindCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private static final String INSERT_CART_SQL =
+            "INSERT INTO cart (customer_id) SELECT ? WHERE NOT EXISTS (SELECT 1 FROM cart WHERE customer_id = ?)";
+    private static final String SELECT_CART_ID_SQL = "SELECT id FROM cart WHERE customer_id = ?";
+    private static final String UPDATE_POSITION_SQL =
+            "UPDATE position SET quantity = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE cart_id = ? AND product_id = ?";
+    private static final String INSERT_POSITION_SQL =
+            "INSERT INTO position (cart_id, product_id, quantity) VALUES (?, ?, ?)";
+    private static final String DELETE_POSITION_SQL =
+            "DELETE FROM position WHERE cart_id = ? AND product_id = ?";
+
+    private final CustomerRepository customerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartTotalsWriter cartTotalsWriter;
+    private final boolean enabled;
+    private final long idleEvictionNanos;
+    private final int maxCarts;
+
+    private final Map<Long, LiveCart> carts = new ConcurrentHashMap<>();
+
+    /**
+     * Customers whose carts have unwritten changes
+     * Покупатели, в корзинах которых есть незаписанные изменения
+     */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Writes and evictions run one at a time: an eviction waits for a flush that already drained the cart's journal
+     * and keeps the evicted cart in the map until its write commits, so the cart is never reloaded before
+     * its changes are committed
+     * Записи и вытеснения выполняются по одной: вытеснение ждёт запись, уже забравшую журнал корзины,
+     * и держит вытесненную корзину в карте до коммита её записи, поэтому корзина никогда не перечитывается
+     * до коммита её изменений
+     */
+    private final Object writeLock = new Object();
+
+    public WriteBehindCartStore(CustomerRepository customerRepository,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                CartTotalsWriter cartTotalsWriter,
+                                @Value("${cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${cart.write-behind.idle-eviction:10m}") Duration idleEviction,
+                                @Value("${cart.write-behind.max-carts:100000}") int maxCarts) {
+        this.customerRepository = customerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cartTotalsWriter = cartTotalsWriter;
+        this.enabled = enabled;
+        this.idleEvictionNanos = idleEviction.toNanos();
+        this.maxCarts = Math.max(1, maxCarts);
+    }
+
+    /**
+     * Returns true if carts are served from this store instead of the database
+     * Возвращает true, если корзины обслуживаются этим хранилищем вместо БД
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Applies a change to the customer's live cart and marks it for the next flush
+     * The cart is loaded from the database on first access.
+     * If the change throws, the cart is left as it was.
+     *
+     * Применяет изменение к корзине покупателя в памяти и помечает её для следующей записи
+     * Корзина загружается из БД при первом обращении.
+     * Если изменение выбрасывает исключение, корзина остаётся прежней.
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param change     change of the cart and result / изменение корзины и результат
+     * @return result of the change / результат изменения
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
+     */
+    public <T> T update(Long customerId, Function<LiveCart, T> change) {
+        while (true) {
+            LiveCart cart = getOrLoad(customerId);
+            synchronized (cart) {
+                if (!cart.isEvicted()) {
+                    cart.markAccessed();
+                    T result = change.apply(cart);
+                    if (cart.isDirty()) {
+                        dirty.add(customerId);
+                    }
+                    return result;
+                }
+            }
+            awaitEviction();
+        }
+    }
+
+    /**
+     * Reads the customer's live cart under its lock
+     * Читает корзину покупателя в памяти под её блокировкой
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param reader     reads data from the cart / читает данные из корзины
+     * @return read data / прочитанные данные
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
+     */
+    public <T> T read(Long customerId, Function<LiveCart, T> reader) {
+        while (true) {
+            LiveCart cart = getOrLoad(customerId);
+            synchronized (cart) {
+                if (!cart.isEvicted()) {
+                    cart.markAccessed();
+                    return reader.apply(cart);
+                }
+            }
+            awaitEviction();
+        }
+    }
+
+    /**
+     * Clears the customer's live cart for the abandoned cart sweeper, unless it was changed in memory
+     * since the given time. The removal is journaled and written with the next flush.
+     *
+     * Очищает корзину покупателя в памяти для сборщика заброшенных корзин, если она не менялась в памяти
+     * с указанного времени. Удаление журналируется и записывается при следующей записи.
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param idleBefore cart is cleared only if not changed since this time / корзина очищается, только если не менялась с этого времени
+     * @return number of removed positions / количество удалённых позиций
+     * @throws EntityNotFoundException if active customer not found / если активный покупатель не найден
+     */
+    public int clearIfIdle(Long customerId, LocalDateTime idleBefore) {
+        return update(customerId, cart -> cart.clearIfIdle(idleBefore));
+    }
+
+    /**
+     * Returns rows of the live cart if the customer's cart is already in memory, without loading it
+     * Возвращает строки корзины, если она уже в памяти, не загружая её
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @return cart rows or null / строки корзины или null
+     */
+    public List<CartPositionView> findLoadedRows(Long customerId) {
+        LiveCart cart = carts.get(customerId);
+        if (cart == null) {
+            return null;
+        }
+        synchronized (cart) {
+            return cart.toRows();
+        }
+    }
+
+    /**
+     * Writes the customer's cart and removes it from memory (e.g. when the customer is deleted)
+     *
+     * Записывает корзину покупателя и удаляет её из памяти (например, при удалении покупателя)
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     */
+    public void evict(Long customerId) {
+        evictAll(List.of(customerId));
+    }
+
+    /**
+     * Writes and removes all loaded carts, so they are read again from the database
+     * (e.g. after the database rows were changed directly)
+     *
+     * Записывает и удаляет из памяти все загруженные корзины, чтобы они были заново прочитаны из БД
+     * (например, после прямого изменения строк БД)
+     */
+    public void evictAll() {
+        evictAll(List.copyOf(carts.keySet()));
+    }
+
+    /**
+     * Removes written carts not accessed for the idle period and, above the size cap,
+     * the least recently accessed written carts; unwritten carts are flushed first
+     * Удаляет записанные корзины, к которым не обращались в течение периода бездействия, и сверх предельного размера
+     * давнее всего использованные записанные корзины; незаписанные корзины сначала записываются
+     */
+    @Scheduled(
+            initialDelayString = "${cart.write-behind.eviction-interval-ms:60000}",
+            fixedDelayString = "${cart.write-behind.eviction-interval-ms:60000}"
+    )
+    public void evictIdle() {
+        if (carts.isEmpty()) {
+            return;
+        }
+        flush();
+
+        long now = System.nanoTime();
+        int evicted = 0;
+        synchronized (writeLock) {
+            List<LiveCart> clean = new ArrayList<>();
+            for (LiveCart cart : carts.values()) {
+                synchronized (cart) {
+                    if (cart.isDirty() || cart.isEvicted()) {
+                        continue;
+                    }
+                    if (now - cart.getAccessedAt() > idleEvictionNanos) {
+                        // Written, so the database has everything / Записана, поэтому в БД есть всё
+                        cart.setEvicted(true);
+                        carts.remove(cart.getCustomerId(), cart);
+                        evicted++;
+                    } else {
+                        clean.add(cart);
+                    }
+                }
+            }
+
+            int excess = carts.size() - maxCarts;
+            if (excess > 0) {
+                clean.sort(Comparator.comparingLong(LiveCart::getAccessedAt));
+                for (LiveCart cart : clean.subList(0, Math.min(excess, clean.size()))) {
+                    synchronized (cart) {
+                        if (!cart.isDirty()) {
+                            cart.setEvicted(true);
+                            carts.remove(cart.getCustomerId(), cart);
+                            evicted++;
+                        }
+                    }
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Write-behind eviction: {} carts removed from memory, {} left", evicted, carts.size());
+        }
+    }
+
+    /**
+     * Returns the number of carts held in memory
+     * Возвращает количество корзин в памяти
+     */
+    public int size() {
+        return carts.size();
+    }
+
+    /**
+     * Writes all journaled changes in one batched transaction
+     * If the write fails, the journals are kept and written with the next flush
+     *
+     * Записывает все журналированные изменения одной пакетной транзакцией
+     * Если запись не удалась, журналы сохраняются и записываются при следующей записи
+     */
+    @Scheduled(
+            initialDelayString = "${cart.write-behind.flush-interval-ms:1000}",
+            fixedDelayString = "${cart.write-behind.flush-interval-ms:1000}"
+    )
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<LiveCart> toFlush = new ArrayList<>();
+        for (Long customerId : dirty) {
+            dirty.remove(customerId);
+            // An evicted cart is written by the eviction itself / Вытесненная корзина записывается самим вытеснением
+            LiveCart cart = carts.get(customerId);
+            if (cart != null) {
+                toFlush.add(cart);
+            }
+        }
+        if (!write(toFlush)) {
+            toFlush.forEach(cart -> dirty.add(cart.getCustomerId()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Updates product data and activity in live carts after the product change commits
+     * Обновляет данные и активность товара в корзинах после коммита изменения товара
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getNewPrice() == null) {
+            return;
+        }
+        for (LiveCart cart : carts.values()) {
+            synchronized (cart) {
+                cart.refreshProduct(event.getProductId(), event.getTitle(), event.getNewPrice(), event.isActive());
+            }
+        }
+    }
+
+    /**
+     * Marks the carts as evicted under their locks and writes them in one batch; only after the write commits
+     * are they removed from the map, so a concurrent change either lands in this write or waits
+     * and is applied to the cart loaded again after it. No map entry is locked during the write.
+     * If the write fails, the carts stay in memory and are written with the next flush.
+     *
+     * Помечает корзины вытесненными под их блокировками и записывает их одним пакетом; только после коммита записи
+     * они удаляются из карты, поэтому параллельное изменение либо попадает в эту запись, либо ждёт
+     * и применяется к заново загруженной корзине. Во время записи ни одна запись карты не блокируется.
+     * Если запись не удалась, корзины остаются в памяти и записываются при следующей записи.
+     */
+    private void evictAll(Collection<Long> customerIds) {
+        synchronized (writeLock) {
+            List<LiveCart> evicting = new ArrayList<>();
+            for (Long customerId : customerIds) {
+                LiveCart cart = carts.get(customerId);
+                if (cart == null) {
+                    continue;
+                }
+                synchronized (cart) {
+                    cart.setEvicted(true);
+                }
+                dirty.remove(customerId);
+                evicting.add(cart);
+            }
+
+            if (writeLocked(evicting)) {
+                evicting.forEach(cart -> carts.remove(cart.getCustomerId(), cart));
+                return;
+            }
+            for (LiveCart cart : evicting) {
+                synchronized (cart) {
+                    cart.setEvicted(false);
+                }
+                dirty.add(cart.getCustomerId());
+            }
+        }
+    }
+
+    /**
+     * Waits until the running eviction has written the cart and removed it from the map
+     * Ждёт, пока выполняющееся вытеснение запишет корзину и удалит её из карты
+     */
+    private void awaitEviction() {
+        synchronized (writeLock) {
+            // The eviction holds the lock until the cart is written and removed
+            // Вытеснение держит блокировку, пока корзина не записана и не удалена
+        }
+    }
+
+    /**
+     * Returns the live cart, loading it on first access; an evicted cart stays in the map until written,
+     * so a load never overtakes the write of an evicted copy
+     * Возвращает корзину в памяти, загружая её при первом обращении; вытесненная корзина остаётся в карте
+     * до записи, поэтому загрузка никогда не обгоняет запись вытесненной копии
+     */
+    private LiveCart getOrLoad(Long customerId) {
+        LiveCart cart = carts.get(customerId);
+        if (cart != null) {
+            return cart;
+        }
+        return carts.computeIfAbsent(customerId, this::load);
+    }
+
+    private LiveCart load(Long customerId) {
+        if (!customerRepository.existsByIdAndActiveTrue(customerId)) {
+            logger.warn("Active customer with ID {} not found", customerId);
+            throw new EntityNotFoundException(Customer.class, customerId);
+        }
+
+        LiveCart loaded = null;
+        for (CartPositionView row : customerRepository.findCartPositionViews(List.of(customerId))) {
+            if (loaded == null) {
+                loaded = new LiveCart(customerId, row.getCartId());
+            }
+            if (row.getProductId() != null) {
+                loaded.load(row.getPositionId(), new ProductDto(row.getProductId(), row.getProductTitle(),
+                        row.getProductPrice(), row.getProductImageUrl()),
+                        Boolean.TRUE.equals(row.getProductActive()), row.getQuantity());
+            }
+        }
+        return loaded != null ? loaded : new LiveCart(customerId, null);
+    }
+
+    /**
+     * Writes the journals of the carts, on failure the journals are given back to the carts
+     * Записывает журналы корзин, при ошибке журналы возвращаются корзинам
+     *
+     * @return false if the write failed / false, если запись не удалась
+     */
+    private boolean write(List<LiveCart> toFlush) {
+        synchronized (writeLock) {
+            return writeLocked(toFlush);
+        }
+    }
+
+    private boolean writeLocked(List<LiveCart> toFlush) {
+        List<Pending> pending = new ArrayList<>(toFlush.size());
+        for (LiveCart cart : toFlush) {
+            synchronized (cart) {
+                if (cart.isDirty()) {
+                    pending.add(new Pending(cart, cart.getCartId(), cart.drainJournal()));
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return true;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> writePending(pending));
+            for (Pending item : pending) {
+                synchronized (item.cart) {
+                    item.cart.setCartId(item.cartId);
+                }
+            }
+            logger.debug("Write-behind flush: {} carts written", pending.size());
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Write-behind flush of {} carts failed, changes are kept for the next flush",
+                    pending.size(), e);
+            for (Pending item : pending) {
+                synchronized (item.cart) {
+                    item.cart.restoreJournal(item.journal);
+                }
+            }
+            return false;
+        }
+    }
+
+    private void writePending(List<Pending> pending) {
+        // Carts created in memory get their row first / Корзины, созданные в памяти, сначала получают строку
+        for (Pending item : pending) {
+            if (item.cartId == null) {
+                Long customerId = item.cart.getCustomerId();
+                jdbcTemplate.update(INSERT_CART_SQL, customerId, customerId);
+                item.cartId = jdbcTemplate.queryForObject(SELECT_CART_ID_SQL, Long.class, customerId);
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Pending item : pending) {
+            item.journal.forEach((productId, quantity) -> {
+                if (quantity > 0) {
+                    updates.add(new Object[]{quantity, item.cartId, productId});
+                } else {
+                    deletes.add(new Object[]{item.cartId, productId});
+                }
+            });
+        }
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_POSITION_SQL, deletes);
+        }
+        if (!updates.isEmpty()) {
+            // Positions that don't exist yet are inserted / Ещё не существующие позиции вставляются
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, updates);
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    Object[] update = updates.get(i);
+                    inserts.add(new Object[]{update[1], update[2], update[0]});
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_POSITION_SQL, inserts);
+            }
+        }
+
+        // Stored totals follow the written positions / Хранимые итоги следуют за записанными позициями
+        cartTotalsWriter.recalculateCarts(pending.stream().map(item -> item.cartId).toList());
+    }
+
+    /**
+     * Drained journal of one cart waiting for the write
+     * Забранный журнал одной корзины, ожидающий записи
+     */
+    private static final class Pending {
+        private final LiveCart cart;
+        private final Map<Long, Integer> journal;
+        private Long cartId;
+
+        private Pending(LiveCart cart, Long cartId, Map<Long, Integer> journal) {
+            this.cart = cart;
+            this.cartId = cartId;
+            this.journal = journal;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package de.ait.g_75_shop.service.catalog;
+
+import de.ait.g_75_shop.domain.Product;
+import de.ait.g_75_shop.dto.mapping.ProductMapper;
+import de.ait.g_75_shop.dto.product.ProductCacheStatsDto;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of active products (entity and DTO)
+ * Least recently used entries are evicted when the cache is full,
+ * entries older than TTL are reloaded from the database.
+ * Entries are invalidated after commit of every product write (ProductChangedEvent).
+ *
+ * Ограниченный кэш активных товаров со сквозным чтением (сущность и DTO)
+ * При заполнении вытесняются давно не использованные записи,
+ * записи старше TTL перечитываются из БД.
+ * Записи инвалидируются после коммита каждого изменения товара (ProductChangedEvent).
+ */
+@Component
+public class ProductCache {
+
+    private final ProductMapper mapper;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    /**
+     * Access-ordered map, so iteration starts from the least recently used entry
+     * Map с порядком доступа, поэтому перебор начинается с давно не использованной записи
+     */
+    private final LinkedHashMap<Long, CachedProduct> entries;
+
+    /**
+     * Incremented on every invalidation. A value loaded while an invalidation
+     * happened is not stored, so a stale row can't get back into the cache.
+     *
+     * Увеличивается при каждой инвалидации. Значение, загруженное во время инвалидации,
+     * не сохраняется, поэтому устаревшая строка не попадёт обратно в кэш.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ProductCache(ProductMapper mapper,
+                        @Value("${catalog.product-cache.max-size:10000}") int maxSize,
+                        @Value("${catalog.product-cache.ttl-ms:300000}") long ttlMillis) {
+        this.mapper = mapper;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedProduct> eldest) {
+                if (size() > ProductCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns cached product or loads it with the given loader and caches it
+     * Loader exceptions (e.g. EntityNotFoundException) are passed through and nothing is cached
+     *
+     * Возвращает товар из кэша или загружает его через loader и кэширует
+     * Исключения loader (например, EntityNotFoundException) пробрасываются, ничего не кэшируется
+     *
+     * @param id     product identifier / идентификатор товара
+     * @param loader loads active product from the database / загружает активный товар из БД
+     * @return cached product / закэшированный товар
+     */
+    public CachedProduct getOrLoad(Long id, Supplier<Product> loader) {
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            CachedProduct cached = entries.get(id);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    hits.increment();
+                    return cached;
+                }
+                entries.remove(id);
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        CachedProduct loaded = new CachedProduct(loader.get(), mapper, now + ttlMillis);
+
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(id, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns cached products and loads all missing ones with a single loader call
+     * IDs that the loader does not return (missing or inactive) are absent from the result
+     *
+     * Возвращает товары из кэша и загружает все недостающие одним вызовом loader
+     * ID, которые loader не вернул (нет в БД или неактивны), отсутствуют в результате
+     *
+     * @param ids    product identifiers / идентификаторы товаров
+     * @param loader loads active products by IDs from the database / загружает активные товары по ID из БД
+     * @return found products by ID in request order / найденные товары по ID в порядке запроса
+     */
+    public Map<Long, CachedProduct> getAllOrLoad(Collection<Long> ids,
+                                                 Function<Collection<Long>, List<Product>> loader) {
+        long now = System.currentTimeMillis();
+        Map<Long, CachedProduct> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        synchronized (entries) {
+            for (Long id : ids) {
+                CachedProduct cached = entries.get(id);
+                if (cached != null && cached.expiresAt > now) {
+                    hits.increment();
+                    result.put(id, cached);
+                    continue;
+                }
+                if (cached != null) {
+                    entries.remove(id);
+                    evictions.increment();
+                }
+                misses.increment();
+                result.put(id, null);
+                missing.add(id);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long loadGeneration = generation.get();
+        List<CachedProduct> loaded = new ArrayList<>(missing.size());
+        for (Product product : loader.apply(missing)) {
+            loaded.add(new CachedProduct(product, mapper, now + ttlMillis));
+        }
+
+        synchronized (entries) {
+            boolean store = generation.get() == loadGeneration;
+            for (CachedProduct product : loaded) {
+                result.put(product.entity.getId(), product);
+                if (store) {
+                    entries.put(product.entity.getId(), product);
+                }
+            }
+        }
+
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
+
+    /**
+     * Removes product from the cache
+     * Удаляет товар из кэша
+     *
+     * @param id product identifier / идентификатор товара
+     */
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            if (entries.remove(id) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Invalidates changed product after the surrounding transaction commits
+     * Инвалидирует изменённый товар после коммита окружающей транзакции
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    /**
+     * Returns hit/miss/eviction counters for cache sizing
+     * Возвращает счётчики попаданий/промахов/вытеснений для подбора размера кэша
+     *
+     * @return cache statistics / статистика кэша
+     */
+    public ProductCacheStatsDto getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new ProductCacheStatsDto(size, maxSize, hits.sum(), misses.sum(),
+                evictions.sum(), invalidations.sum());
+    }
+
+    /**
+     * Immutable cache entry: detached product copy and its DTO
+     * The entity is shared between requests and must not be modified
+     *
+     * Неизменяемая запись кэша: отсоединённая копия товара и его DTO
+     * Сущность разделяется между запросами, изменять её нельзя
+     */
+    public static final class CachedProduct {
+        private final Product entity;
+        private final ProductDto dto;
+        private final long expiresAt;
+
+        private CachedProduct(Product source, ProductMapper mapper, long expiresAt) {
+            // Copy, so the cached instance is never attached to any persistence context
+            // Копия, чтобы закэшированный экземпляр не был привязан ни к одному контексту персистентности
+            Product copy = new Product();
+            copy.setId(source.getId());
+            copy.setTitle(source.getTitle());
+            copy.setPrice(source.getPrice());
+            copy.setActive(source.isActive());
+            copy.setImageUrl(source.getImageUrl());
+            copy.setVersion(source.getVersion());
+
+            this.entity = copy;
+            this.dto = mapper.mapEntityToDto(copy);
+            this.expiresAt = expiresAt;
+        }
+
+        public Product getEntity() {
+            return entity;
+        }
+
+        public ProductDto getDto() {
+            return dto;
+        }
+    }
+}
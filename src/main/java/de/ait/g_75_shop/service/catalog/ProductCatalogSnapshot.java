@@ -0,0 +1,192 @@
+package de.ait.g_75_shop.service.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized JSON of all active products, plain and gzipped
+ * GET /products without parameters is answered with these bytes, without database access and serialization.
+ * The snapshot is regenerated on a background thread after commit of every product change;
+ * several changes during one regeneration are coalesced into one more run.
+ * A snapshot is served only while its catalog version is current, otherwise the caller reads the database.
+ *
+ * Предварительно сериализованный JSON всех активных товаров, обычный и сжатый gzip
+ * На GET /products без параметров отвечают этими байтами, без обращения к БД и сериализации.
+ * Снимок пересобирается в фоновом потоке после коммита каждого изменения товара;
+ * несколько изменений во время одной пересборки объединяются в один следующий запуск.
+ * Снимок отдаётся, только пока его версия каталога актуальна, иначе вызывающий код читает БД.
+ */
+@Component
+public class ProductCatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogSnapshot.class);
+
+    private final ProductRepository repository;
+    private final ObjectMapper objectMapper;
+    private final ProductCatalogVersion catalogVersion;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * True while a regeneration is queued but not started yet
+     * True, пока пересборка поставлена в очередь, но ещё не началась
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile Snapshot current;
+
+    public ProductCatalogSnapshot(ProductRepository repository,
+                                  ObjectMapper objectMapper,
+                                  ProductCatalogVersion catalogVersion) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Builds the first snapshot when the application is ready
+     * Строит первый снимок, когда приложение готово
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    /**
+     * Regenerates the snapshot after the surrounding transaction commits
+     * Пересобирает снимок после коммита окружающей транзакции
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Regenerates the snapshot after commit of a JPA row change
+     * Пересобирает снимок после коммита изменения строки через JPA
+     *
+     * @param event row change / изменение строки
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductTableChanged(ProductTableChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Returns the snapshot if it matches the current catalog version
+     * A missing or outdated snapshot schedules a regeneration and null is returned.
+     *
+     * Возвращает снимок, если он соответствует текущей версии каталога
+     * Отсутствующий или устаревший снимок ставит пересборку в очередь, возвращается null.
+     *
+     * @return current snapshot or null / актуальный снимок или null
+     */
+    public Snapshot getIfCurrent() {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.tag.equals(catalogVersion.getTag())) {
+            return snapshot;
+        }
+        scheduleRebuild();
+        return null;
+    }
+
+    private void scheduleRebuild() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                // Changes from now on queue one more run / Изменения с этого момента ставят ещё один запуск
+                scheduled.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private void rebuild() {
+        try {
+            // Tag is taken before the data, so a concurrent change makes the snapshot outdated, never too new
+            // Тег берётся до данных, поэтому параллельное изменение делает снимок устаревшим, но не слишком новым
+            String tag = catalogVersion.getTag();
+            long lastModified = catalogVersion.getLastModified();
+            List<ProductDto> products = repository.findAllActiveDtos();
+
+            byte[] json = objectMapper.writeValueAsBytes(products);
+            current = new Snapshot(tag, lastModified, json, gzip(json));
+            logger.debug("Product catalog snapshot built: {} products, {} bytes, {} bytes gzipped",
+                    products.size(), json.length, current.gzip.length);
+        } catch (Exception e) {
+            // Previous snapshot stays, it is outdated and not served / Старый снимок остаётся, он устарел и не отдаётся
+            logger.error("Product catalog snapshot build failed", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Immutable snapshot: catalog version and JSON bytes
+     * The arrays are shared between requests and must not be modified
+     *
+     * Неизменяемый снимок: версия каталога и байты JSON
+     * Массивы разделяются между запросами, изменять их нельзя
+     */
+    public static final class Snapshot {
+        private final String tag;
+        private final long lastModified;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private Snapshot(String tag, long lastModified, byte[] json, byte[] gzip) {
+            this.tag = tag;
+            this.lastModified = lastModified;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package de.ait.g_75_shop.service.catalog;
+
+import de.ait.g_75_shop.domain.Money;
+import de.ait.g_75_shop.repository.ProductRepository;
+import de.ait.g_75_shop.repository.projection.ProductTotalsView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Running aggregates over active products (count and total price)
+ * Rebuilt from the database at startup with one aggregate query,
+ * then kept up to date from ProductChangedEvent after each commit.
+ * Count, total cost and average price are served in constant time.
+ * The total is kept in long cents, so applying a change is integer arithmetic.
+ * A committed product change is already visible in the database before its delta is applied,
+ * so reloads and verifications wait until no change is between its commit and its delta.
+ *
+ * Текущие агрегаты по активным товарам (количество и суммарная цена)
+ * Пересчитываются из БД при старте одним агрегирующим запросом,
+ * затем поддерживаются в актуальном состоянии по ProductChangedEvent после каждого коммита.
+ * Количество, общая стоимость и средняя цена возвращаются за константное время.
+ * Сумма хранится в long центов, поэтому применение изменения - целочисленная арифметика.
+ * Закоммиченное изменение товара уже видно в БД до применения его дельты,
+ * поэтому перезагрузка и сверка ждут, пока ни одно изменение не находится между коммитом и дельтой.
+ */
+@Component
+public class ProductCatalogStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogStatistics.class);
+
+    /**
+     * Attempts to replace the aggregates with the database state while products keep changing
+     * Попытки заменить агрегаты состоянием БД, пока товары продолжают меняться
+     */
+    private static final int MAX_RELOAD_ATTEMPTS = 5;
+
+    /**
+     * Pause between the attempts, so pending changes can complete
+     * Пауза между попытками, чтобы ожидающие изменения успели завершиться
+     */
+    private static final long RELOAD_PAUSE_MS = 20;
+
+    private final ProductRepository repository;
+
+    /**
+     * Count and total are swapped together, so readers never see a half-applied change.
+     * Every change installs a new instance, so compareAndSet against the instance read before a database
+     * query fails if a change was applied meanwhile and the query result is not installed over it.
+     *
+     * Количество и сумма заменяются вместе, поэтому читатель не увидит частично применённое изменение.
+     * Каждое изменение устанавливает новый экземпляр, поэтому compareAndSet с экземпляром, прочитанным до запроса
+     * к БД, не проходит, если за это время было применено изменение, и результат запроса не затирает его.
+     */
+    private final AtomicReference<Totals> totals = new AtomicReference<>(new Totals(0, 0));
+
+    /**
+     * Product changes that are about to commit or committed without their delta applied yet
+     * Изменения товаров, которые вот-вот закоммитятся или закоммичены, но их дельта ещё не применена
+     */
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+
+    public ProductCatalogStatistics(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Loads aggregates from the database when the application is ready
+     * A change applied during the query or pending around it makes the load repeat,
+     * so it is neither overwritten nor counted twice
+     *
+     * Загружает агрегаты из БД, когда приложение готово
+     * Изменение, применённое во время запроса или ожидающее применения, приводит к повторной загрузке,
+     * поэтому оно не затирается и не учитывается дважды
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        for (int attempt = 1; attempt <= MAX_RELOAD_ATTEMPTS; attempt++) {
+            Totals before = totals.get();
+            Totals loaded = loadIfNoPendingChanges();
+            if (loaded != null && totals.compareAndSet(before, loaded)) {
+                logger.info("Catalog statistics rebuilt: {} active products, total cost {}",
+                        loaded.count, Money.ofCents(loaded.totalCents));
+                return;
+            }
+        }
+
+        // Products keep changing: take the last state, the next verification repairs a change counted twice /
+        // Товары продолжают меняться: берём последнее состояние, следующая сверка исправит дважды учтённое изменение
+        Totals loaded = loadFromDatabase();
+        totals.set(loaded);
+        logger.warn("Catalog statistics rebuilt while products were changing: {} active products, total cost {}",
+                loaded.count, Money.ofCents(loaded.totalCents));
+    }
+
+    /**
+     * Marks a product change as pending right before its transaction commits
+     * The mark is removed after the completion, when the delta has been applied (or the transaction rolled back)
+     *
+     * Отмечает изменение товара как ожидающее непосредственно перед коммитом его транзакции
+     * Отметка снимается после завершения, когда дельта уже применена (или транзакция откатилась)
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductChangeCommitting(ProductChangedEvent event) {
+        pendingChanges.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                pendingChanges.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Applies product change after the surrounding transaction commits
+     * Changes outside a transaction (plain repository save) are applied immediately
+     *
+     * Применяет изменение товара после коммита окружающей транзакции
+     * Изменения вне транзакции (обычный save репозитория) применяются сразу
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        long countDelta = (event.isActive() ? 1 : 0) - (event.wasActive() ? 1 : 0);
+        long totalDelta = activeCents(event.getNewPrice(), event.isActive())
+                - activeCents(event.getOldPrice(), event.wasActive());
+
+        if (countDelta == 0 && totalDelta == 0) {
+            return;
+        }
+
+        totals.updateAndGet(current -> new Totals(current.count + countDelta,
+                Math.addExact(current.totalCents, totalDelta)));
+    }
+
+    /**
+     * Compares in-memory aggregates with the database and repairs them if they drifted
+     * (for example after direct SQL changes or a write that bypassed the service)
+     * A change applied during the query or pending around it makes the comparison repeat, so a product
+     * written meanwhile is neither reported as drift, lost nor counted twice by the repair.
+     * If products keep changing, the check is skipped.
+     *
+     * Сравнивает агрегаты в памяти с БД и исправляет их при расхождении
+     * (например, после прямых изменений SQL или записи в обход сервиса)
+     * Изменение, применённое во время запроса или ожидающее применения, приводит к повторному сравнению, поэтому
+     * товар, записанный за это время, не считается расхождением, не теряется и не учитывается дважды при исправлении.
+     * Если товары продолжают меняться, сверка пропускается.
+     *
+     * @return false if aggregates drifted and were repaired / false, если агрегаты расходились и были исправлены
+     */
+    public boolean verify() {
+        for (int attempt = 1; attempt <= MAX_RELOAD_ATTEMPTS; attempt++) {
+            Totals actual = totals.get();
+            Totals expected = loadIfNoPendingChanges();
+
+            if (expected == null) {
+                continue;
+            }
+            if (expected.count == actual.count && expected.totalCents == actual.totalCents) {
+                logger.debug("Catalog statistics are consistent: {} active products", actual.count);
+                return true;
+            }
+            if (totals.compareAndSet(actual, expected)) {
+                logger.warn("Catalog statistics drifted: memory {} / {}, database {} / {}. Rebuilt",
+                        actual.count, Money.ofCents(actual.totalCents),
+                        expected.count, Money.ofCents(expected.totalCents));
+                return false;
+            }
+        }
+
+        logger.debug("Catalog statistics verification skipped: products changed during {} attempts",
+                MAX_RELOAD_ATTEMPTS);
+        return true;
+    }
+
+    /**
+     * Periodic verification of the aggregates
+     * Периодическая сверка агрегатов
+     */
+    @Scheduled(
+            initialDelayString = "${catalog.statistics.verify-delay-ms:600000}",
+            fixedDelayString = "${catalog.statistics.verify-delay-ms:600000}"
+    )
+    public void verifyPeriodically() {
+        verify();
+    }
+
+    public long getCount() {
+        return totals.get().count;
+    }
+
+    public BigDecimal getTotalCost() {
+        return Money.ofCents(totals.get().totalCents).toBigDecimal();
+    }
+
+    public BigDecimal getAveragePrice() {
+        Totals current = totals.get();
+        return Money.ofCents(current.totalCents).averageOver(current.count).toBigDecimal();
+    }
+
+    /**
+     * Loads the database state, or returns null (after a short pause) if a change was pending before or after
+     * the query: its row may be visible to the query while its delta is not applied yet
+     *
+     * Загружает состояние БД или возвращает null (после короткой паузы), если до или после запроса было
+     * ожидающее изменение: его строка может быть видна запросу, а дельта ещё не применена
+     */
+    private Totals loadIfNoPendingChanges() {
+        if (pendingChanges.get() == 0) {
+            Totals loaded = loadFromDatabase();
+            if (pendingChanges.get() == 0) {
+                return loaded;
+            }
+        }
+
+        try {
+            Thread.sleep(RELOAD_PAUSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private Totals loadFromDatabase() {
+        ProductTotalsView view = repository.getActiveProductsTotals();
+        return new Totals(view.getCount(), Money.centsOf(view.getTotal()));
+    }
+
+    private static long activeCents(BigDecimal price, boolean active) {
+        return active ? Money.centsOf(price) : 0;
+    }
+
+    /**
+     * Immutable pair of count and total price in cents
+     * Неизменяемая пара из количества и суммарной цены в центах
+     */
+    private static final class Totals {
+        private final long count;
+        private final long totalCents;
+
+        private Totals(long count, long totalCents) {
+            this.count = count;
+            this.totalCents = totalCents;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.ait.g_75_shop.service.catalog;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catalog-wide version counter for conditional GET of product lists
+ * Incremented after commit of every product write (ProductChangedEvent)
+ * and of every JPA row change, including direct repository writes (ProductTableChangedEvent).
+ * The tag starts with the startup time, so it never repeats after a restart.
+ *
+ * Версия всего каталога для условных GET-запросов списков товаров
+ * Увеличивается после коммита каждого изменения товара (ProductChangedEvent)
+ * и каждого изменения строки через JPA, включая прямую запись через репозиторий (ProductTableChangedEvent).
+ * Тег начинается с времени старта, поэтому не повторяется после перезапуска.
+ */
+@Component
+public class ProductCatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * Counter and modification time are swapped together
+     * Счётчик и время изменения заменяются вместе
+     */
+    private final AtomicReference<State> state = new AtomicReference<>(new State(0, startedAt));
+
+    /**
+     * Bumps the version after the surrounding transaction commits
+     * Увеличивает версию после коммита окружающей транзакции
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump();
+    }
+
+    /**
+     * Bumps the version after commit of a JPA row change
+     * Увеличивает версию после коммита изменения строки через JPA
+     *
+     * @param event row change / изменение строки
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductTableChanged(ProductTableChangedEvent event) {
+        bump();
+    }
+
+    private void bump() {
+        long now = System.currentTimeMillis();
+        state.updateAndGet(current -> new State(current.counter + 1, now));
+    }
+
+    /**
+     * Returns current catalog version tag, e.g. "1760680000000-42"
+     * Возвращает текущий тег версии каталога, например "1760680000000-42"
+     */
+    public String getTag() {
+        return startedAt + "-" + state.get().counter;
+    }
+
+    /**
+     * Returns time of the last catalog change (or startup) in epoch milliseconds
+     * Возвращает время последнего изменения каталога (или старта) в миллисекундах
+     */
+    public long getLastModified() {
+        return state.get().lastModified;
+    }
+
+    /**
+     * Immutable pair of counter and modification time
+     * Неизменяемая пара из счётчика и времени изменения
+     */
+    private static final class State {
+        private final long counter;
+        private final long lastModified;
+
+        private State(long counter, long lastModified) {
+            this.counter = counter;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.ait.g_75_shop.service.catalog;
+
+import java.math.BigDecimal;
+
+/**
+ * Event published by ProductServiceImpl after every product write
+ * Carries the product state before and after the change,
+ * so listeners can apply deltas without reading the database.
+ * Listeners run after the commit in the committing thread, so events of one product may arrive out of order;
+ * the row version after the change lets them ignore an event older than the state they already have.
+ *
+ * Событие, публикуемое ProductServiceImpl после каждого изменения товара
+ * Содержит состояние товара до и после изменения,
+ * чтобы слушатели могли применять изменения без обращения к БД.
+ * Слушатели выполняются после коммита в потоке коммита, поэтому события одного товара могут прийти не по порядку;
+ * версия строки после изменения позволяет не применять событие старее уже известного состояния.
+ */
+public class ProductChangedEvent {
+
+    private final Long productId;
+    private final String title;
+    private final BigDecimal oldPrice;
+    private final boolean wasActive;
+    private final BigDecimal newPrice;
+    private final boolean active;
+    private final long version;
+
+    /**
+     * @param productId product identifier / идентификатор товара
+     * @param title     product title / название товара
+     * @param oldPrice  price before the change (null for new products) / цена до изменения (null для новых товаров)
+     * @param wasActive active flag before the change / флаг активности до изменения
+     * @param newPrice  price after the change / цена после изменения
+     * @param active    active flag after the change / флаг активности после изменения
+     * @param version   row version after the change / версия строки после изменения
+     */
+    public ProductChangedEvent(Long productId, String title,
+                               BigDecimal oldPrice, boolean wasActive,
+                               BigDecimal newPrice, boolean active, long version) {
+        this.productId = productId;
+        this.title = title;
+        this.oldPrice = oldPrice;
+        this.wasActive = wasActive;
+        this.newPrice = newPrice;
+        this.active = active;
+        this.version = version;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public BigDecimal getOldPrice() {
+        return oldPrice;
+    }
+
+    public boolean wasActive() {
+        return wasActive;
+    }
+
+    public BigDecimal getNewPrice() {
+        return newPrice;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Product changed event: id - %d, price %s -> %s, active %s -> %s, version %d",
+                productId, oldPrice, newPrice, wasActive ? "yes" : "no", active ? "yes" : "no", version);
+    }
+}
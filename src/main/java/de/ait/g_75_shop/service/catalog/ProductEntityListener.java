@@ -0,0 +1,74 @@
+package de.ait.g_75_shop.service.catalog;
+
+import de.ait.g_75_shop.domain.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate event listener of Product, publishes ProductTableChangedEvent for every flushed row change
+ * Registered in the Hibernate event registry at startup, so the domain entity doesn't depend on the service layer.
+ *
+ * Слушатель событий Hibernate для Product, публикует ProductTableChangedEvent при каждом сброшенном изменении строки
+ * Регистрируется в реестре событий Hibernate при старте, поэтому сущность домена не зависит от слоя сервисов.
+ */
+@Component
+public class ProductEntityListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductEntityListener(EntityManagerFactory entityManagerFactory,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onRowChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onRowChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onRowChanged(event.getEntity());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void onRowChanged(Object entity) {
+        if (entity instanceof Product product) {
+            eventPublisher.publishEvent(new ProductTableChangedEvent(product.getId()));
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package de.ait.g_75_shop.service.catalog;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.ait.g_75_shop.domain.Product;
+import de.ait.g_75_shop.dto.product.ProductImportErrorDto;
+import de.ait.g_75_shop.dto.product.ProductImportReportDto;
+import de.ait.g_75_shop.exceptions.types.EntityUpdateException;
+import de.ait.g_75_shop.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of products from a CSV or JSON array body
+ * The body is read row by row and never buffered as a whole. Every row is validated
+ * with the constraints of Product, title uniqueness is checked within the import
+ * and against the database (one query per batch), valid rows are inserted with
+ * JDBC batch inserts, one transaction per batch. Rejected rows are collected into the report.
+ * After each committed batch a ProductChangedEvent is published for every inserted product,
+ * so statistics, cache and search index see imported products like regular saves.
+ *
+ * Пакетный импорт товаров из тела запроса в формате CSV или JSON-массива
+ * Тело читается построчно и никогда не буферизуется целиком. Каждая строка проверяется
+ * ограничениями Product, уникальность названия проверяется внутри импорта
+ * и по БД (один запрос на пакет), корректные строки вставляются пакетными
+ * JDBC-вставками, одна транзакция на пакет. Отклонённые строки попадают в отчёт.
+ * После коммита каждого пакета для каждого вставленного товара публикуется ProductChangedEvent,
+ * поэтому статистика, кэш и поисковый индекс видят импортированные товары как обычные сохранения.
+ */
+@Component
+public class ProductImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImporter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO product (title, price, active) VALUES (?, ?, true)";
+    private static final String TITLE_COLUMN = "title";
+    private static final String PRICE_COLUMN = "price";
+    private static final int PRICE_SCALE = 2;
+
+    private final ProductRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader jsonReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ProductImporter(ProductRepository repository,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           Validator validator,
+                           ObjectMapper objectMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${catalog.import.batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        // Prices are read as BigDecimal, so no precision is lost through double
+        // Цены читаются как BigDecimal, чтобы не терять точность через double
+        this.jsonReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports products from CSV with a header line containing "title" and "price" columns
+     * Импортирует товары из CSV со строкой заголовка, содержащей колонки "title" и "price"
+     *
+     * @param in request body / тело запроса
+     * @return import report / отчёт об импорте
+     * @throws EntityUpdateException if the header is missing or incomplete / если заголовок отсутствует или неполон
+     */
+    public ProductImportReportDto importCsv(InputStream in) {
+        ImportSession session = new ImportSession();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new EntityUpdateException("CSV body is empty");
+            }
+
+            List<String> columns = new ArrayList<>();
+            for (String column : header.replace("\uFEFF", "").split(",")) {
+                String name = unquote(column);
+                columns.add(name == null ? "" : name.toLowerCase());
+            }
+            int titleIndex = columns.indexOf(TITLE_COLUMN);
+            int priceIndex = columns.indexOf(PRICE_COLUMN);
+            if (titleIndex < 0 || priceIndex < 0) {
+                throw new EntityUpdateException("CSV header must contain title and price columns");
+            }
+
+            long lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                String[] values = line.split(",", -1);
+                String title = titleIndex < values.length ? unquote(values[titleIndex]) : null;
+                String price = priceIndex < values.length ? unquote(values[priceIndex]) : null;
+                session.accept(lineNumber, title, price);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return session.finish();
+    }
+
+    /**
+     * Imports products from a JSON array of objects with "title" and "price" fields
+     * Импортирует товары из JSON-массива объектов с полями "title" и "price"
+     *
+     * @param in request body / тело запроса
+     * @return import report / отчёт об импорте
+     * @throws EntityUpdateException if the body is not a JSON array / если тело не является JSON-массивом
+     */
+    public ProductImportReportDto importJson(InputStream in) {
+        ImportSession session = new ImportSession();
+        long row = 0;
+
+        try (JsonParser parser = jsonReader.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new EntityUpdateException("JSON body must be an array of products");
+            }
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                row++;
+                JsonNode node = jsonReader.readTree(parser);
+                JsonNode title = node.get(TITLE_COLUMN);
+                JsonNode price = node.get(PRICE_COLUMN);
+                session.accept(row,
+                        title == null || title.isNull() ? null : title.asText(),
+                        price == null || price.isNull() ? null : price.asText());
+            }
+        } catch (JsonProcessingException e) {
+            // Rows before the broken one are already imported / Строки до повреждённой уже импортированы
+            session.reject(row, null, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return session.finish();
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * State of one import: current batch, titles seen so far and the report
+     * Состояние одного импорта: текущий пакет, уже встреченные названия и отчёт
+     */
+    private final class ImportSession {
+        private final long startedAt = System.currentTimeMillis();
+        private final ProductImportReportDto report = new ProductImportReportDto();
+        private final Map<String, Long> seenTitles = new HashMap<>();
+        private final List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        private void accept(long row, String title, String priceText) {
+            report.setTotalRows(report.getTotalRows() + 1);
+
+            Product product = new Product();
+            product.setTitle(title);
+            if (priceText != null) {
+                try {
+                    product.setPrice(new BigDecimal(priceText));
+                } catch (NumberFormatException e) {
+                    reject(row, title, "Product price is not a number: " + priceText);
+                    return;
+                }
+            }
+
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                reject(row, title, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            Long firstRow = seenTitles.putIfAbsent(title, row);
+            if (firstRow != null) {
+                reject(row, title, String.format("Duplicate title, already used in row %d", firstRow));
+                return;
+            }
+
+            batch.add(new ImportRow(row, title, product.getPrice().setScale(PRICE_SCALE, RoundingMode.HALF_UP)));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(long row, String title, String message) {
+            report.setFailedRows(report.getFailedRows() + 1);
+            report.getErrors().add(new ProductImportErrorDto(row, title, message));
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            // One query for the whole batch instead of one per row / Один запрос на весь пакет вместо запроса на строку
+            Set<String> existingTitles = new HashSet<>(repository.findExistingTitles(
+                    batch.stream().map(row -> row.title).toList()));
+
+            List<ImportRow> rows = new ArrayList<>(batch.size());
+            for (ImportRow row : batch) {
+                if (existingTitles.contains(row.title)) {
+                    reject(row.row, row.title, String.format("Product with title %s already exists", row.title));
+                } else {
+                    rows.add(row);
+                }
+            }
+            batch.clear();
+
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                        INSERT_SQL, rows, rows.size(), (statement, row) -> {
+                            statement.setString(1, row.title);
+                            statement.setBigDecimal(2, row.price);
+                        }));
+            } catch (DataAccessException e) {
+                // Whole batch is rolled back (e.g. concurrent insert of the same title)
+                // Весь пакет откатывается (например, параллельная вставка того же названия)
+                logger.warn("Product import batch of {} rows failed", rows.size(), e);
+                String message = "Batch insert failed: " + e.getMostSpecificCause().getMessage();
+                rows.forEach(row -> reject(row.row, row.title, message));
+                return;
+            }
+
+            // Batch inserts don't return IDs, so they are read back with one query per batch
+            // Пакетная вставка не возвращает ID, поэтому они читаются одним запросом на пакет
+            for (Product product : repository.findAllByTitleIn(rows.stream().map(row -> row.title).toList())) {
+                eventPublisher.publishEvent(new ProductChangedEvent(
+                        product.getId(), product.getTitle(), null, false, product.getPrice(), true,
+                        product.getVersion()));
+            }
+            report.setImportedRows(report.getImportedRows() + rows.size());
+        }
+
+        private ProductImportReportDto finish() {
+            flush();
+            report.setDurationMillis(System.currentTimeMillis() - startedAt);
+            logger.info("{}, {} rows/s", report, String.format("%.1f", report.getRowsPerSecond()));
+            return report;
+        }
+    }
+
+    /**
+     * Validated row waiting for the batch insert
+     * Проверенная строка, ожидающая пакетной вставки
+     */
+    private static final class ImportRow {
+        private final long row;
+        private final String title;
+        private final BigDecimal price;
+
+        private ImportRow(long row, String title, BigDecimal price) {
+            this.row = row;
+            this.title = title;
+            this.price = price;
+        }
+    }
+}
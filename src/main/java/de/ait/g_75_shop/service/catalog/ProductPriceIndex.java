@@ -0,0 +1,223 @@
+package de.ait.g_75_shop.service.catalog;
+
+import de.ait.g_75_shop.repository.ProductRepository;
+import de.ait.g_75_shop.repository.projection.ProductStateView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Optional in-memory index of active products sorted by price (then by ID)
+ * Serves price range and top-N queries without touching the database.
+ * Built at startup with keyset pages, then updated from ProductChangedEvent after each commit.
+ * Events older than the known row version of the product (committed earlier, delivered later) are ignored.
+ * Can be switched off with catalog.price-index.enabled=false, then queries go to the price index of the table.
+ *
+ * Необязательный индекс активных товаров в памяти, отсортированный по цене (затем по ID)
+ * Обслуживает запросы по диапазону цен и top-N без обращения к БД.
+ * Строится при старте keyset-страницами, затем обновляется по ProductChangedEvent после каждого коммита.
+ * События старее известной версии строки товара (закоммиченные раньше, доставленные позже) не применяются.
+ * Может быть выключен через catalog.price-index.enabled=false, тогда запросы идут в индекс таблицы по цене.
+ */
+@Component
+public class ProductPriceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceIndex.class);
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ProductRepository repository;
+    private final boolean enabled;
+
+    /**
+     * Sorted entries, readers iterate without locking
+     * Отсортированные записи, чтение идёт без блокировок
+     */
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    /**
+     * Current price by product ID, needed to find the entry to remove; guarded by "this"
+     * Текущая цена по ID товара, нужна для поиска удаляемой записи; защищена "this"
+     */
+    private final Map<Long, BigDecimal> prices = new HashMap<>();
+
+    /**
+     * Last applied row version by product ID, kept for deactivated products too; guarded by "this"
+     * Последняя применённая версия строки по ID товара, хранится и для деактивированных товаров; защищена "this"
+     */
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public ProductPriceIndex(ProductRepository repository,
+                             @Value("${catalog.price-index.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds the index from all active products when the application is ready
+     * Until then isReady() is false and callers use the database
+     *
+     * Строит индекс по всем активным товарам, когда приложение готово
+     * До этого isReady() возвращает false и вызывающий код использует БД
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        ready = false;
+        entries.clear();
+        prices.clear();
+        versions.clear();
+
+        long afterId = 0;
+        List<ProductStateView> page;
+        do {
+            page = repository.findActiveStatesAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            for (ProductStateView product : page) {
+                put(product.getId(), product.getPrice());
+                versions.put(product.getId(), product.getVersion());
+                afterId = product.getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+
+        ready = true;
+        logger.info("Product price index built: {} active products", prices.size());
+    }
+
+    /**
+     * Applies product change after the surrounding transaction commits,
+     * unless a newer version of the product has already been applied
+     * Применяет изменение товара после коммита окружающей транзакции,
+     * если более новая версия товара ещё не применена
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Long known = versions.get(event.getProductId());
+        if (known != null && event.getVersion() < known) {
+            logger.debug("Stale product change ignored by price index: {}", event);
+            return;
+        }
+        versions.put(event.getProductId(), event.getVersion());
+
+        BigDecimal oldPrice = prices.remove(event.getProductId());
+        if (oldPrice != null) {
+            entries.remove(new Entry(oldPrice, event.getProductId()));
+        }
+        if (event.isActive() && event.getNewPrice() != null) {
+            put(event.getProductId(), event.getNewPrice());
+        }
+    }
+
+    /**
+     * Returns true if the index is enabled and built
+     * Возвращает true, если индекс включён и построен
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns IDs of active products with price in the given range (inclusive), cheapest first
+     * Возвращает ID активных товаров с ценой в заданном диапазоне (включительно), от дешёвых к дорогим
+     *
+     * @param min   minimum price / минимальная цена
+     * @param max   maximum price / максимальная цена
+     * @param limit maximum number of IDs / максимальное количество ID
+     * @return product IDs / ID товаров
+     */
+    public List<Long> findIdsByPriceRange(BigDecimal min, BigDecimal max, int limit) {
+        return firstIds(entries.subSet(
+                new Entry(min, Long.MIN_VALUE), true,
+                new Entry(max, Long.MAX_VALUE), true), limit);
+    }
+
+    /**
+     * Returns IDs of the cheapest active products
+     * Возвращает ID самых дешёвых активных товаров
+     *
+     * @param limit maximum number of IDs / максимальное количество ID
+     * @return product IDs, cheapest first / ID товаров, начиная с самого дешёвого
+     */
+    public List<Long> findCheapestIds(int limit) {
+        return firstIds(entries, limit);
+    }
+
+    /**
+     * Returns IDs of the most expensive active products
+     * Возвращает ID самых дорогих активных товаров
+     *
+     * @param limit maximum number of IDs / максимальное количество ID
+     * @return product IDs, most expensive first / ID товаров, начиная с самого дорогого
+     */
+    public List<Long> findMostExpensiveIds(int limit) {
+        return firstIds(entries.descendingSet(), limit);
+    }
+
+    private void put(Long id, BigDecimal price) {
+        prices.put(id, price);
+        entries.add(new Entry(price, id));
+    }
+
+    private static List<Long> firstIds(NavigableSet<Entry> set, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : set) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Price and product ID, ordered by price, then by ID
+     * Цена и ID товара, упорядочены по цене, затем по ID
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final BigDecimal price;
+        private final long id;
+
+        private Entry(BigDecimal price, long id) {
+            this.price = price;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byPrice = price.compareTo(other.price);
+            return byPrice != 0 ? byPrice : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry entry && compareTo(entry) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package de.ait.g_75_shop.service.catalog;
+
+import de.ait.g_75_shop.repository.ProductRepository;
+import de.ait.g_75_shop.repository.projection.ProductStateView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search index over titles of active products
+ * Queries shorter than three characters are matched as word prefixes (sorted word map),
+ * longer queries as substrings (trigram posting lists, candidates verified against the title).
+ * Built at startup with keyset pages, then updated from ProductChangedEvent after each commit.
+ * Events older than the known row version of the product (committed earlier, delivered later) are ignored.
+ *
+ * Поисковый индекс в памяти по названиям активных товаров
+ * Запросы короче трёх символов ищутся как префиксы слов (отсортированная карта слов),
+ * более длинные - как подстроки (списки триграмм, кандидаты проверяются по названию).
+ * Строится при старте keyset-страницами, затем обновляется по ProductChangedEvent после каждого коммита.
+ * События старее известной версии строки товара (закоммиченные раньше, доставленные позже) не применяются.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    // Ranks / Ранги совпадений (меньше - лучше)
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_TITLE_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_SUBSTRING = 3;
+
+    private final ProductRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Normalized (lower case) title by product ID
+     * Нормализованное (в нижнем регистре) название по ID товара
+     */
+    private final Map<Long, String> titles = new HashMap<>();
+
+    /**
+     * Product IDs by title trigram
+     * ID товаров по триграмме названия
+     */
+    private final Map<String, Set<Long>> grams = new HashMap<>();
+
+    /**
+     * Product IDs by title word, sorted for prefix lookups
+     * ID товаров по слову названия, отсортировано для поиска по префиксу
+     */
+    private final NavigableMap<String, Set<Long>> words = new TreeMap<>();
+
+    /**
+     * Last applied row version by product ID, kept for deactivated products too
+     * Последняя применённая версия строки по ID товара, хранится и для деактивированных товаров
+     */
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    public ProductSearchIndex(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Builds the index from all active products when the application is ready
+     * Searches wait until the build is finished
+     *
+     * Строит индекс по всем активным товарам, когда приложение готово
+     * Поиск ожидает окончания построения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            grams.clear();
+            words.clear();
+            versions.clear();
+
+            long afterId = 0;
+            List<ProductStateView> page;
+            do {
+                page = repository.findActiveStatesAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+                for (ProductStateView product : page) {
+                    add(product.getId(), product.getTitle());
+                    versions.put(product.getId(), product.getVersion());
+                    afterId = product.getId();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+
+            logger.info("Product search index built: {} titles, {} trigrams, {} words",
+                    titles.size(), grams.size(), words.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies product change after the surrounding transaction commits,
+     * unless a newer version of the product has already been applied
+     * Применяет изменение товара после коммита окружающей транзакции,
+     * если более новая версия товара ещё не применена
+     *
+     * @param event product change / изменение товара
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Long known = versions.get(event.getProductId());
+            if (known != null && event.getVersion() < known) {
+                logger.debug("Stale product change ignored by search index: {}", event);
+                return;
+            }
+            versions.put(event.getProductId(), event.getVersion());
+
+            remove(event.getProductId());
+            if (event.isActive() && event.getTitle() != null) {
+                add(event.getProductId(), event.getTitle());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds active products whose title matches the query and returns one page of ranked IDs
+     * Ranking: exact title, title prefix, word prefix, other substring;
+     * ties are resolved by shorter title, then alphabetically, then by ID.
+     *
+     * Находит активные товары, название которых соответствует запросу, и возвращает одну страницу ID по рангу
+     * Ранжирование: точное название, префикс названия, префикс слова, остальные подстроки;
+     * при равенстве - более короткое название, затем по алфавиту, затем по ID.
+     *
+     * @param query  search text / текст поиска
+     * @param offset number of results to skip / количество пропускаемых результатов
+     * @param limit  page size / размер страницы
+     * @return page of ranked product IDs and total number of matches / страница ID по рангу и общее число совпадений
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : findCandidates(normalized)) {
+                String title = titles.get(id);
+                int rank = rank(title, normalized);
+                if (rank >= 0) {
+                    matches.add(new Match(id, title, rank));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Match.ORDER);
+
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, matches.size() - offset)));
+        for (int i = offset; i < matches.size() && i < offset + limit; i++) {
+            ids.add(matches.get(i).id);
+        }
+        return new SearchResult(ids, matches.size());
+    }
+
+    private Set<Long> findCandidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            Set<Long> candidates = new HashSet<>();
+            for (Set<Long> ids : words.subMap(query, true, query + Character.MAX_VALUE, false).values()) {
+                candidates.addAll(ids);
+            }
+            return candidates;
+        }
+
+        // Intersect posting lists starting from the rarest trigram / Пересекаем списки, начиная с самой редкой триграммы
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> ids = grams.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates;
+    }
+
+    private static int rank(String title, String query) {
+        if (title.equals(query)) {
+            return RANK_EXACT;
+        }
+        if (title.startsWith(query)) {
+            return RANK_TITLE_PREFIX;
+        }
+        int index = title.indexOf(query);
+        if (index < 0) {
+            return -1;
+        }
+        // Trigrams only narrow candidates, real position decides the rank / Триграммы лишь сужают кандидатов
+        do {
+            if (title.charAt(index - 1) == ' ') {
+                return RANK_WORD_PREFIX;
+            }
+            index = title.indexOf(query, index + 1);
+        } while (index > 0);
+        return RANK_SUBSTRING;
+    }
+
+    private void add(Long id, String title) {
+        String normalized = normalize(title);
+        titles.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            grams.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+        for (String word : normalized.split(" ")) {
+            words.computeIfAbsent(word, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(Long id) {
+        String normalized = titles.remove(id);
+        if (normalized == null) {
+            return;
+        }
+        for (String gram : grams(normalized)) {
+            removePosting(grams, gram, id);
+        }
+        for (String word : normalized.split(" ")) {
+            removePosting(words, word, id);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Long>> index, String key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One page of ranked product IDs and total number of matches
+     * Одна страница ID товаров по рангу и общее число совпадений
+     */
+    public static final class SearchResult {
+        private final List<Long> ids;
+        private final int total;
+
+        private SearchResult(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Matched product with its rank
+     * Найденный товар с его рангом
+     */
+    private static final class Match {
+        private static final Comparator<Match> ORDER = Comparator.<Match>comparingInt(match -> match.rank)
+                .thenComparingInt(match -> match.title.length())
+                .thenComparing(match -> match.title)
+                .thenComparing(match -> match.id);
+
+        private final Long id;
+        private final String title;
+        private final int rank;
+
+        private Match(Long id, String title, int rank) {
+            this.id = id;
+            this.title = title;
+            this.rank = rank;
+        }
+    }
+}
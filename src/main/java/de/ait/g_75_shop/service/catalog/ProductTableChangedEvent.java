@@ -0,0 +1,29 @@
+package de.ait.g_75_shop.service.catalog;
+
+/**
+ * Event published by ProductEntityListener for every insert, update or delete of a product row through JPA
+ * Unlike ProductChangedEvent it is also raised by direct repository writes, but carries only the product ID.
+ *
+ * Событие, публикуемое ProductEntityListener при каждой вставке, изменении или удалении строки товара через JPA
+ * В отличие от ProductChangedEvent возникает и при прямой записи через репозиторий, но содержит только ID товара.
+ */
+public class ProductTableChangedEvent {
+
+    private final Long productId;
+
+    /**
+     * @param productId product identifier / идентификатор товара
+     */
+    public ProductTableChangedEvent(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Product table changed event: product id - %d", productId);
+    }
+}
@@ -0,0 +1,123 @@
+package de.ait.g_75_shop.service.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates many customers with their empty carts using JDBC batch inserts
+ * Customer and cart IDs are IDENTITY columns, so Hibernate inserts such entities one statement at a time;
+ * here every chunk of customer.onboarding.batch-size customers is one batch, followed by one batch of their carts.
+ * Generated keys are read back from the batches in insert order. Cart version, totals and timestamps
+ * come from the column defaults. All chunks run in the surrounding transaction.
+ *
+ * Создаёт много покупателей с пустыми корзинами пакетными JDBC-вставками
+ * ID покупателя и корзины - IDENTITY-колонки, поэтому Hibernate вставляет такие сущности по одному запросу;
+ * здесь каждая порция из customer.onboarding.batch-size покупателей - один пакет, за ним один пакет их корзин.
+ * Сгенерированные ключи читаются из пакетов в порядке вставки. Версия, итоги и отметки времени корзины
+ * берутся из значений колонок по умолчанию. Все порции выполняются в окружающей транзакции.
+ */
+@Component
+public class CustomerOnboardingWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerOnboardingWriter.class);
+
+    private static final String INSERT_CUSTOMER_SQL = "INSERT INTO customer (name, active) VALUES (?, true)";
+    private static final String INSERT_CART_SQL = "INSERT INTO cart (customer_id) VALUES (?)";
+    private static final String ID_COLUMN = "id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public CustomerOnboardingWriter(JdbcTemplate jdbcTemplate,
+                                    @Value("${customer.onboarding.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Result of the onboarding of one customer
+     * Результат заведения одного покупателя
+     *
+     * @param customerId customer identifier / идентификатор покупателя
+     * @param cartId cart identifier / идентификатор корзины
+     */
+    public record CreatedCustomer(Long customerId, Long cartId) {
+    }
+
+    /**
+     * Inserts active customers with the given names and an empty cart for each of them
+     * Must be called inside the surrounding transaction
+     *
+     * Вставляет активных покупателей с заданными именами и пустую корзину для каждого из них
+     * Должен вызываться внутри окружающей транзакции
+     *
+     * @param names already validated customer names / уже проверенные имена покупателей
+     * @return created identifiers in the order of the names / созданные идентификаторы в порядке имён
+     */
+    public List<CreatedCustomer> insertAll(List<String> names) {
+        List<CreatedCustomer> created = new ArrayList<>(names.size());
+
+        for (int from = 0; from < names.size(); from += batchSize) {
+            List<String> chunk = names.subList(from, Math.min(from + batchSize, names.size()));
+
+            List<Long> customerIds = insertBatch(INSERT_CUSTOMER_SQL, chunk,
+                    (statement, name) -> statement.setString(1, name));
+            List<Long> cartIds = insertBatch(INSERT_CART_SQL, customerIds,
+                    (statement, customerId) -> statement.setLong(1, customerId));
+
+            for (int i = 0; i < customerIds.size(); i++) {
+                created.add(new CreatedCustomer(customerIds.get(i), cartIds.get(i)));
+            }
+        }
+
+        logger.debug("{} customers with carts inserted in batches of {}", created.size(), batchSize);
+        return created;
+    }
+
+    private <T> List<Long> insertBatch(String sql, List<T> rows, ParameterSetter<T> setter) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(sql, new String[]{ID_COLUMN}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        setter.setValues(statement, rows.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != rows.size()) {
+            throw new IllegalStateException(String.format(
+                    "Expected %d generated keys, got %d", rows.size(), keys.size()));
+        }
+
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface ParameterSetter<T> {
+        void setValues(PreparedStatement statement, T row) throws SQLException;
+    }
+}
@@ -1,13 +1,21 @@
 package de.ait.g_75_shop.service.interfaces;
 import de.ait.g_75_shop.domain.Customer;
+import de.ait.g_75_shop.dto.cart.CartDto;
+import de.ait.g_75_shop.dto.cart.CartItemDto;
+import de.ait.g_75_shop.dto.cart.CartOperationDto;
+import de.ait.g_75_shop.dto.cart.CartSummaryDto;
+import de.ait.g_75_shop.dto.cart.CartSweeperStatsDto;
 import de.ait.g_75_shop.dto.customer.CustomerDto;
 import de.ait.g_75_shop.dto.customer.CustomerSaveDto;
 import de.ait.g_75_shop.dto.customer.CustomerUpdateDto;
+import de.ait.g_75_shop.dto.order.OrderDto;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerService {
 
@@ -15,9 +23,21 @@ public interface CustomerService {
 //    Customer save(Customer customer);
     CustomerDto save(CustomerSaveDto saveDto);
 
+    // Сохранить нескольких покупателей с корзинами пакетными вставками
+    List<CustomerDto> saveAll(List<CustomerSaveDto> saveDtos);
+
     // Вернуть всех активных покупателей
 //    List<Customer> getAllActiveCustomers();
-    List<CustomerDto> getAllActiveCustomers();
+    List<CustomerDto> getAllActiveCustomers(boolean includeCart);
+
+    // Вернуть страницу активных покупателей после указанного ID (keyset-пагинация)
+    List<CustomerDto> getActiveCustomersPage(Long afterId, int size, boolean includeCart);
+
+    // Найти страницу активных покупателей по началу или части имени (keyset-пагинация)
+    List<CustomerDto> searchActiveCustomers(String name, boolean prefix, Long afterId, int size);
+
+    // Передать всех активных покупателей потребителю по одному
+    void streamAllActiveCustomers(Consumer<CustomerDto> consumer);
 
     // Вернуть активного покупателя по ID
     Customer getActiveEntityById(Long id);
@@ -30,27 +50,45 @@ public interface CustomerService {
     // Удалить покупателя (soft delete)
     void deleteById(Long id);
 
+    // Удалить нескольких покупателей (soft delete), вернуть количество удалённых
+    int deleteByIds(Collection<Long> ids);
+
     // Восстановить удаленного покупателя
     void restoreById(Long id);
 
     // Количество активных покупателей
     long getAllActiveCustomersCount();
 
+    // Счётчики сборщика заброшенных корзин (запуски, удалённые позиции, время)
+    CartSweeperStatsDto getCartSweeperStats();
+
     // Стоимость корзины покупателя
     BigDecimal getCustomerCartTotalCost(Long customerId);
 
     // Средняя стоимость продукта в корзине покупателя
     BigDecimal getCustomerCartAveragePrice(Long customerId);
 
+    // Сводка корзины покупателя (количество, общая и средняя стоимость) одним запросом
+    CartSummaryDto getCustomerCartSummary(Long customerId);
+
     // Добавить товар в корзину
     void addProductToCart(Long customerId, Long productId, int quantity);
 
+    // Добавить несколько товаров в корзину одной транзакцией
+    CartDto addProductsToCart(Long customerId, List<CartItemDto> items);
+
     // Удалить товар из корзины
     void removeProductFromCart(Long customerId, Long productId);
 
     // Очистить корзину
     void clearCart(Long customerId);
 
+    // Применить пакет операций с корзиной (добавить, установить количество, удалить, очистить) одной транзакцией
+    CartDto applyCartOperations(Long customerId, List<CartOperationDto> operations);
+
+    // Оформить корзину: создать заказ из позиций и очистить корзину
+    OrderDto checkout(Long customerId);
+
     // Добавление изображения к продукту
     void addImage(Long id, MultipartFile image) throws IOException;
 }
\ No newline at end of file
@@ -1,14 +1,21 @@
 package de.ait.g_75_shop.service.interfaces;
 
 import de.ait.g_75_shop.domain.Product;
+import de.ait.g_75_shop.dto.product.ProductCacheStatsDto;
+import de.ait.g_75_shop.dto.product.ProductImportReportDto;
 import de.ait.g_75_shop.dto.product.ProductDto;
 import de.ait.g_75_shop.dto.product.ProductSaveDto;
+import de.ait.g_75_shop.dto.product.ProductSearchResultDto;
 import de.ait.g_75_shop.dto.product.ProductUpdateDto;
+import de.ait.g_75_shop.service.catalog.ProductCatalogSnapshot;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductService {
 //    Сохранить продукт в базе данных (при сохранении продукт автоматически считается активным).
@@ -17,10 +24,28 @@ public interface ProductService {
 //    Вернуть все продукты из базы данных (активные).
     List<ProductDto> getAllActiveProducts();
 
+//    Вернуть заранее сериализованный снимок всех активных продуктов (null, если снимок устарел).
+    ProductCatalogSnapshot.Snapshot getCatalogSnapshot();
+
+//    Вернуть страницу активных продуктов после указанного ID (keyset-пагинация).
+    List<ProductDto> getActiveProductsPage(Long afterId, int size);
+
+//    Передать все активные продукты потребителю по одному, не загружая их все в память.
+    void streamAllActiveProducts(Consumer<ProductDto> consumer);
+
 //    Вернуть один продукт из базы данных по его идентификатору (если он активен).
     Product getActiveEntityById(Long id);
     ProductDto getActiveProductById(Long id);
 
+//    Вернуть версию активного продукта (для ETag) и версию/время изменения всего каталога.
+    long getActiveProductVersion(Long id);
+    String getCatalogVersion();
+    long getCatalogLastModified();
+
+//    Вернуть несколько активных продуктов по списку идентификаторов (одним запросом).
+    List<Product> getActiveEntitiesByIds(Collection<Long> ids);
+    List<ProductDto> getActiveProductsByIds(Collection<Long> ids);
+
 //    Изменить один продукт в базе данных по его идентификатору.
     void update(Long id, ProductUpdateDto updateDto);
 
@@ -30,6 +55,9 @@ public interface ProductService {
 //    Восстановить удалённый продукт в базе данных по его идентификатору.
     void restoreById(Long id);
 
+//    Восстановить несколько удалённых продуктов по их идентификаторам, вернуть количество восстановленных.
+    int restoreByIds(Collection<Long> ids);
+
 //    Вернуть общее количество продуктов в базе данных (активных).
     long getAllActiveProductsCount();
 
@@ -39,6 +67,30 @@ public interface ProductService {
 //    Вернуть среднюю стоимость продукта в базе данных (из активных).
     BigDecimal getAllActiveProductsAveragePrice();
 
+//    Сверить статистику каталога с базой данных (с пересчётом при расхождении).
+    boolean verifyStatistics();
+
+//    Вернуть счётчики кэша продуктов (попадания, промахи, вытеснения).
+    ProductCacheStatsDto getCacheStats();
+
+//    Найти активные товары по названию (префикс/подстрока), с ранжированием и постранично.
+    ProductSearchResultDto searchProducts(String query, int page, int size);
+
+//    Вернуть активные товары с ценой в диапазоне [min, max], от дешёвых к дорогим.
+    List<ProductDto> getActiveProductsByPriceRange(BigDecimal min, BigDecimal max, int limit);
+
+//    Вернуть N самых дешёвых активных товаров.
+    List<ProductDto> getCheapestActiveProducts(int limit);
+
+//    Вернуть N самых дорогих активных товаров.
+    List<ProductDto> getMostExpensiveActiveProducts(int limit);
+
+//    Импортировать товары из CSV (колонки title, price) пакетными вставками, с отчётом по строкам.
+    ProductImportReportDto importProductsFromCsv(InputStream in);
+
+//    Импортировать товары из JSON-массива пакетными вставками, с отчётом по строкам.
+    ProductImportReportDto importProductsFromJson(InputStream in);
+
     boolean isProductActive(Long id);
 
     // Добавление изображения к продукту
@@ -1,27 +1,86 @@
 package de.ait.g_75_shop.controller;
 
+import de.ait.g_75_shop.constants.Constants;
 import de.ait.g_75_shop.domain.Cart;
 import de.ait.g_75_shop.domain.Customer;
+import de.ait.g_75_shop.domain.Position;
 import de.ait.g_75_shop.domain.Product;
+import de.ait.g_75_shop.domain.User;
+import de.ait.g_75_shop.domain.enums.Role;
+import de.ait.g_75_shop.dto.cart.CartDto;
+import de.ait.g_75_shop.dto.cart.CartItemDto;
+import de.ait.g_75_shop.dto.cart.CartOperationDto;
+import de.ait.g_75_shop.dto.cart.CartSummaryDto;
+import de.ait.g_75_shop.dto.cart.CartSweeperStatsDto;
 import de.ait.g_75_shop.dto.customer.CustomerDto;
 import de.ait.g_75_shop.dto.customer.CustomerSaveDto;
 import de.ait.g_75_shop.dto.customer.CustomerUpdateDto;
+import de.ait.g_75_shop.dto.order.OrderDto;
+import de.ait.g_75_shop.dto.order.OrderLineDto;
+import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.dto.product.ProductUpdateDto;
+import de.ait.g_75_shop.exceptions.types.EntityNotFoundException;
+import de.ait.g_75_shop.exceptions.types.EntityUpdateException;
 import de.ait.g_75_shop.repository.CustomerRepository;
+import de.ait.g_75_shop.repository.OrderRepository;
 import de.ait.g_75_shop.repository.ProductRepository;
+import de.ait.g_75_shop.repository.UserRepository;
+import de.ait.g_75_shop.repository.projection.CartTotalsView;
+import de.ait.g_75_shop.service.cart.AbandonedCartSweeper;
+import de.ait.g_75_shop.service.cart.CartPositionWriter;
+import de.ait.g_75_shop.service.cart.CartTotalsWriter;
+import de.ait.g_75_shop.service.cart.CartWriteConcurrency;
+import de.ait.g_75_shop.service.cart.LiveCart;
+import de.ait.g_75_shop.service.cart.WriteBehindCartStore;
+import de.ait.g_75_shop.service.interfaces.CustomerService;
+import de.ait.g_75_shop.service.interfaces.ProductService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static de.ait.g_75_shop.constants.Constants.ACCESS_TOKEN_COOKIE_NAME;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -40,9 +99,54 @@ class CustomerControllerTestIT {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CartWriteConcurrency cartWriteConcurrency;
+
+    @Autowired
+    private CartPositionWriter cartPositionWriter;
+
+    @Autowired
+    private CartTotalsWriter cartTotalsWriter;
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Value("${KEY_PHRASE_ACCESS}")
+    private String accessPhrase;
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerControllerTestIT.class);
+
     // Базовый URL для ресурса покупателей
     private static final String CUSTOMER_RESOURCE = "/customers";
 
+    // Нагрузочный тест корзины: потоки и общее число операций
+    private static final int CART_STRESS_THREADS = 8;
+    private static final int CART_STRESS_OPERATIONS = 320;
+
     // Тестовые данные
     private Customer activeTestCustomer;
     private Customer inactiveTestCustomer;
@@ -460,6 +564,477 @@ class CustomerControllerTestIT {
      * ВАЖНО: Корзина НЕ создается автоматически, поэтому в тестах,
      * где ожидается наличие корзины, мы не проверяем cart != null
      */
+    /**
+     * Позитивный тест: сводка корзины вычисляется одним SQL-запросом
+     * Проверяет: итоги корзины и количество выполненных SQL-запросов (без загрузки корзины и товаров)
+     */
+    @Test
+    void shouldGetCartSummaryWithOneStatement() {
+        customerService.addProductToCart(activeTestCustomer.getId(), testProduct.getId(), 3);
+
+        withStatistics(statistics -> {
+            CartSummaryDto summary = customerService.getCustomerCartSummary(activeTestCustomer.getId());
+
+            assertEquals(1, statistics.getPrepareStatementCount(),
+                    "Cart summary should be calculated with one SQL statement");
+            assertEquals(0, statistics.getEntityLoadCount(),
+                    "Cart summary shouldn't load entities");
+            assertEquals(1, summary.getPositionsCount(), "Cart summary has incorrect positions count");
+            assertEquals(3, summary.getTotalQuantity(), "Cart summary has incorrect total quantity");
+            assertEquals(0, new BigDecimal("300.00").compareTo(summary.getTotalPrice()),
+                    "Cart summary has incorrect total price");
+            assertEquals(0, new BigDecimal("100.00").compareTo(summary.getAveragePrice()),
+                    "Cart summary has incorrect average price");
+        });
+    }
+
+    /**
+     * Позитивный тест: хранимые итоги корзины
+     * Проверяет: итоги меняются с корзиной, изменение цены и деактивация товара
+     * распространяются на корзину, общая стоимость читается одним запросом
+     */
+    @Test
+    void shouldKeepStoredCartTotalsOnProductChanges() {
+        Long customerId = activeTestCustomer.getId();
+        customerService.addProductToCart(customerId, testProduct.getId(), 2);
+        customerService.addProductsToCart(customerId, List.of(new CartItemDto(testProduct.getId(), 1)));
+
+        withStatistics(statistics -> {
+            assertEquals(0, new BigDecimal("300.00").compareTo(customerService.getCustomerCartTotalCost(customerId)),
+                    "Stored total should follow cart changes");
+            assertEquals(1, statistics.getPrepareStatementCount(), "Total cost should be read with one statement");
+        });
+
+        ProductUpdateDto updateDto = new ProductUpdateDto();
+        updateDto.setNewPrice(new BigDecimal("50.00"));
+        productService.update(testProduct.getId(), updateDto);
+        assertEquals(0, new BigDecimal("150.00").compareTo(customerService.getCustomerCartTotalCost(customerId)),
+                "Price change should be propagated to the cart");
+
+        productService.deleteById(testProduct.getId());
+        CartSummaryDto summary = customerService.getCustomerCartSummary(customerId);
+        assertEquals(0, summary.getTotalQuantity(), "Inactive product shouldn't be counted");
+        assertEquals(0, BigDecimal.ZERO.compareTo(summary.getTotalPrice()), "Inactive product shouldn't be counted");
+        assertEquals(1, summary.getPositionsCount(), "Position of inactive product should stay in the cart");
+
+        productService.restoreById(testProduct.getId());
+        assertEquals(3, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Restored product should be counted again");
+    }
+
+    /**
+     * Позитивный тест: повторное добавление товара увеличивает количество в той же позиции
+     * Проверяет: одна позиция на товар, сумму количества и отказ при превышении лимита позиции
+     */
+    @Test
+    void shouldMergeRepeatedAddsIntoOnePosition() {
+        customerService.addProductToCart(activeTestCustomer.getId(), testProduct.getId(), 3);
+        customerService.addProductToCart(activeTestCustomer.getId(), testProduct.getId(), 4);
+
+        CartSummaryDto summary = customerService.getCustomerCartSummary(activeTestCustomer.getId());
+        assertEquals(1, summary.getPositionsCount(), "Same product should stay in one position");
+        assertEquals(7, summary.getTotalQuantity(), "Quantities should be added up");
+
+        assertThrows(EntityUpdateException.class,
+                () -> customerService.addProductToCart(activeTestCustomer.getId(), testProduct.getId(), 94),
+                "Position quantity above the limit should be rejected");
+        assertEquals(7, customerService.getCustomerCartSummary(activeTestCustomer.getId()).getTotalQuantity(),
+                "Rejected add shouldn't change the cart");
+    }
+
+    /**
+     * Негативный тест: пакетное добавление не превышает лимит количества позиции
+     * Проверяет: отказ 400 (EntityUpdateException) для объединённых дубликатов и для суммы
+     * с количеством в корзине, в БД и в корзине с отложенной записью
+     */
+    @Test
+    void shouldRejectBulkAddAbovePositionLimit() {
+        Long customerId = activeTestCustomer.getId();
+        Long productId = testProduct.getId();
+
+        assertThrows(EntityUpdateException.class,
+                () -> customerService.addProductsToCart(customerId,
+                        List.of(new CartItemDto(productId, 60), new CartItemDto(productId, 60))),
+                "Merged duplicates above the limit should be rejected");
+
+        customerService.addProductToCart(customerId, productId, 7);
+        assertThrows(EntityUpdateException.class,
+                () -> customerService.addProductsToCart(customerId, List.of(new CartItemDto(productId, 94))),
+                "Sum with the quantity in the cart above the limit should be rejected");
+        assertEquals(7, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Rejected adds shouldn't change the cart");
+
+        ProductDto product = new ProductDto(productId, testProduct.getTitle(),
+                testProduct.getPrice(), testProduct.getImageUrl());
+        WriteBehindCartStore store = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMinutes(10), 100000);
+        assertThrows(EntityUpdateException.class,
+                () -> store.update(customerId, cart -> {
+                    cart.addAll(Map.of(productId, 94), Map.of(productId, product), 50, 100);
+                    return null;
+                }),
+                "Live cart should reject the sum above the limit as well");
+        assertEquals(7, store.read(customerId, LiveCart::summary).getTotalQuantity(),
+                "Rejected add shouldn't change the live cart");
+    }
+
+    /**
+     * Негативный тест: параллельные добавления разных товаров не превышают лимит позиций
+     * Проверяет: корзина блокируется до подсчёта позиций, поэтому из 59 параллельных добавлений
+     * к одной позиции проходят ровно 49 и в корзине ровно 50 позиций
+     */
+    @Test
+    void shouldKeepPositionLimitUnderConcurrentAdds() throws InterruptedException {
+        Long customerId = activeTestCustomer.getId();
+        customerService.addProductToCart(customerId, testProduct.getId(), 1);
+
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 59; i++) {
+            Product product = new Product();
+            product.setTitle("Limit product " + (char) ('a' + i / 26) + (char) ('a' + i % 26));
+            product.setPrice(new BigDecimal("1.00"));
+            product.setActive(true);
+            productIds.add(productRepository.save(product).getId());
+        }
+
+        Queue<Long> added = new ConcurrentLinkedQueue<>();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CART_STRESS_THREADS);
+        for (Long productId : productIds) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (transactionTemplate.execute(status ->
+                            cartPositionWriter.addQuantity(customerId, productId, 1, 50, 100))) {
+                        added.add(productId);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Concurrent adds should finish in time");
+
+        assertTrue(errors.isEmpty(), "Adds shouldn't fail, got: " + errors);
+        assertEquals(49, added.size(), "Only the free positions should be filled");
+        assertEquals(50, customerService.getCustomerCartSummary(customerId).getPositionsCount(),
+                "Cart shouldn't exceed the position limit");
+    }
+
+    /**
+     * Негативный тест: товар, деактивированный в обход кэша, не добавляется в корзину
+     * Проверяет: активность товара проверяется в том же upsert, что и добавление, а не только по кэшу
+     */
+    @Test
+    void shouldNotAddProductDeactivatedAfterItWasCached() {
+        Long customerId = activeTestCustomer.getId();
+        Long productId = testProduct.getId();
+        customerService.addProductToCart(customerId, productId, 1);
+        productService.getActiveProductById(productId);
+
+        jdbcTemplate.update("UPDATE product SET active = false WHERE id = ?", productId);
+
+        EntityUpdateException exception = assertThrows(EntityUpdateException.class,
+                () -> customerService.addProductToCart(customerId, productId, 1));
+        assertTrue(exception.getMessage().contains("is not active"),
+                "Reason should be the inactive product, got: " + exception.getMessage());
+        Boolean added = transactionTemplate.execute(status ->
+                cartPositionWriter.addQuantity(customerId, productId, 1, 50, 100));
+        assertEquals(Boolean.FALSE, added, "Upsert shouldn't change an inactive product position");
+        assertEquals(1, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Cart shouldn't be changed");
+    }
+
+    /**
+     * Позитивный тест: корзина с отложенной записью
+     * Проверяет: изменения видны сразу из памяти, в БД попадают только при записи,
+     * новое хранилище (как после перезапуска) восстанавливает корзину из БД
+     */
+    @Test
+    void shouldFlushWriteBehindCartAndRecoverIt() {
+        Long customerId = activeTestCustomer.getId();
+        ProductDto product = new ProductDto(testProduct.getId(), testProduct.getTitle(),
+                testProduct.getPrice(), testProduct.getImageUrl());
+
+        WriteBehindCartStore store = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMinutes(10), 100000);
+        store.update(customerId, cart -> {
+            cart.add(product, 2, 50, 100);
+            return null;
+        });
+
+        assertEquals(2, store.read(customerId, LiveCart::summary).getTotalQuantity(),
+                "Live cart should be changed at once");
+        assertNull(customerRepository.findActiveCartTotals(customerId)
+                        .map(CartTotalsView::getTotalQuantity).orElse(null),
+                "Database shouldn't be changed before the flush");
+
+        store.flush();
+        assertEquals(2L, customerRepository.findActiveCartTotals(customerId)
+                        .map(CartTotalsView::getTotalQuantity).orElse(null),
+                "Database should be changed by the flush");
+
+        store.update(customerId, cart -> {
+            cart.add(product, 3, 50, 100);
+            return null;
+        });
+        store.shutdown();
+
+        // New store, like after a restart / Новое хранилище, как после перезапуска
+        WriteBehindCartStore recovered = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMinutes(10), 100000);
+        assertEquals(5, recovered.read(customerId, LiveCart::summary).getTotalQuantity(),
+                "Cart should be recovered from the database");
+
+        recovered.update(customerId, cart -> {
+            cart.remove(testProduct.getId());
+            return null;
+        });
+        recovered.flush();
+        assertEquals(0, customerRepository.findActiveCartTotals(customerId)
+                        .map(CartTotalsView::getPositionsCount).orElse(-1L),
+                "Removed position should be deleted by the flush");
+    }
+
+    /**
+     * Нагрузочный тест: изменения корзины с отложенной записью во время вытеснения
+     * Проверяет: изменение, пересёкшееся с вытеснением всех корзин, не теряется, а применяется
+     * либо к вытесняемой корзине до её записи, либо к заново загруженной
+     */
+    @Test
+    void shouldNotLoseWriteBehindChangesDuringEviction() throws InterruptedException {
+        Long customerId = activeTestCustomer.getId();
+        ProductDto product = new ProductDto(testProduct.getId(), testProduct.getTitle(),
+                testProduct.getPrice(), testProduct.getImageUrl());
+        int adds = 100;
+
+        WriteBehindCartStore store = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMinutes(10), 100000);
+        CountDownLatch addsDone = new CountDownLatch(1);
+        Thread evictor = new Thread(() -> {
+            while (addsDone.getCount() > 0) {
+                store.evictAll();
+            }
+        });
+        evictor.start();
+        try {
+            for (int i = 0; i < adds; i++) {
+                store.update(customerId, cart -> {
+                    cart.add(product, 1, 50, 100);
+                    return null;
+                });
+            }
+        } finally {
+            addsDone.countDown();
+            evictor.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        store.evictAll();
+
+        assertEquals((long) adds, customerRepository.findActiveCartTotals(customerId)
+                        .map(CartTotalsView::getTotalQuantity).orElse(null),
+                "Every acknowledged change should be written");
+    }
+
+    /**
+     * Позитивный тест: вытеснение неиспользуемых корзин из хранилища с отложенной записью
+     * Проверяет: сверх предельного размера удаляется давнее всего использованная корзина,
+     * неиспользуемые корзины удаляются после записи их изменений и заново загружаются из БД
+     */
+    @Test
+    void shouldEvictIdleWriteBehindCarts() throws InterruptedException {
+        Long customerId = activeTestCustomer.getId();
+        ProductDto product = new ProductDto(testProduct.getId(), testProduct.getTitle(),
+                testProduct.getPrice(), testProduct.getImageUrl());
+        Customer secondCustomer = new Customer();
+        secondCustomer.setName("Second Customer");
+        secondCustomer.setActive(true);
+        Long secondId = customerRepository.save(secondCustomer).getId();
+
+        // Size cap of one cart / Предельный размер - одна корзина
+        WriteBehindCartStore capped = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMinutes(10), 1);
+        capped.read(customerId, LiveCart::summary);
+        capped.read(secondId, LiveCart::summary);
+        capped.evictIdle();
+        assertEquals(1, capped.size(), "Store shouldn't keep more carts than the cap");
+        assertNotNull(capped.findLoadedRows(secondId), "Most recently accessed cart should be kept");
+
+        // Idle period shorter than the test / Период бездействия короче теста
+        WriteBehindCartStore idle = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMillis(1), 100000);
+        idle.update(customerId, cart -> {
+            cart.add(product, 2, 50, 100);
+            return null;
+        });
+        Thread.sleep(5);
+        idle.evictIdle();
+        assertEquals(0, idle.size(), "Idle cart should be removed from memory");
+        assertEquals(2L, customerRepository.findActiveCartTotals(customerId)
+                        .map(CartTotalsView::getTotalQuantity).orElse(null),
+                "Changes of an idle cart should be written before it is removed");
+        assertEquals(2, idle.read(customerId, LiveCart::summary).getTotalQuantity(),
+                "Removed cart should be loaded again from the database");
+    }
+
+    /**
+     * Нагрузочный тест: параллельные изменения одной корзины
+     * Проверяет: при одновременных добавлениях из нескольких потоков (одиночных через upsert
+     * и пакетных через JPA) ни одна единица товара не теряется: без блокировки конфликты повторяются,
+     * а исчерпавшие попытки записи отклоняются целиком; с блокировкой по покупателю конфликтов нет
+     */
+    @Test
+    void shouldNotLoseQuantityUnderConcurrentCartWrites() throws InterruptedException {
+        List<Long> productIds = new ArrayList<>();
+        productIds.add(testProduct.getId());
+        for (String title : List.of("Second product", "Third product", "Fourth product")) {
+            Product product = new Product();
+            product.setTitle(title);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setActive(true);
+            productIds.add(productRepository.save(product).getId());
+        }
+
+        // Optimistic locking with retries only / Только оптимистическая блокировка с повторами
+        Customer optimisticCustomer = activeTestCustomer;
+        CartStressResult optimistic = runConcurrentCartWrites(customerService, optimisticCustomer.getId(),
+                productIds, "optimistic");
+        for (Throwable error : optimistic.errors()) {
+            assertInstanceOf(ConcurrencyFailureException.class, error,
+                    "Only exhausted conflicts may be rejected, got: " + error);
+        }
+        assertTrue(optimistic.errors().isEmpty() || optimistic.retries() > 0,
+                "Conflicts should be retried before an add is rejected");
+        assertEquals(CART_STRESS_OPERATIONS - optimistic.errors().size(),
+                customerService.getCustomerCartSummary(optimisticCustomer.getId()).getTotalQuantity(),
+                "Every successful add should be counted exactly once");
+
+        // Striped lock around the same service / Блокировка по покупателю вокруг того же сервиса
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(customerService);
+        proxyFactory.addInterface(CustomerService.class);
+        proxyFactory.addAspect(new CartWriteConcurrency(10, 5, 200, true, 64));
+        CustomerService lockedService = proxyFactory.getProxy();
+
+        Customer lockedCustomer = new Customer();
+        lockedCustomer.setName("Locked Customer");
+        lockedCustomer.setActive(true);
+        lockedCustomer = customerRepository.save(lockedCustomer);
+
+        CartStressResult locked = runConcurrentCartWrites(lockedService, lockedCustomer.getId(), productIds,
+                "striped lock");
+        assertTrue(locked.errors().isEmpty(), "Writes under the customer lock shouldn't fail, got: " + locked.errors());
+        assertEquals(0, locked.retries(), "Writes under the customer lock shouldn't conflict");
+        CartSummaryDto summary = customerService.getCustomerCartSummary(lockedCustomer.getId());
+        assertEquals(productIds.size(), summary.getPositionsCount(), "Every product should be in one position");
+        assertEquals(CART_STRESS_OPERATIONS, summary.getTotalQuantity(), "No added quantity should be lost");
+    }
+
+    /**
+     * Adds one item per operation from CART_STRESS_THREADS threads, alternating single and batch adds,
+     * logs throughput at INFO (visible in the test log, no lower bound is asserted on shared CI machines),
+     * returns the errors of rejected operations and the number of retries
+     */
+    private CartStressResult runConcurrentCartWrites(CustomerService service, Long customerId,
+                                                     List<Long> productIds, String mode)
+            throws InterruptedException {
+        long retriesBefore = cartWriteConcurrency.getRetryCount();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CART_STRESS_THREADS);
+        int operationsPerThread = CART_STRESS_OPERATIONS / CART_STRESS_THREADS;
+
+        for (int t = 0; t < CART_STRESS_THREADS; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operationsPerThread; i++) {
+                    Long productId = productIds.get((thread + i) % productIds.size());
+                    try {
+                        if (i % 2 == 0) {
+                            service.addProductToCart(customerId, productId, 1);
+                        } else {
+                            service.addProductsToCart(customerId, List.of(new CartItemDto(productId, 1)));
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Stress test should finish in time");
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        long retries = cartWriteConcurrency.getRetryCount() - retriesBefore;
+        logger.info("Cart stress test ({}): {} operations in {} ms ({} ops/s), {} retries, {} rejected",
+                mode, CART_STRESS_OPERATIONS, elapsedMs, CART_STRESS_OPERATIONS * 1000 / elapsedMs,
+                retries, errors.size());
+        return new CartStressResult(errors, retries);
+    }
+
+    private record CartStressResult(Queue<Throwable> errors, long retries) {
+    }
+
+    /**
+     * Позитивный и негативный тест: пакет операций с корзиной
+     * Проверяет: операции применяются по порядку одной транзакцией,
+     * ошибка в любой операции откатывает весь пакет
+     */
+    @Test
+    void shouldApplyCartOperationsAtomically() {
+        Long customerId = activeTestCustomer.getId();
+        Product secondProduct = new Product();
+        secondProduct.setTitle("Second product");
+        secondProduct.setPrice(new BigDecimal("10.00"));
+        secondProduct.setActive(true);
+        Long secondId = productRepository.save(secondProduct).getId();
+
+        CartDto cart = customerService.applyCartOperations(customerId, List.of(
+                new CartOperationDto(CartOperationDto.Type.ADD, testProduct.getId(), 3),
+                new CartOperationDto(CartOperationDto.Type.ADD, secondId, 2),
+                new CartOperationDto(CartOperationDto.Type.SET, testProduct.getId(), 5),
+                new CartOperationDto(CartOperationDto.Type.REMOVE, secondId, 0)
+        ));
+        assertEquals(1, cart.getPositions().size(), "Removed product shouldn't stay in the cart");
+        assertEquals(5, cart.getTotalQuantity(), "SET should replace the added quantity");
+
+        assertThrows(EntityUpdateException.class, () -> customerService.applyCartOperations(customerId, List.of(
+                        new CartOperationDto(CartOperationDto.Type.CLEAR, null, 0),
+                        new CartOperationDto(CartOperationDto.Type.REMOVE, secondId, 0))),
+                "Removing a product that is not in the cart should fail");
+        assertEquals(5, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Failed batch shouldn't change the cart");
+
+        assertThrows(EntityUpdateException.class, () -> customerService.applyCartOperations(customerId, List.of(
+                        new CartOperationDto(CartOperationDto.Type.ADD, testProduct.getId(), 96))),
+                "Position quantity above the limit should be rejected");
+
+        cart = customerService.applyCartOperations(customerId, List.of(
+                new CartOperationDto(CartOperationDto.Type.CLEAR, null, 0),
+                new CartOperationDto(CartOperationDto.Type.ADD, secondId, 1)
+        ));
+        assertEquals(1, cart.getTotalQuantity(), "Batch should continue after CLEAR");
+        assertEquals(new BigDecimal("10.00"), cart.getTotalPrice(), "Only the added product should be counted");
+    }
+
     @BeforeEach
     public void setUp() {
         // Создаем активного покупателя
@@ -487,10 +1062,580 @@ class CustomerControllerTestIT {
     /**
      * Очистка базы данных после каждого теста
      */
+    /**
+     * Позитивный тест: чтение покупателей и корзин идёт через проекции в read-only транзакциях
+     * Проверяет: каждый SQL-запрос чтения выполняется в read-only транзакции, сущности не загружаются
+     */
+    @Test
+    void shouldReadCustomersThroughProjectionsInReadOnlyTransactions() {
+        Long customerId = activeTestCustomer.getId();
+        customerService.addProductToCart(customerId, testProduct.getId(), 2);
+
+        withStatistics(statistics -> {
+            ReadOnlyStatementInspector.start();
+            List<ReadOnlyStatementInspector.RecordedStatement> statements;
+            try {
+                assertFalse(customerService.getAllActiveCustomers(true).isEmpty(), "Customers should be read");
+                assertFalse(customerService.getActiveCustomersPage(null, 10, true).isEmpty(),
+                        "Customer page should be read");
+                assertEquals(1, customerService.getActiveCustomerById(customerId).getCart().getPositions().size(),
+                        "Customer should be read with the cart");
+                customerService.streamAllActiveCustomers(customer -> { });
+                assertEquals(2, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                        "Cart summary should be read");
+            } finally {
+                statements = ReadOnlyStatementInspector.stop();
+            }
+
+            assertFalse(statements.isEmpty(), "Reads should execute SQL statements");
+            for (ReadOnlyStatementInspector.RecordedStatement statement : statements) {
+                assertTrue(statement.transactional() && statement.readOnly(),
+                        "Read should run in a read-only transaction: " + statement.sql());
+            }
+            assertEquals(0, statistics.getEntityLoadCount(), "Reads shouldn't load entities");
+        });
+    }
+
+    /**
+     * Позитивный тест: страницы покупателей с фиксированным числом запросов
+     * Проверяет: страница любого размера читается двумя запросами с корзинами
+     * и одним без корзин, без отдельных запросов на каждого покупателя
+     */
+    @Test
+    void shouldServeCustomerPagesWithFixedNumberOfStatements() {
+        for (int i = 0; i < 12; i++) {
+            Customer customer = new Customer();
+            customer.setName("Page Customer");
+            customer.setActive(true);
+            Long customerId = customerRepository.save(customer).getId();
+            customerService.addProductToCart(customerId, testProduct.getId(), 1 + i % 3);
+        }
+
+        withStatistics(statistics -> {
+            for (int size : new int[]{2, 13}) {
+                statistics.clear();
+                List<CustomerDto> page = customerService.getActiveCustomersPage(null, size, true);
+                assertEquals(size, page.size(), "Page has incorrect size");
+                assertNotNull(page.get(page.size() - 1).getCart(), "Cart should be included");
+                assertEquals(2, statistics.getPrepareStatementCount(),
+                        "Page of " + size + " customers with carts should be read with two statements");
+                assertEquals(0, statistics.getEntityLoadCount(), "No entities should be loaded");
+
+                statistics.clear();
+                page = customerService.getActiveCustomersPage(null, size, false);
+                assertTrue(page.stream().allMatch(customer -> customer.getCart() == null),
+                        "Cart shouldn't be included");
+                assertEquals(1, statistics.getPrepareStatementCount(),
+                        "Page of " + size + " customers without carts should be read with one statement");
+            }
+
+            statistics.clear();
+            List<CustomerDto> streamed = new ArrayList<>();
+            customerService.streamAllActiveCustomers(streamed::add);
+            assertEquals(13, streamed.size(), "All active customers should be streamed");
+            assertEquals(2, statistics.getPrepareStatementCount(),
+                    "Streaming one chunk of customers with carts should take two statements");
+        });
+    }
+
+    /**
+     * Позитивный тест: сборщик заброшенных корзин
+     * Проверяет: позиции корзины без изменений дольше периода удаляются пакетами,
+     * итоги сбрасываются, активная корзина не затрагивается, метрики считаются
+     */
+    @Test
+    void shouldSweepAbandonedCartsInBatches() {
+        Long customerId = activeTestCustomer.getId();
+        Product secondProduct = new Product();
+        secondProduct.setTitle("Second product");
+        secondProduct.setPrice(new BigDecimal("10.00"));
+        secondProduct.setActive(true);
+        Long secondId = productRepository.save(secondProduct).getId();
+        customerService.addProductsToCart(customerId, List.of(
+                new CartItemDto(testProduct.getId(), 2), new CartItemDto(secondId, 1)));
+
+        Customer freshCustomer = new Customer();
+        freshCustomer.setName("Fresh Customer");
+        freshCustomer.setActive(true);
+        Long freshId = customerRepository.save(freshCustomer).getId();
+        customerService.addProductToCart(freshId, testProduct.getId(), 1);
+
+        // Корзина первого покупателя не менялась 40 дней
+        jdbcTemplate.update("UPDATE cart SET updated_at = ? WHERE customer_id = ?",
+                LocalDateTime.now().minusDays(40), customerId);
+
+        // Пакет из одной строки, чтобы удаление шло в несколько запросов
+        AbandonedCartSweeper sweeper = new AbandonedCartSweeper(
+                jdbcTemplate, transactionTemplate, cartTotalsWriter, cartStore, true, Duration.ofDays(30), 1);
+        assertEquals(2, sweeper.sweep(LocalDateTime.now().minusDays(30)),
+                "Both positions of the abandoned cart should be removed");
+
+        CartSummaryDto abandoned = customerService.getCustomerCartSummary(customerId);
+        assertEquals(0, abandoned.getPositionsCount(), "Abandoned cart should be empty");
+        assertEquals(0, abandoned.getTotalQuantity(), "Totals of the abandoned cart should be reset");
+        assertEquals(0, BigDecimal.ZERO.compareTo(abandoned.getTotalPrice()),
+                "Totals of the abandoned cart should be reset");
+        assertEquals(1, customerService.getCustomerCartSummary(freshId).getTotalQuantity(),
+                "Recently changed cart shouldn't be touched");
+
+        assertEquals(2, sweeper.getStats().getRemovedPositions(), "Removed positions should be counted");
+        assertEquals(1, sweeper.getStats().getClearedCarts(), "Cleared carts should be counted");
+        assertEquals(1, sweeper.getStats().getRuns(), "Runs should be counted");
+        assertEquals(0, sweeper.sweep(LocalDateTime.now().minusDays(30)), "Second run should find nothing");
+
+        HttpHeaders headers = createAdminHeaders();
+        ResponseEntity<CartSweeperStatsDto> stats = httpClient.exchange(CUSTOMER_RESOURCE + "/cart-sweeper/stats",
+                HttpMethod.GET, new HttpEntity<>(headers), CartSweeperStatsDto.class);
+        assertEquals(HttpStatus.OK, stats.getStatusCode(), "Response has unexpected status");
+        assertNotNull(stats.getBody(), "Response body should not be null");
+        ResponseEntity<String> anonymous = httpClient.getForEntity(CUSTOMER_RESOURCE + "/cart-sweeper/stats",
+                String.class);
+        assertTrue(anonymous.getStatusCode().is4xxClientError(), "Sweeper stats should require authentication");
+    }
+
+    /**
+     * Позитивный тест: сборщик не мешает покупателю, вернувшемуся к корзине
+     * Проверяет: корзина, заблокированная записью покупателя, пропускается до следующего запуска;
+     * в режиме отложенной записи корзина, изменённая в памяти, но со старым временем в БД, не очищается,
+     * а неизменённая корзина в памяти очищается и записывается в БД
+     */
+    @Test
+    void shouldNotSweepCartsChangedDuringTheSweep() throws InterruptedException {
+        Long customerId = activeTestCustomer.getId();
+        customerService.addProductToCart(customerId, testProduct.getId(), 2);
+        jdbcTemplate.update("UPDATE cart SET updated_at = ? WHERE customer_id = ?",
+                LocalDateTime.now().minusDays(40), customerId);
+        AbandonedCartSweeper sweeper = new AbandonedCartSweeper(
+                jdbcTemplate, transactionTemplate, cartTotalsWriter, cartStore, true, Duration.ofDays(30), 10);
+
+        // Customer's write holds the cart lock / Запись покупателя держит блокировку корзины
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM cart WHERE customer_id = ? FOR UPDATE", Long.class, customerId);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        writer.start();
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS), "Writer should lock the cart");
+            assertEquals(0, sweeper.sweep(LocalDateTime.now().minusDays(30)), "Locked cart should be skipped");
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+        assertEquals(2, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Skipped cart should keep its positions");
+
+        // Write-behind: cart changed in memory, database row still old / Изменение в памяти, строка в БД старая
+        Customer idleCustomer = new Customer();
+        idleCustomer.setName("Idle Customer");
+        idleCustomer.setActive(true);
+        Long idleId = customerRepository.save(idleCustomer).getId();
+        customerService.addProductToCart(idleId, testProduct.getId(), 1);
+        jdbcTemplate.update("UPDATE cart SET updated_at = ? WHERE customer_id = ?",
+                LocalDateTime.now().minusDays(40), idleId);
+
+        WriteBehindCartStore store = new WriteBehindCartStore(
+                customerRepository, jdbcTemplate, transactionTemplate, cartTotalsWriter, true,
+                Duration.ofMinutes(10), 100000);
+        ProductDto product = new ProductDto(testProduct.getId(), testProduct.getTitle(),
+                testProduct.getPrice(), testProduct.getImageUrl());
+        store.update(customerId, cart -> {
+            cart.add(product, 1, 50, 100);
+            return null;
+        });
+        assertEquals(1, store.read(idleId, LiveCart::summary).getTotalQuantity(), "Idle cart should be loaded");
+
+        AbandonedCartSweeper liveSweeper = new AbandonedCartSweeper(
+                jdbcTemplate, transactionTemplate, cartTotalsWriter, store, true, Duration.ofDays(30), 10);
+        assertEquals(1, liveSweeper.sweep(LocalDateTime.now().minusDays(30)),
+                "Only the unchanged live cart should be cleared");
+        assertEquals(3, store.read(customerId, LiveCart::summary).getTotalQuantity(),
+                "Cart changed in memory should keep all positions");
+        assertEquals(0, store.read(idleId, LiveCart::summary).getTotalQuantity(), "Idle live cart should be cleared");
+        assertEquals(0, customerRepository.findActiveCartTotals(idleId)
+                        .map(CartTotalsView::getPositionsCount).orElse(-1L),
+                "Clearing should be written to the database");
+        store.shutdown();
+        assertEquals(3, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Untouched positions of the changed cart should be written back");
+    }
+
+    /**
+     * Позитивный тест: оформление заказа из корзины
+     * Проверяет: строки заказа копируют позиции активных товаров с текущими ценами,
+     * заказанные позиции удаляются из корзины, позиции неактивных товаров остаются,
+     * позиции не загружаются в Java, последующая смена цены не меняет заказ
+     */
+    @Test
+    void shouldCheckoutCartIntoOrder() {
+        Long customerId = activeTestCustomer.getId();
+        Product inactiveProduct = new Product();
+        inactiveProduct.setTitle("Inactive product");
+        inactiveProduct.setPrice(new BigDecimal("5.00"));
+        inactiveProduct.setActive(true);
+        Long inactiveId = productRepository.save(inactiveProduct).getId();
+        customerService.addProductsToCart(customerId, List.of(
+                new CartItemDto(testProduct.getId(), 3), new CartItemDto(inactiveId, 1)));
+        productService.deleteById(inactiveId);
+
+        OrderDto order = withStatistics(statistics -> {
+            OrderDto created = customerService.checkout(customerId);
+            assertEquals(0, statistics.getEntityStatistics(Position.class.getName()).getLoadCount(),
+                    "Positions shouldn't be loaded into Java");
+            return created;
+        });
+
+        assertNotNull(order.getId(), "Order should be created");
+        assertEquals(customerId, order.getCustomerId(), "Order should belong to the customer");
+        assertEquals(1, order.getLines().size(), "Only positions of active products should be ordered");
+        OrderLineDto line = order.getLines().get(0);
+        assertEquals(testProduct.getId(), line.getProduct().getId(), "Order line has incorrect product");
+        assertEquals(3, line.getQuantity(), "Order line has incorrect quantity");
+        assertEquals(0, new BigDecimal("100.00").compareTo(line.getPrice()), "Order line should keep the price");
+        assertEquals(0, new BigDecimal("300.00").compareTo(order.getTotalPrice()), "Order has incorrect total");
+        assertEquals(3, order.getTotalQuantity(), "Order has incorrect quantity");
+
+        CartSummaryDto cart = customerService.getCustomerCartSummary(customerId);
+        assertEquals(1, cart.getPositionsCount(), "Only the position of the inactive product should stay in the cart");
+        assertEquals(0, cart.getTotalQuantity(), "Ordered positions should leave the cart totals");
+
+        ProductUpdateDto updateDto = new ProductUpdateDto();
+        updateDto.setNewPrice(new BigDecimal("50.00"));
+        productService.update(testProduct.getId(), updateDto);
+        assertEquals(0, new BigDecimal("300.00").compareTo(orderRepository.findWithLinesById(order.getId())
+                        .orElseThrow().getTotalPrice().toBigDecimal()),
+                "Price change shouldn't affect the order");
+
+        assertThrows(EntityUpdateException.class, () -> customerService.checkout(customerId),
+                "Cart without active products shouldn't be checked out");
+        productService.restoreById(inactiveId);
+        assertEquals(1, customerService.getCustomerCartSummary(customerId).getTotalQuantity(),
+                "Kept position should count again when the product is restored");
+        assertThrows(EntityNotFoundException.class, () -> customerService.checkout(inactiveTestCustomer.getId()),
+                "Inactive customer shouldn't check out");
+    }
+
+    /**
+     * Позитивный и негативный тест: эндпоинты корзины и оформления заказа через HTTP
+     * Проверяет: пакетное добавление, пакет операций, сводка корзины, оформление заказа
+     * и потоковая выдача покупателей доступны через HTTP с ролью, без аутентификации заказ не оформляется
+     */
+    @Test
+    void shouldServeCartEndpointsAndCheckoutOverHttp() {
+        HttpHeaders headers = createAdminHeaders();
+        Long customerId = activeTestCustomer.getId();
+        String cartResource = CUSTOMER_RESOURCE + "/" + customerId;
+
+        ResponseEntity<CartDto> added = httpClient.exchange(cartResource + "/cart/products", HttpMethod.POST,
+                new HttpEntity<>(List.of(new CartItemDto(testProduct.getId(), 2)), headers), CartDto.class);
+        assertEquals(HttpStatus.CREATED, added.getStatusCode(), "Response has unexpected status");
+
+        ResponseEntity<CartDto> changed = httpClient.exchange(cartResource + "/cart", HttpMethod.PATCH,
+                new HttpEntity<>(List.of(new CartOperationDto(CartOperationDto.Type.ADD, testProduct.getId(), 1)),
+                        headers), CartDto.class);
+        assertEquals(HttpStatus.OK, changed.getStatusCode(), "Response has unexpected status");
+
+        ResponseEntity<CartSummaryDto> summary = httpClient.exchange(cartResource + "/cart/summary",
+                HttpMethod.GET, new HttpEntity<>(headers), CartSummaryDto.class);
+        assertEquals(HttpStatus.OK, summary.getStatusCode(), "Response has unexpected status");
+        assertNotNull(summary.getBody(), "Response body should not be null");
+        assertEquals(3, summary.getBody().getTotalQuantity(), "Both cart changes should be applied");
+
+        ResponseEntity<OrderDto> anonymous = httpClient.exchange(cartResource + "/checkout", HttpMethod.POST,
+                HttpEntity.EMPTY, OrderDto.class);
+        assertTrue(anonymous.getStatusCode().is4xxClientError(), "Checkout should require authentication");
+
+        ResponseEntity<OrderDto> order = httpClient.exchange(cartResource + "/checkout", HttpMethod.POST,
+                new HttpEntity<>(headers), OrderDto.class);
+        assertEquals(HttpStatus.CREATED, order.getStatusCode(), "Response has unexpected status");
+        assertNotNull(order.getBody(), "Response body should not be null");
+        assertEquals(3, order.getBody().getTotalQuantity(), "Order should contain the cart");
+        assertEquals(0, customerService.getCustomerCartSummary(customerId).getPositionsCount(),
+                "Ordered positions should leave the cart");
+
+        ResponseEntity<String> stream = httpClient.exchange(CUSTOMER_RESOURCE + "/stream", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, stream.getStatusCode(), "Response has unexpected status");
+        assertNotNull(stream.getBody(), "Response body should not be null");
+        assertTrue(stream.getBody().contains(activeTestCustomer.getName()), "Active customer should be streamed");
+    }
+
+    /**
+     * Позитивный тест: каждый метод сервиса загружает только то, что использует
+     * Проверяет: изменение имени и удаление не загружают позиции и товары корзины,
+     * изменение корзины загружает покупателя, корзину, позиции и товары одним запросом без догрузок
+     */
+    @Test
+    void shouldLoadOnlyWhatServiceMethodTouches() {
+        Long customerId = activeTestCustomer.getId();
+        Product secondProduct = new Product();
+        secondProduct.setTitle("Second product");
+        secondProduct.setPrice(new BigDecimal("20.00"));
+        secondProduct.setActive(true);
+        Long secondId = productRepository.save(secondProduct).getId();
+        customerService.addProductsToCart(customerId, List.of(
+                new CartItemDto(testProduct.getId(), 2), new CartItemDto(secondId, 1)));
+
+        withStatistics(statistics -> {
+            CustomerUpdateDto updateDto = new CustomerUpdateDto();
+            updateDto.setNewName("Renamed Customer");
+            customerService.update(customerId, updateDto);
+            assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount(),
+                    "Name change should be one UPDATE without loading the customer");
+            assertEquals(0, statistics.getEntityStatistics(Position.class.getName()).getLoadCount(),
+                    "Name change shouldn't load cart positions");
+            assertEquals(0, statistics.getEntityStatistics(Product.class.getName()).getLoadCount(),
+                    "Name change shouldn't load products");
+
+            statistics.clear();
+            customerService.removeProductFromCart(customerId, secondId);
+            assertEquals(1, statistics.getQueryExecutionCount(), "Cart change should load the cart with one query");
+            assertEquals(0, statistics.getEntityFetchCount(), "Cart change shouldn't fetch entities lazily");
+            assertEquals(0, statistics.getCollectionFetchCount(), "Cart change shouldn't fetch collections lazily");
+
+            statistics.clear();
+            customerService.deleteById(customerId);
+            assertEquals(0, statistics.getEntityStatistics(Position.class.getName()).getLoadCount(),
+                    "Deletion shouldn't load cart positions");
+            assertEquals(0, statistics.getEntityStatistics(Product.class.getName()).getLoadCount(),
+                    "Deletion shouldn't load products");
+        });
+    }
+
+    /**
+     * Позитивный тест: изменение, удаление и восстановление покупателя одним UPDATE
+     * Проверяет: покупатель и корзина не загружаются, 404 по количеству изменённых строк,
+     * групповое удаление пропускает отсутствующих и уже неактивных покупателей
+     */
+    @Test
+    void shouldWriteCustomersWithSingleUpdate() {
+        Long customerId = activeTestCustomer.getId();
+        CustomerUpdateDto updateDto = new CustomerUpdateDto();
+        updateDto.setNewName("Single Update");
+
+        withStatistics(statistics -> {
+            customerService.update(customerId, updateDto);
+            customerService.deleteById(customerId);
+            customerService.restoreById(customerId);
+            assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount(),
+                    "Writes shouldn't load customers");
+            assertEquals(0, statistics.getEntityStatistics(Cart.class.getName()).getLoadCount(),
+                    "Writes shouldn't load carts");
+        });
+        assertEquals("Single Update", customerRepository.findById(customerId).orElseThrow().getName(),
+                "Name should be updated");
+
+        Long inactiveId = inactiveTestCustomer.getId();
+        assertThrows(EntityNotFoundException.class, () -> customerService.update(inactiveId, updateDto),
+                "Inactive customer shouldn't be updated");
+        assertThrows(EntityNotFoundException.class, () -> customerService.deleteById(inactiveId),
+                "Inactive customer shouldn't be deleted");
+        assertThrows(EntityNotFoundException.class, () -> customerService.restoreById(Long.MAX_VALUE),
+                "Missing customer shouldn't be restored");
+
+        assertEquals(1, customerService.deleteByIds(List.of(customerId, inactiveId, Long.MAX_VALUE, customerId)),
+                "Only active customers should be counted as deleted");
+        assertFalse(customerRepository.findById(customerId).orElseThrow().isActive(),
+                "Customer should be deactivated by the bulk delete");
+    }
+
+    /**
+     * Позитивный тест: поиск покупателей по имени
+     * Проверяет: поиск по части и по началу имени без учёта регистра, только активные покупатели,
+     * keyset-страницы, подстановочные символы сравниваются буквально
+     */
+    @Test
+    void shouldSearchActiveCustomersByName() {
+        List<Long> ids = new ArrayList<>();
+        for (String name : List.of("John Smith", "Anna Johnson", "Marjorie Stone", "Peter Parker")) {
+            Customer customer = new Customer();
+            customer.setName(name);
+            ids.add(customerRepository.save(customer).getId());
+        }
+
+        List<CustomerDto> found = customerService.searchActiveCustomers("JOH", false, null, 10);
+        assertEquals(List.of(ids.get(0), ids.get(1)), found.stream().map(CustomerDto::getId).toList(),
+                "Substring search should find names containing the text, ordered by ID");
+        assertNull(found.get(0).getCart(), "Search results shouldn't include carts");
+
+        assertEquals(List.of(ids.get(0)),
+                customerService.searchActiveCustomers("jo", true, null, 10).stream().map(CustomerDto::getId).toList(),
+                "Prefix search should match the beginning of the name only");
+        assertEquals(List.of(ids.get(2)),
+                customerService.searchActiveCustomers(" jor ", false, null, 10).stream().map(CustomerDto::getId).toList(),
+                "Search text should be trimmed");
+
+        List<CustomerDto> first = customerService.searchActiveCustomers("customer", false, null, 1);
+        assertEquals(List.of(activeTestCustomer.getId()), first.stream().map(CustomerDto::getId).toList(),
+                "Inactive customers shouldn't be found");
+        assertTrue(customerService.searchActiveCustomers("customer", false, first.get(0).getId(), 1).isEmpty(),
+                "Next page should be empty");
+
+        assertTrue(customerService.searchActiveCustomers("%", false, null, 10).isEmpty(),
+                "Wildcards should be matched literally");
+        assertTrue(customerService.searchActiveCustomers("  ", false, null, 10).isEmpty(),
+                "Blank text should find nothing");
+    }
+
+    /**
+     * Позитивный тест: создание покупателя одним persist и пакетное создание покупателей
+     * Проверяет: покупатель и корзина вставляются без повторного сохранения, пакет создаёт
+     * покупателей с пустыми корзинами в порядке запроса, некорректный пакет не создаёт никого
+     */
+    @Test
+    void shouldCreateCustomersWithCartsInOneWrite() {
+        CustomerSaveDto single = new CustomerSaveDto();
+        single.setName("Single Customer");
+
+        CustomerDto saved = withStatistics(statistics -> {
+            CustomerDto created = customerService.save(single);
+            assertEquals(1, statistics.getEntityStatistics(Customer.class.getName()).getInsertCount(),
+                    "Customer should be inserted once");
+            assertEquals(1, statistics.getEntityStatistics(Cart.class.getName()).getInsertCount(),
+                    "Cart should be inserted together with the customer");
+            assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getUpdateCount(),
+                    "Customer shouldn't be written twice");
+            return created;
+        });
+        assertNotNull(saved.getCart().getId(), "Saved customer should have a cart");
+
+        List<CustomerSaveDto> batch = new ArrayList<>();
+        for (String name : List.of("Alpha Trade", "Beta Supply", "Gamma Parts")) {
+            CustomerSaveDto saveDto = new CustomerSaveDto();
+            saveDto.setName(name);
+            batch.add(saveDto);
+        }
+
+        List<CustomerDto> created = customerService.saveAll(batch);
+        assertEquals(List.of("Alpha Trade", "Beta Supply", "Gamma Parts"),
+                created.stream().map(CustomerDto::getName).toList(), "Customers should keep the request order");
+        for (CustomerDto customer : created) {
+            assertEquals(customer.getCart().getId(),
+                    jdbcTemplate.queryForObject("SELECT id FROM cart WHERE customer_id = ?", Long.class, customer.getId()),
+                    "Every customer should get its own cart");
+            assertEquals(0, customer.getCart().getTotalQuantity(), "New cart should be empty");
+            assertEquals(customer.getName(), customerService.getActiveCustomerById(customer.getId()).getName(),
+                    "Created customer should be active");
+        }
+
+        CustomerSaveDto invalid = new CustomerSaveDto();
+        invalid.setName("invalid name");
+        long count = customerRepository.count();
+        assertThrows(ConstraintViolationException.class,
+                () -> customerService.saveAll(List.of(batch.get(0), invalid)),
+                "Invalid customer should reject the whole batch");
+        assertEquals(count, customerRepository.count(), "Rejected batch shouldn't create customers");
+        assertTrue(customerService.saveAll(List.of()).isEmpty(), "Empty batch should create nothing");
+    }
+
+    /**
+     * Позитивный и негативный тест: эндпоинты администратора для покупателей через HTTP
+     * Проверяет: пакетное создание, поиск по имени с курсором и групповое удаление доступны ADMIN,
+     * некорректный пакет отклоняется с 400, без аутентификации пакет не принимается
+     */
+    @Test
+    void shouldServeAdminCustomerEndpointsOverHttp() {
+        HttpHeaders headers = createAdminHeaders();
+        List<CustomerSaveDto> batch = new ArrayList<>();
+        for (String name : List.of("Alpha Trade", "Beta Trade")) {
+            CustomerSaveDto saveDto = new CustomerSaveDto();
+            saveDto.setName(name);
+            batch.add(saveDto);
+        }
+
+        ResponseEntity<CustomerDto[]> created = httpClient.exchange(CUSTOMER_RESOURCE + "/batch", HttpMethod.POST,
+                new HttpEntity<>(batch, headers), CustomerDto[].class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode(), "Response has unexpected status");
+        assertNotNull(created.getBody(), "Response body should not be null");
+        assertEquals(2, created.getBody().length, "Every customer should be created");
+        assertNotNull(created.getBody()[1].getCart(), "Created customer should have a cart");
+
+        CustomerSaveDto invalid = new CustomerSaveDto();
+        invalid.setName("invalid name");
+        long count = customerRepository.count();
+        ResponseEntity<String> rejected = httpClient.exchange(CUSTOMER_RESOURCE + "/batch", HttpMethod.POST,
+                new HttpEntity<>(List.of(batch.get(0), invalid), headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode(), "Invalid batch should be rejected");
+        ResponseEntity<String> anonymous = httpClient.exchange(CUSTOMER_RESOURCE + "/batch", HttpMethod.POST,
+                new HttpEntity<>(batch), String.class);
+        assertTrue(anonymous.getStatusCode().is4xxClientError(), "Batch should require authentication");
+        assertEquals(count, customerRepository.count(), "Rejected batches shouldn't create customers");
+
+        ResponseEntity<CustomerDto[]> found = httpClient.exchange(CUSTOMER_RESOURCE + "/search?name=trade&size=1",
+                HttpMethod.GET, new HttpEntity<>(headers), CustomerDto[].class);
+        assertEquals(HttpStatus.OK, found.getStatusCode(), "Response has unexpected status");
+        assertNotNull(found.getBody(), "Response body should not be null");
+        assertEquals(created.getBody()[0].getId(), found.getBody()[0].getId(), "First match should be returned");
+        assertEquals(String.valueOf(found.getBody()[0].getId()),
+                found.getHeaders().getFirst(Constants.NEXT_CURSOR_HEADER), "Next cursor should be set");
+
+        List<Long> ids = Arrays.stream(created.getBody()).map(CustomerDto::getId).toList();
+        ResponseEntity<Integer> deleted = httpClient.exchange(CUSTOMER_RESOURCE, HttpMethod.DELETE,
+                new HttpEntity<>(ids, headers), Integer.class);
+        assertEquals(HttpStatus.OK, deleted.getStatusCode(), "Response has unexpected status");
+        assertEquals(2, deleted.getBody(), "Both customers should be deleted");
+        assertFalse(customerRepository.existsByIdAndActiveTrue(ids.get(0)), "Customer should be deactivated");
+    }
+
+    /**
+     * Creates an admin user and returns request headers with its access token cookie
+     * Создаёт администратора и возвращает заголовки запроса с cookie его access токена
+     */
+    private HttpHeaders createAdminHeaders() {
+        User admin = new User();
+        admin.setEmail("admin@test.com");
+        admin.setPassword(passwordEncoder.encode("adminPass"));
+        admin.setName("Admin");
+        admin.setRole(Role.ROLE_ADMIN);
+        admin.setConfirmed(true);
+        userRepository.save(admin);
+
+        SecretKey secretKey = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(accessPhrase));
+        String accessToken = Jwts.builder()
+                .subject(admin.getEmail())
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(secretKey)
+                .compact();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, ACCESS_TOKEN_COOKIE_NAME + "=" + accessToken);
+        return headers;
+    }
+
+    /**
+     * Runs the check with enabled and cleared Hibernate statistics, disables them afterwards
+     * Выполняет проверку с включённой и очищенной статистикой Hibernate, затем выключает её
+     */
+    private void withStatistics(Consumer<Statistics> check) {
+        withStatistics(statistics -> {
+            check.accept(statistics);
+            return null;
+        });
+    }
+
+    private <T> T withStatistics(Function<Statistics, T> check) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            return check.apply(statistics);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
     @AfterEach
     public void cleanDatabase() {
         // Важно удалять в правильном порядке из-за внешних ключей
+        orderRepository.deleteAll();
         customerRepository.deleteAll();
         productRepository.deleteAll();
+        userRepository.deleteAll();
     }
 }
\ No newline at end of file
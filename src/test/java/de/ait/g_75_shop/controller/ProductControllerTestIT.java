@@ -4,13 +4,32 @@ import de.ait.g_75_shop.constants.Constants;
 import de.ait.g_75_shop.domain.Product;
 import de.ait.g_75_shop.domain.User;
 import de.ait.g_75_shop.domain.enums.Role;
+import de.ait.g_75_shop.dto.mapping.ProductMapper;
+import de.ait.g_75_shop.dto.product.ProductCacheStatsDto;
 import de.ait.g_75_shop.dto.product.ProductDto;
+import de.ait.g_75_shop.dto.product.ProductImportErrorDto;
+import de.ait.g_75_shop.dto.product.ProductImportReportDto;
 import de.ait.g_75_shop.dto.product.ProductSaveDto;
+import de.ait.g_75_shop.dto.product.ProductSearchResultDto;
+import de.ait.g_75_shop.dto.product.ProductUpdateDto;
+import de.ait.g_75_shop.exceptions.types.EntityNotFoundException;
 import de.ait.g_75_shop.repository.ProductRepository;
 import de.ait.g_75_shop.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ait.g_75_shop.service.catalog.ProductCache;
+import de.ait.g_75_shop.service.catalog.ProductCatalogSnapshot;
+import de.ait.g_75_shop.service.catalog.ProductCatalogStatistics;
+import de.ait.g_75_shop.service.catalog.ProductChangedEvent;
+import de.ait.g_75_shop.service.catalog.ProductPriceIndex;
+import de.ait.g_75_shop.service.catalog.ProductSearchIndex;
+import de.ait.g_75_shop.service.interfaces.FileService;
+import de.ait.g_75_shop.service.interfaces.ProductService;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,19 +37,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.Ordered;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static de.ait.g_75_shop.constants.Constants.ACCESS_TOKEN_COOKIE_NAME;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class ProductControllerTestIT {
@@ -44,6 +78,37 @@ class ProductControllerTestIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductPriceIndex priceIndex;
+
+    @Autowired
+    private ProductCatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private ProductCatalogStatistics catalogStatistics;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Uploads go to the object storage, which is not available in tests / Хранилище файлов в тестах недоступно
+    @MockitoBean
+    private FileService fileService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
 
@@ -150,6 +215,467 @@ class ProductControllerTestIT {
         assertEquals(activeProduct.getTitle(), product.getTitle(), "Returned product has incorrect title");
     }
 
+    /**
+     * Positive test: Get active products by keyset page
+     * Позитивный тест: Получение активных продуктов keyset-страницей
+     */
+    @Test
+    public void shouldGetActiveProductsPage() {
+        ResponseEntity<ProductDto[]> response = httpClient.getForEntity(
+                PRODUCT_RESOURCE + "?size=10", ProductDto[].class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        ProductDto[] products = response.getBody();
+        assertNotNull(products, "Response body shouldn't be null");
+        assertEquals(1, products.length, "Page should contain only active products");
+
+        // Next cursor is the last ID of the page / Курсор следующей страницы - последний ID на странице
+        String cursor = response.getHeaders().getFirst(Constants.NEXT_CURSOR_HEADER);
+        assertEquals(String.valueOf(products[0].getId()), cursor, "Response has incorrect next cursor");
+
+        // Page after the cursor is empty / Страница после курсора пустая
+        ResponseEntity<ProductDto[]> nextResponse = httpClient.getForEntity(
+                PRODUCT_RESOURCE + "?after=" + cursor + "&size=10", ProductDto[].class
+        );
+        assertNotNull(nextResponse.getBody(), "Response body shouldn't be null");
+        assertEquals(0, nextResponse.getBody().length, "Page after the last product should be empty");
+        assertNull(nextResponse.getHeaders().getFirst(Constants.NEXT_CURSOR_HEADER), "Last page shouldn't have cursor");
+    }
+
+    /**
+     * Positive test: Stream active products as NDJSON
+     * Позитивный тест: Потоковая выдача активных продуктов в формате NDJSON
+     */
+    @Test
+    public void shouldStreamActiveProducts() {
+        ResponseEntity<String> response = httpClient.getForEntity(
+                PRODUCT_RESOURCE + "/stream", String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        String body = response.getBody();
+        assertNotNull(body, "Response body shouldn't be null");
+
+        String[] lines = body.trim().split("\n");
+        assertEquals(1, lines.length, "Stream should contain only active products");
+        assertTrue(lines[0].contains("Test active product"), "Streamed line has unexpected content");
+    }
+
+    /**
+     * Positive test: Bulk import from CSV inserts valid rows and reports invalid ones
+     * Позитивный тест: Пакетный импорт из CSV вставляет корректные строки и сообщает о некорректных
+     */
+    @Test
+    public void shouldImportProductsFromCsv() {
+        String csv = """
+                title,price
+                Imported apple,1.50
+                banana,2.00
+                Test active product,3.00
+                Imported pear,abc
+                Imported apple,4.00
+                Imported plum,5.25
+                """;
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(HttpHeaders.COOKIE, ACCESS_TOKEN_COOKIE_NAME + "=" + adminAccessToken);
+        httpHeaders.setContentType(MediaType.parseMediaType(Constants.CSV_MEDIA_TYPE));
+
+        ResponseEntity<ProductImportReportDto> response = httpClient.postForEntity(
+                PRODUCT_RESOURCE + "/import", new HttpEntity<>(csv, httpHeaders), ProductImportReportDto.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        ProductImportReportDto report = response.getBody();
+        assertNotNull(report, "Response body shouldn't be null");
+        assertEquals(6, report.getTotalRows(), "Report has incorrect total rows");
+        assertEquals(2, report.getImportedRows(), "Report has incorrect imported rows");
+        assertEquals(4, report.getFailedRows(), "Report has incorrect failed rows");
+        assertEquals(List.of(3L, 4L, 5L, 6L),
+                report.getErrors().stream().map(ProductImportErrorDto::getRow).sorted().toList(),
+                "Report has incorrect rejected rows");
+
+        assertEquals(3, repository.findAllByActiveTrue().size(), "Imported products weren't saved to the db");
+    }
+
+    /**
+     * Positive test: Product reads go through DTO projections in read-only transactions
+     * Позитивный тест: Чтение товаров идёт через DTO-проекции в read-only транзакциях
+     */
+    @Test
+    public void shouldReadProductsThroughProjectionsInReadOnlyTransactions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        ReadOnlyStatementInspector.start();
+        List<ReadOnlyStatementInspector.RecordedStatement> statements;
+        try {
+            assertEquals(1, productService.getAllActiveProducts().size(), "Active products should be read");
+            assertEquals(1, productService.getActiveProductsPage(null, 10).size(), "Product page should be read");
+            productService.streamAllActiveProducts(product -> { });
+
+            statements = ReadOnlyStatementInspector.stop();
+            assertEquals(0, statistics.getEntityLoadCount(), "Reads shouldn't load entities");
+        } finally {
+            ReadOnlyStatementInspector.stop();
+            statistics.setStatisticsEnabled(false);
+        }
+
+        assertEquals(3, statements.size(), "Every read should be one SQL statement");
+        for (ReadOnlyStatementInspector.RecordedStatement statement : statements) {
+            assertTrue(statement.transactional() && statement.readOnly(),
+                    "Read should run in a read-only transaction: " + statement.sql());
+        }
+    }
+
+    /**
+     * Positive test: Search returns only active products matching the title
+     * Позитивный тест: Поиск возвращает только активные товары с подходящим названием
+     */
+    @Test
+    public void shouldSearchActiveProductsByTitle() {
+        // Products in setUp are saved directly by repository, so the index is rebuilt
+        // Товары в setUp сохраняются напрямую через репозиторий, поэтому индекс перестраивается
+        searchIndex.rebuild();
+
+        ResponseEntity<ProductSearchResultDto> response = httpClient.getForEntity(
+                PRODUCT_RESOURCE + "/search?q=act", ProductSearchResultDto.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        ProductSearchResultDto result = response.getBody();
+        assertNotNull(result, "Response body shouldn't be null");
+        assertEquals(1, result.getTotal(), "Search should find only active products");
+        assertEquals("Test active product", result.getProducts().get(0).getTitle(), "Found product has incorrect title");
+
+        response = httpClient.getForEntity(PRODUCT_RESOURCE + "/search?q=xyz", ProductSearchResultDto.class);
+        assertNotNull(response.getBody(), "Response body shouldn't be null");
+        assertEquals(0, response.getBody().getTotal(), "Search shouldn't find unknown title");
+    }
+
+    /**
+     * Positive test: Search index ignores a product change delivered after a newer one
+     * Позитивный тест: Поисковый индекс не применяет изменение товара, доставленное после более нового
+     */
+    @Test
+    public void shouldIgnoreStaleChangeInSearchIndex() {
+        searchIndex.rebuild();
+        Product product = repository.findAllByActiveTrue().get(0);
+        long staleVersion = product.getVersion();
+
+        ProductUpdateDto updateDto = new ProductUpdateDto();
+        updateDto.setNewPrice(new BigDecimal("150.00"));
+        productService.update(product.getId(), updateDto);
+
+        // Deactivation committed before the update, delivered after it / Деактивация до обновления, доставлена после
+        searchIndex.onProductChanged(new ProductChangedEvent(product.getId(), product.getTitle(),
+                product.getPrice(), true, product.getPrice(), false, staleVersion));
+
+        assertEquals(List.of(product.getId()), searchIndex.search(product.getTitle(), 0, 10).getIds(),
+                "Stale deactivation shouldn't remove the product from the index");
+    }
+
+    /**
+     * Positive test: Price range and top-N return only active products sorted by price
+     * Позитивный тест: Диапазон цен и top-N возвращают только активные товары, отсортированные по цене
+     */
+    @Test
+    public void shouldGetActiveProductsByPrice() {
+        Product cheapProduct = new Product();
+        cheapProduct.setTitle("Test cheap product");
+        cheapProduct.setPrice(new BigDecimal("11.00"));
+        repository.save(cheapProduct);
+        // Products are saved directly by repository, so the index is rebuilt
+        // Товары сохраняются напрямую через репозиторий, поэтому индекс перестраивается
+        priceIndex.rebuild();
+
+        ResponseEntity<ProductDto[]> response = httpClient.getForEntity(
+                PRODUCT_RESOURCE + "/price-range?min=10&max=300", ProductDto[].class
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        assertNotNull(response.getBody(), "Response body shouldn't be null");
+        assertEquals(List.of("Test cheap product", "Test active product"),
+                Arrays.stream(response.getBody()).map(ProductDto::getTitle).toList(),
+                "Price range should return active products cheapest first");
+
+        response = httpClient.getForEntity(PRODUCT_RESOURCE + "/most-expensive?limit=1", ProductDto[].class);
+        assertNotNull(response.getBody(), "Response body shouldn't be null");
+        assertEquals(1, response.getBody().length, "Top-N should respect limit");
+        assertEquals("Test active product", response.getBody()[0].getTitle(), "Most expensive active product is incorrect");
+    }
+
+    /**
+     * Positive test: Price index ignores a product change delivered after a newer one
+     * Позитивный тест: Индекс цен не применяет изменение товара, доставленное после более нового
+     */
+    @Test
+    public void shouldIgnoreStaleChangeInPriceIndex() {
+        priceIndex.rebuild();
+        Product product = repository.findAllByActiveTrue().get(0);
+        long staleVersion = product.getVersion();
+
+        ProductUpdateDto updateDto = new ProductUpdateDto();
+        updateDto.setNewPrice(new BigDecimal("150.00"));
+        productService.update(product.getId(), updateDto);
+
+        // Price change committed before the update, delivered after it / Изменение цены до обновления, доставлено после
+        priceIndex.onProductChanged(new ProductChangedEvent(product.getId(), product.getTitle(),
+                product.getPrice(), true, new BigDecimal("90.00"), true, staleVersion));
+
+        assertEquals(List.of(product.getId()),
+                priceIndex.findIdsByPriceRange(new BigDecimal("150.00"), new BigDecimal("150.00"), 10),
+                "Stale price change shouldn't replace the current price");
+        assertTrue(priceIndex.findIdsByPriceRange(new BigDecimal("90.00"), new BigDecimal("90.00"), 10).isEmpty(),
+                "Stale price shouldn't be indexed");
+    }
+
+    /**
+     * Positive test: Product cache counts hits and misses, evicts the least recently used entry over the size limit
+     * and reloads an entry older than TTL
+     * Позитивный тест: Кэш товаров считает попадания и промахи, вытесняет давно не использованную запись
+     * при превышении размера и перечитывает запись старше TTL
+     */
+    @Test
+    public void shouldEvictProductCacheEntriesBySizeAndTtl() {
+        List<Product> products = repository.findAll();
+        Product first = products.get(0);
+        Product second = products.get(1);
+        Product third = new Product();
+        third.setTitle("Test third product");
+        third.setPrice(new BigDecimal("333.00"));
+        third.setActive(true);
+        repository.save(third);
+        int[] loads = new int[1];
+
+        ProductCache cache = new ProductCache(productMapper, 2, 60_000);
+        cache.getOrLoad(first.getId(), () -> load(first, loads));
+        cache.getOrLoad(first.getId(), () -> load(first, loads));
+        cache.getOrLoad(second.getId(), () -> load(second, loads));
+        // First is used more recently than second, so second is evicted / Первый использован позже, вытесняется второй
+        cache.getOrLoad(first.getId(), () -> load(first, loads));
+        cache.getOrLoad(third.getId(), () -> load(third, loads));
+        cache.getOrLoad(first.getId(), () -> load(first, loads));
+        cache.getOrLoad(second.getId(), () -> load(second, loads));
+
+        ProductCacheStatsDto stats = cache.getStats();
+        assertEquals(4, loads[0], "Only misses should load from the database");
+        assertEquals(3, stats.getHits(), "Repeated reads of a cached product should be hits");
+        assertEquals(4, stats.getMisses(), "First reads and the evicted product should be misses");
+        assertEquals(2, stats.getEvictions(), "Every load over the limit should evict one entry");
+        assertEquals(2, stats.getSize(), "Cache shouldn't grow over its limit");
+
+        ProductCache expiring = new ProductCache(productMapper, 10, 0);
+        expiring.getOrLoad(first.getId(), () -> load(first, loads));
+        expiring.getOrLoad(first.getId(), () -> load(first, loads));
+        stats = expiring.getStats();
+        assertEquals(6, loads[0], "Expired entry should be loaded again");
+        assertEquals(0, stats.getHits(), "Expired entry shouldn't be a hit");
+        assertEquals(2, stats.getMisses(), "Expired entry should be a miss");
+        assertEquals(1, stats.getEvictions(), "Expired entry should be counted as evicted");
+    }
+
+    /**
+     * Positive test: Product writes invalidate the cached product after commit, the next read loads the new state
+     * Позитивный тест: Изменения товара инвалидируют закэшированный товар после коммита,
+     * следующее чтение загружает новое состояние
+     */
+    @Test
+    public void shouldInvalidateProductCacheOnWrites() throws IOException {
+        Long id = repository.findAllByActiveTrue().get(0).getId();
+        ProductCacheStatsDto before = productService.getCacheStats();
+
+        productService.getActiveProductById(id);
+        productService.getActiveProductById(id);
+        ProductCacheStatsDto stats = productService.getCacheStats();
+        assertEquals(before.getMisses() + 1, stats.getMisses(), "First read should be a miss");
+        assertEquals(before.getHits() + 1, stats.getHits(), "Second read should be a hit");
+
+        ProductUpdateDto updateDto = new ProductUpdateDto();
+        updateDto.setNewPrice(new BigDecimal("150.00"));
+        productService.update(id, updateDto);
+        assertEquals(before.getInvalidations() + 1, productService.getCacheStats().getInvalidations(),
+                "Update should invalidate the cached product");
+        assertEquals(new BigDecimal("150.00"), productService.getActiveProductById(id).getPrice(),
+                "Read after update should return the new price");
+
+        when(fileService.uploadAndGetUrl(any())).thenReturn("https://images.test/product.png");
+        productService.addImage(id, new MockMultipartFile("image", "product.png", "image/png", new byte[]{1, 2, 3}));
+        assertEquals(before.getInvalidations() + 2, productService.getCacheStats().getInvalidations(),
+                "Adding image should invalidate the cached product");
+        assertEquals("https://images.test/product.png", productService.getActiveProductById(id).getImageUrl(),
+                "Read after adding image should return the new image");
+
+        productService.deleteById(id);
+        assertEquals(before.getInvalidations() + 3, productService.getCacheStats().getInvalidations(),
+                "Delete should invalidate the cached product");
+        assertThrows(EntityNotFoundException.class, () -> productService.getActiveProductById(id),
+                "Deleted product shouldn't be served from the cache");
+
+        productService.restoreById(id);
+        assertEquals(id, productService.getActiveProductById(id).getId(), "Restored product should be readable");
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(HttpHeaders.COOKIE, ACCESS_TOKEN_COOKIE_NAME + "=" + adminAccessToken);
+        ResponseEntity<ProductCacheStatsDto> response = httpClient.exchange(
+                PRODUCT_RESOURCE + "/cache/stats", HttpMethod.GET, new HttpEntity<>(httpHeaders),
+                ProductCacheStatsDto.class
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        assertNotNull(response.getBody(), "Response body shouldn't be null");
+        assertEquals(productService.getCacheStats().getMisses(), response.getBody().getMisses(),
+                "Endpoint should return the cache counters");
+    }
+
+    private static Product load(Product product, int[] loads) {
+        loads[0]++;
+        return product;
+    }
+
+    /**
+     * Positive test: Bulk restore activates only inactive products with one UPDATE and updates the price index
+     * Позитивный тест: Групповое восстановление активирует только неактивные товары одним UPDATE и обновляет индекс цен
+     */
+    @Test
+    public void shouldRestoreProductsInBulk() {
+        priceIndex.rebuild();
+        Product inactiveProduct = repository.findAll().stream()
+                .filter(product -> !product.isActive())
+                .findFirst()
+                .orElseThrow();
+        Long activeId = repository.findAllByActiveTrue().get(0).getId();
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(HttpHeaders.COOKIE, ACCESS_TOKEN_COOKIE_NAME + "=" + adminAccessToken);
+        ResponseEntity<Integer> response = httpClient.exchange(
+                PRODUCT_RESOURCE + "/restore", HttpMethod.PUT,
+                new HttpEntity<>(List.of(inactiveProduct.getId(), activeId, Long.MAX_VALUE), httpHeaders),
+                Integer.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        assertEquals(1, response.getBody(), "Only the inactive product should be restored");
+        Product restored = repository.findById(inactiveProduct.getId()).orElseThrow();
+        assertTrue(restored.isActive(), "Product should be active after restore");
+        assertEquals(inactiveProduct.getVersion() + 1, restored.getVersion(), "Restore should increment the version");
+
+        ResponseEntity<ProductDto[]> prices = httpClient.getForEntity(
+                PRODUCT_RESOURCE + "/price-range?min=200&max=300", ProductDto[].class
+        );
+        assertNotNull(prices.getBody(), "Response body shouldn't be null");
+        assertEquals(List.of("Test inactive product"),
+                Arrays.stream(prices.getBody()).map(ProductDto::getTitle).toList(),
+                "Restored product should be added to the price index");
+    }
+
+    /**
+     * Positive test: Consistency check repairs drifted statistics and doesn't count a committed change twice
+     * while its delta is still pending
+     * Позитивный тест: Сверка исправляет расхождение статистики и не учитывает закоммиченное изменение дважды,
+     * пока его дельта ещё не применена
+     */
+    @Test
+    public void shouldVerifyCatalogStatisticsAgainstDatabase() {
+        // Products of startUp are saved directly by repository, so the statistics drifted
+        // Товары из startUp сохранены напрямую через репозиторий, поэтому статистика разошлась
+        assertFalse(catalogStatistics.verify(), "Directly saved products should be reported as drift");
+        assertEquals(1, catalogStatistics.getCount(), "Repaired count should match the database");
+        assertEquals(0, new BigDecimal("111.00").compareTo(catalogStatistics.getTotalCost()),
+                "Repaired total should match the database");
+        assertTrue(catalogStatistics.verify(), "Repaired statistics should be consistent");
+
+        ProductSaveDto saveDto = new ProductSaveDto();
+        saveDto.setTitle("Test pending product");
+        saveDto.setPrice(new BigDecimal("9.00"));
+        boolean[] verifiedBeforeDelta = new boolean[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.save(saveDto);
+            // Runs after the commit, before the statistics apply the delta
+            // Выполняется после коммита, до применения дельты статистикой
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    verifiedBeforeDelta[0] = catalogStatistics.verify();
+                }
+            });
+        });
+
+        assertTrue(verifiedBeforeDelta[0], "Pending change shouldn't be reported as drift");
+        assertEquals(2, catalogStatistics.getCount(), "Saved product should be counted once");
+        assertEquals(0, new BigDecimal("120.00").compareTo(catalogStatistics.getTotalCost()),
+                "Saved price should be added once");
+        assertTrue(catalogStatistics.verify(), "Statistics should stay consistent with the database");
+    }
+
+    /**
+     * Positive test: Product list is answered with 304 when ETag is unchanged
+     * Позитивный тест: На список товаров отвечается 304, если ETag не изменился
+     */
+    @Test
+    public void shouldReturn304WhenCatalogIsNotModified() {
+        ResponseEntity<ProductDto[]> response = httpClient.getForEntity(PRODUCT_RESOURCE, ProductDto[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        String etag = response.getHeaders().getETag();
+        assertNotNull(etag, "Response should contain ETag");
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setIfNoneMatch(etag);
+        ResponseEntity<String> notModified = httpClient.exchange(
+                PRODUCT_RESOURCE, HttpMethod.GET, new HttpEntity<>(httpHeaders), String.class
+        );
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode(), "Response has unexpected status");
+        assertNull(notModified.getBody(), "Not modified response shouldn't have body");
+    }
+
+    /**
+     * Positive test: Full product list is served gzipped from the catalog snapshot
+     * Позитивный тест: Полный список товаров отдаётся из снимка каталога в сжатом gzip виде
+     */
+    @Test
+    public void shouldGetGzippedProductsFromCatalogSnapshot() throws InterruptedException, IOException {
+        // Snapshot is regenerated in background after the products were saved / Снимок пересобирается в фоне
+        for (int i = 0; i < 50 && catalogSnapshot.getIfCurrent() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertNotNull(catalogSnapshot.getIfCurrent(), "Catalog snapshot should be regenerated");
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> response = httpClient.exchange(
+                PRODUCT_RESOURCE, HttpMethod.GET, new HttpEntity<>(httpHeaders), byte[].class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Response has unexpected status");
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING),
+                "Response should be gzipped");
+        assertNotNull(response.getBody(), "Response body should not be null");
+
+        ProductDto[] products;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            products = objectMapper.readValue(in, ProductDto[].class);
+        }
+        assertEquals(1, products.length, "Only the active product should be returned");
+        assertEquals("Test active product", products[0].getTitle(), "Unexpected product in the snapshot");
+
+        ResponseEntity<byte[]> identity = httpClient.getForEntity(PRODUCT_RESOURCE, byte[].class);
+        assertNotEquals(identity.getHeaders().getETag(), response.getHeaders().getETag(),
+                "Gzipped and plain bodies should have different ETags");
+
+        httpHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+        ResponseEntity<byte[]> refused = httpClient.exchange(
+                PRODUCT_RESOURCE, HttpMethod.GET, new HttpEntity<>(httpHeaders), byte[].class
+        );
+        assertNull(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING),
+                "Body shouldn't be gzipped when gzip has q=0");
+        assertEquals(identity.getHeaders().getETag(), refused.getHeaders().getETag(),
+                "Plain body should have the plain ETag");
+    }
+
     // ===================== - Tests / НЕГАТИВНЫЕ ТЕСТЫ =====================
 
     // Negative test: Save product with empty title / Тестируем негативный сценарий - что будет, если не будет title
@@ -0,0 +1,62 @@
+package de.ait.g_75_shop.controller;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Test statement inspector, registered for the test profile in application-test.yaml
+ * While recording, remembers every SQL statement Hibernate prepares in the recording thread
+ * together with the transaction it runs in, so tests can check that reads run in read-only transactions.
+ *
+ * Тестовый инспектор запросов, подключён для тестового профиля в application-test.yaml
+ * Во время записи запоминает каждый SQL-запрос, подготовленный Hibernate в записывающем потоке,
+ * вместе с транзакцией, в которой он выполняется, чтобы тесты могли проверить, что чтение идёт в read-only транзакциях.
+ */
+public class ReadOnlyStatementInspector implements StatementInspector {
+
+    private static final Queue<RecordedStatement> recorded = new ConcurrentLinkedQueue<>();
+    private static volatile Thread recordingThread;
+
+    /**
+     * Starts recording statements of the current thread
+     * Начинает запись запросов текущего потока
+     */
+    public static void start() {
+        recorded.clear();
+        recordingThread = Thread.currentThread();
+    }
+
+    /**
+     * Stops recording and returns recorded statements
+     * Останавливает запись и возвращает записанные запросы
+     *
+     * @return statements in execution order / запросы в порядке выполнения
+     */
+    public static List<RecordedStatement> stop() {
+        recordingThread = null;
+        List<RecordedStatement> statements = List.copyOf(recorded);
+        recorded.clear();
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == recordingThread) {
+            recorded.add(new RecordedStatement(sql,
+                    TransactionSynchronizationManager.isActualTransactionActive(),
+                    TransactionSynchronizationManager.isCurrentTransactionReadOnly()));
+        }
+        return sql;
+    }
+
+    /**
+     * SQL statement and its transaction
+     * SQL-запрос и его транзакция
+     */
+    public record RecordedStatement(String sql, boolean transactional, boolean readOnly) {
+    }
+}
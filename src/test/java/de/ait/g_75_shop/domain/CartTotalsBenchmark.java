@@ -0,0 +1,110 @@
+package de.ait.g_75_shop.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Manual micro-benchmark: cart summary of 1 to 50 positions, former four passes in BigDecimal
+ * (total, average recomputing the total, quantity, line totals) versus one CartTotals.Accumulator pass
+ * JMH is not available in the offline build, so this is a plain warm-up-and-measure loop with a main method.
+ * It is compiled with the tests but not run by them (the class name does not end with Test).
+ * Run from the IDE or with: java -cp target/test-classes:target/classes de.ait.g_75_shop.domain.CartTotalsBenchmark
+ *
+ * Ручной микробенчмарк: сводка корзины из 1-50 позиций, прежние четыре прохода в BigDecimal
+ * (итог, среднее с повторным расчётом итога, количество, итоги позиций) против одного прохода CartTotals.Accumulator
+ * JMH недоступен в офлайн-сборке, поэтому это обычный цикл прогрева и замера с методом main.
+ * Компилируется вместе с тестами, но ими не запускается (имя класса не заканчивается на Test).
+ */
+public final class CartTotalsBenchmark {
+
+    private static final int[] CART_SIZES = {1, 5, 10, 25, 50};
+    private static final long OPERATIONS_PER_SIZE = 20_000_000;
+    private static final int ROUNDS = 3;
+
+    private CartTotalsBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        long sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            for (int size : CART_SIZES) {
+                Cart cart = Cart.random(size, new Random(size));
+                long iterations = OPERATIONS_PER_SIZE / size;
+
+                long start = System.nanoTime();
+                for (long i = 0; i < iterations; i++) {
+                    sink += multiPass(cart);
+                }
+                long multiPassNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (long i = 0; i < iterations; i++) {
+                    sink += singlePass(cart);
+                }
+                long singlePassNanos = System.nanoTime() - start;
+
+                System.out.printf("Round %d, %2d positions: four passes %.1f ns/op, one pass %.1f ns/op%n",
+                        round, size, (double) multiPassNanos / iterations, (double) singlePassNanos / iterations);
+            }
+        }
+        System.out.println("Checksum: " + sink);
+    }
+
+    private static long multiPass(Cart cart) {
+        BigDecimal[] lines = new BigDecimal[cart.prices.length];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = cart.prices[i].multiply(BigDecimal.valueOf(cart.quantities[i]));
+        }
+        int quantity = Arrays.stream(cart.quantities).sum();
+        BigDecimal average = total(cart).divide(BigDecimal.valueOf(quantity), 2, RoundingMode.HALF_UP);
+        return total(cart).unscaledValue().longValue() + average.unscaledValue().longValue()
+                + quantity + lines[lines.length - 1].unscaledValue().longValue();
+    }
+
+    private static BigDecimal total(Cart cart) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < cart.prices.length; i++) {
+            total = total.add(cart.prices[i].multiply(BigDecimal.valueOf(cart.quantities[i])));
+        }
+        return total;
+    }
+
+    private static long singlePass(Cart cart) {
+        CartTotals.Accumulator accumulator = CartTotals.accumulator();
+        long lastLine = 0;
+        for (int i = 0; i < cart.priceCents.length; i++) {
+            lastLine = accumulator.add(cart.priceCents[i], cart.quantities[i], true);
+        }
+        CartTotals totals = accumulator.build();
+        return totals.getTotalPrice().getCents() + totals.getAveragePrice().getCents()
+                + totals.getTotalQuantity() + lastLine;
+    }
+
+    /**
+     * Prices and quantities of a generated cart
+     * Цены и количества сгенерированной корзины
+     */
+    private static final class Cart {
+        private final BigDecimal[] prices;
+        private final long[] priceCents;
+        private final int[] quantities;
+
+        private Cart(int size) {
+            prices = new BigDecimal[size];
+            priceCents = new long[size];
+            quantities = new int[size];
+        }
+
+        private static Cart random(int size, Random random) {
+            Cart cart = new Cart(size);
+            for (int i = 0; i < size; i++) {
+                cart.priceCents[i] = 100 + random.nextInt(99_900);
+                cart.prices[i] = BigDecimal.valueOf(cart.priceCents[i], 2);
+                cart.quantities[i] = 1 + random.nextInt(100);
+            }
+            return cart;
+        }
+    }
+}
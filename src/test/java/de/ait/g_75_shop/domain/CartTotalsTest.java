@@ -0,0 +1,100 @@
+package de.ait.g_75_shop.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests of the cart summary and its single-pass accumulator
+ * Модульные тесты сводки корзины и её однопроходного накопителя
+ */
+class CartTotalsTest {
+
+    /**
+     * Positive test: one pass returns line totals and sums only active products, positions are all counted
+     * Позитивный тест: один проход возвращает итоги позиций и суммирует только активные товары,
+     * позиции учитываются все
+     */
+    @Test
+    void shouldAccumulateActivePositionsInOnePass() {
+        CartTotals.Accumulator accumulator = CartTotals.accumulator();
+
+        assertEquals(2_500, accumulator.add(1_250, 2, true), "Line total should be price times quantity");
+        assertEquals(999, accumulator.add(333, 3, true), "Line total should be price times quantity");
+        assertEquals(10_000, accumulator.add(5_000, 2, false), "Inactive line total should still be returned");
+
+        CartTotals totals = accumulator.build();
+        assertEquals(3, totals.getPositionsCount(), "Inactive positions should be counted as positions");
+        assertEquals(5, totals.getTotalQuantity(), "Inactive quantity shouldn't be counted");
+        assertEquals(Money.ofCents(3_499), totals.getTotalPrice(), "Inactive price shouldn't be counted");
+        assertEquals(Money.ofCents(700), totals.getAveragePrice(), "Average should be 34.99 / 5 rounded HALF_UP");
+    }
+
+    /**
+     * Positive test: empty cart and stored totals without a price give zero totals and zero average
+     * Позитивный тест: пустая корзина и хранимые итоги без цены дают нулевые итоги и нулевое среднее
+     */
+    @Test
+    void shouldBuildEmptyTotals() {
+        CartTotals empty = CartTotals.accumulator().build();
+        assertEquals(0, empty.getPositionsCount(), "Empty cart should have no positions");
+        assertEquals(Money.ZERO, empty.getTotalPrice(), "Empty cart should cost nothing");
+        assertEquals(Money.ZERO, empty.getAveragePrice(), "Average of empty cart should be zero");
+
+        CartTotals stored = CartTotals.of(2, 0, null);
+        assertEquals(Money.ZERO, stored.getTotalPrice(), "Null stored price should be zero");
+        assertEquals(Money.ZERO, stored.getAveragePrice(), "Average without active items should be zero");
+        assertEquals(Money.ZERO, CartTotals.EMPTY.getAveragePrice(), "EMPTY should have zero average");
+    }
+
+    /**
+     * Positive test: accumulated totals match a BigDecimal calculation for carts of 1 to 50 positions
+     * Позитивный тест: накопленные итоги совпадают с расчётом в BigDecimal для корзин от 1 до 50 позиций
+     */
+    @Test
+    void shouldMatchBigDecimalCalculation() {
+        for (int size = 1; size <= 50; size++) {
+            CartTotals.Accumulator accumulator = CartTotals.accumulator();
+            BigDecimal expectedTotal = BigDecimal.ZERO;
+            int expectedQuantity = 0;
+            for (int i = 0; i < size; i++) {
+                long priceCents = 99 + 137L * i;
+                int quantity = 1 + i % 7;
+                boolean active = i % 5 != 4;
+                accumulator.add(priceCents, quantity, active);
+                if (active) {
+                    expectedTotal = expectedTotal.add(BigDecimal.valueOf(priceCents, 2)
+                            .multiply(BigDecimal.valueOf(quantity)));
+                    expectedQuantity += quantity;
+                }
+            }
+
+            CartTotals totals = accumulator.build();
+            assertEquals(expectedTotal, totals.getTotalPrice().toBigDecimal(),
+                    "Total of " + size + " positions should match BigDecimal");
+            assertEquals(expectedTotal.divide(BigDecimal.valueOf(expectedQuantity), 2, RoundingMode.HALF_UP),
+                    totals.getAveragePrice().toBigDecimal(),
+                    "Average of " + size + " positions should match BigDecimal HALF_UP");
+        }
+    }
+
+    /**
+     * Negative test: overflow of a line or of the total throws instead of wrapping around
+     * Негативный тест: переполнение итога позиции или общего итога выбрасывает исключение
+     */
+    @Test
+    void shouldThrowOnOverflow() {
+        assertThrows(ArithmeticException.class,
+                () -> CartTotals.accumulator().add(Long.MAX_VALUE / 2 + 1, 2, true),
+                "Line total overflow should throw");
+
+        CartTotals.Accumulator accumulator = CartTotals.accumulator();
+        accumulator.add(Long.MAX_VALUE, 1, true);
+        assertThrows(ArithmeticException.class, () -> accumulator.add(1, 1, true),
+                "Cart total overflow should throw");
+        assertEquals(1, accumulator.add(1, 1, false), "Inactive line shouldn't be added to the total");
+    }
+}
@@ -0,0 +1,78 @@
+package de.ait.g_75_shop.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manual micro-benchmark: cart total and average price with BigDecimal versus long cents (Money)
+ * JMH is not available in the offline build, so this is a plain warm-up-and-measure loop with a main method.
+ * It is compiled with the tests but not run by them (the class name does not end with Test).
+ * Run from the IDE or with: java -cp target/test-classes:target/classes de.ait.g_75_shop.domain.MoneyBenchmark
+ *
+ * Ручной микробенчмарк: общая стоимость и средняя цена корзины с BigDecimal против long-центов (Money)
+ * JMH недоступен в офлайн-сборке, поэтому это обычный цикл прогрева и замера с методом main.
+ * Компилируется вместе с тестами, но ими не запускается (имя класса не заканчивается на Test).
+ */
+public final class MoneyBenchmark {
+
+    private static final int POSITIONS = 50;
+    private static final int ITERATIONS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    private MoneyBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        BigDecimal[] prices = new BigDecimal[POSITIONS];
+        long[] priceCents = new long[POSITIONS];
+        int[] quantities = new int[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            priceCents[i] = 100 + random.nextInt(99_900);
+            prices[i] = BigDecimal.valueOf(priceCents[i], 2);
+            quantities[i] = 1 + random.nextInt(100);
+        }
+
+        long sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += bigDecimalAverage(prices, quantities).unscaledValue().longValue();
+            }
+            long bigDecimalNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += moneyAverage(priceCents, quantities).getCents();
+            }
+            long moneyNanos = System.nanoTime() - start;
+
+            System.out.printf("Round %d: BigDecimal %.1f ns/op, Money %.1f ns/op (%d ms total)%n", round,
+                    (double) bigDecimalNanos / ITERATIONS, (double) moneyNanos / ITERATIONS,
+                    TimeUnit.NANOSECONDS.toMillis(bigDecimalNanos + moneyNanos));
+        }
+        System.out.println("Checksum: " + sink);
+    }
+
+    private static BigDecimal bigDecimalAverage(BigDecimal[] prices, int[] quantities) {
+        BigDecimal total = BigDecimal.ZERO;
+        int quantity = 0;
+        for (int i = 0; i < prices.length; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+            quantity += quantities[i];
+        }
+        return total.divide(BigDecimal.valueOf(quantity), 2, RoundingMode.HALF_UP);
+    }
+
+    private static Money moneyAverage(long[] priceCents, int[] quantities) {
+        Money total = Money.ZERO;
+        int quantity = 0;
+        for (int i = 0; i < priceCents.length; i++) {
+            total = total.plus(Money.ofCents(priceCents[i]).times(quantities[i]));
+            quantity += quantities[i];
+        }
+        return total.averageOver(quantity);
+    }
+}
@@ -0,0 +1,98 @@
+package de.ait.g_75_shop.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests of the Money value type: exact conversion, HALF_UP averaging and overflow checks
+ * Модульные тесты денежного типа Money: точное преобразование, среднее с HALF_UP и проверка переполнения
+ */
+class MoneyTest {
+
+    /**
+     * Positive test: amounts with up to 2 decimal places convert exactly in both directions, null is zero
+     * Позитивный тест: суммы не более чем с 2 знаками после запятой преобразуются точно в обе стороны, null - ноль
+     */
+    @Test
+    void shouldConvertAmountsExactly() {
+        assertEquals(12345, Money.centsOf(new BigDecimal("123.45")), "Amount should convert to cents");
+        assertEquals(12300, Money.centsOf(new BigDecimal("123")), "Integer amount should convert to cents");
+        assertEquals(10, Money.centsOf(new BigDecimal("0.100")), "Trailing zeros shouldn't matter");
+        assertEquals(0, Money.centsOf(null), "Null should be zero");
+        assertSame(Money.ZERO, Money.of(BigDecimal.ZERO), "Zero amount should be the ZERO constant");
+        assertEquals(new BigDecimal("123.45"), Money.ofCents(12345).toBigDecimal(), "Cents should convert back");
+        assertEquals("-0.05", Money.ofCents(-5).toString(), "Negative amount should be printed plainly");
+    }
+
+    /**
+     * Negative test: amounts with more than 2 decimal places or beyond long cents are rejected
+     * Негативный тест: суммы с более чем 2 знаками после запятой или вне диапазона long центов отклоняются
+     */
+    @Test
+    void shouldRejectInexactAmounts() {
+        assertThrows(ArithmeticException.class, () -> Money.centsOf(new BigDecimal("0.001")),
+                "Third decimal place should be rejected");
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("19.999")),
+                "Amount shouldn't be rounded silently");
+        assertThrows(ArithmeticException.class,
+                () -> Money.centsOf(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE)),
+                "Amount beyond long cents should be rejected");
+    }
+
+    /**
+     * Positive test: average is rounded HALF_UP to a cent away from zero, like BigDecimal, and is zero for count 0
+     * Позитивный тест: среднее округляется HALF_UP до цента от нуля, как в BigDecimal, и равно нулю при количестве 0
+     */
+    @Test
+    void shouldAverageHalfUp() {
+        assertEquals(Money.ofCents(4), Money.ofCents(7).averageOver(2), "3.5 cents should round up");
+        assertEquals(Money.ofCents(3), Money.ofCents(10).averageOver(3), "3.33 cents should round down");
+        assertEquals(Money.ofCents(-4), Money.ofCents(-7).averageOver(2), "-3.5 cents should round away from zero");
+        assertEquals(Money.ofCents(-4), Money.ofCents(7).averageOver(-2), "Negative count should flip the sign");
+        assertSame(Money.ZERO, Money.ofCents(100).averageOver(0), "Average over zero items should be zero");
+
+        for (long cents = -1000; cents <= 1000; cents += 7) {
+            for (long count = 1; count <= 13; count++) {
+                BigDecimal expected = BigDecimal.valueOf(cents, 2)
+                        .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+                assertEquals(expected, Money.ofCents(cents).averageOver(count).toBigDecimal(),
+                        "Average of " + cents + " cents over " + count + " should match BigDecimal HALF_UP");
+            }
+        }
+    }
+
+    /**
+     * Negative test: arithmetic overflow throws instead of wrapping around
+     * Негативный тест: переполнение при вычислениях выбрасывает исключение, а не переходит через границу
+     */
+    @Test
+    void shouldThrowOnOverflow() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+        Money min = Money.ofCents(Long.MIN_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)), "Sum overflow should throw");
+        assertThrows(ArithmeticException.class, () -> min.minus(Money.ofCents(1)), "Difference overflow should throw");
+        assertThrows(ArithmeticException.class, () -> max.times(2), "Product overflow should throw");
+        assertThrows(ArithmeticException.class, () -> max.averageOver(3),
+                "Average of an amount too large to double should throw");
+        assertEquals(Money.ofCents(Long.MAX_VALUE - 1), max.minus(Money.ofCents(1)), "In-range result shouldn't throw");
+    }
+
+    /**
+     * Positive test: equality, ordering and sign depend on cents only
+     * Позитивный тест: равенство, порядок и знак зависят только от центов
+     */
+    @Test
+    void shouldCompareByCents() {
+        assertEquals(Money.of(new BigDecimal("1.50")), Money.of(new BigDecimal("1.5")), "Scale shouldn't matter");
+        assertEquals(Money.ofCents(150).hashCode(), Money.of(new BigDecimal("1.5")).hashCode(),
+                "Equal amounts should have equal hash codes");
+        assertTrue(Money.ofCents(1).compareTo(Money.ofCents(2)) < 0, "Smaller amount should be ordered first");
+        assertEquals(-1, Money.ofCents(-3).signum(), "Sign of negative amount should be -1");
+        assertEquals(0, Money.ZERO.signum(), "Sign of zero should be 0");
+    }
+}